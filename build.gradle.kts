@@ -1,5 +1,6 @@
 plugins {
     java
+    `java-test-fixtures`
     kotlin("jvm")
 }
 
@@ -23,5 +24,205 @@ kotlin {
 
 dependencies {
     api(libs.dbusJava)
+    api(libs.kotlinxCoroutines)
     implementation(libs.jetbrainsAnnotations)
+    testImplementation(platform(libs.junitBom))
+    testImplementation(libs.junitJupiter)
+    testRuntimeOnly(libs.junitPlatformLauncher)
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+/**
+ * Generates org.mpris.MPRISProperties, the Get/Set dispatch tables, from the @DBusProperty declarations of the MPRIS
+ * interfaces. Each table is a perfect hash over the name length and two characters, so a lookup is one array index
+ * and one equals call.
+ */
+val generateMPRISProperties by tasks.registering {
+    group = "build"
+    description = "Generates the property dispatch tables from the @DBusProperty declarations"
+    val sources = listOf("MediaPlayer2", "Player", "TrackList", "Playlists")
+        .map { layout.projectDirectory.file("src/main/java/org/mpris/mpris/$it.java").asFile }
+    val output = layout.buildDirectory.dir("generated/sources/mprisProperties/java/main")
+    inputs.files(sources)
+    outputs.dir(output)
+    doLast {
+        val interfaceName = Regex("""@DBusInterfaceName\("([^"]+)"\)""")
+        val property = Regex("""@DBusProperty\(name = "(\w+)"[^)]*access = (?:DBusProperty\.)?Access\.(\w+)""")
+        val interfaces = sources.map { source ->
+            val text = source.readText()
+            val properties = property.findAll(text).toList()
+            MPRISInterface(
+                source.nameWithoutExtension.uppercase(),
+                interfaceName.find(text)!!.groupValues[1],
+                properties.map { it.groupValues[1] },
+                properties.map { it.groupValues[2] != "READ" }
+            )
+        }
+        val file = output.get().file("org/mpris/MPRISProperties.java").asFile
+        file.parentFile.mkdirs()
+        file.writeText(generatePropertiesSource(interfaces))
+    }
+}
+
+sourceSets.main {
+    java.srcDir(generateMPRISProperties)
+}
+
+/**
+ * Build-time only: the generator which precomputes the introspection data of the exported classes, see ExportTable
+ */
+val introspection by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output.classesDirs + configurations.compileClasspath.get()
+    runtimeClasspath += sourceSets.main.get().output.classesDirs + configurations.runtimeClasspath.get()
+}
+
+val generateIntrospection by tasks.registering(JavaExec::class) {
+    group = "build"
+    description = "Precomputes the introspection data and method tables exportObject would build at runtime"
+    val output = layout.buildDirectory.dir("generated/resources/introspection")
+    classpath = introspection.runtimeClasspath
+    mainClass.set("org.mpris.IntrospectionGenerator")
+    argumentProviders.add(CommandLineArgumentProvider { listOf(output.get().asFile.absolutePath) })
+    outputs.dir(output)
+}
+
+sourceSets.main {
+    resources.srcDir(generateIntrospection)
+}
+
+class MPRISInterface(val constant: String, val name: String, val properties: List<String>, val writable: List<Boolean>)
+
+/**
+ * Searches the smallest power of two table in which
+ * (length * lengthFactor + name[charIndex] * charFactor + name[length - 1]) & mask has no collisions
+ * @return lengthFactor, charFactor, charIndex, mask
+ */
+fun perfectHash(names: List<String>): IntArray {
+    val maxLength = names.maxOf { it.length }
+    var size = if (names.size < 2) 1 else Integer.highestOneBit(names.size - 1) shl 1
+    while (true) {
+        for (charIndex in 0 until maxLength) for (lengthFactor in 0..31) for (charFactor in 1..31) {
+            val slots = names.map {
+                (it.length * lengthFactor + it[minOf(charIndex, it.length - 1)].code * charFactor + it[it.length - 1].code) and (size - 1)
+            }
+            if (slots.toSet().size == names.size) return intArrayOf(lengthFactor, charFactor, charIndex, size - 1)
+        }
+        size *= 2
+    }
+}
+
+fun slotTable(names: List<String>, hash: IntArray): String {
+    val slots = IntArray(hash[3] + 1) { -1 }
+    names.forEachIndexed { index, it ->
+        slots[(it.length * hash[0] + it[minOf(hash[2], it.length - 1)].code * hash[1] + it[it.length - 1].code) and hash[3]] = index
+    }
+    return slots.joinToString(", ", "{", "}")
+}
+
+fun generatePropertiesSource(interfaces: List<MPRISInterface>): String = buildString {
+    val constantName = { name: String -> name.replace(Regex("([a-z])([A-Z])"), "$1_$2").uppercase() }
+    val quoted = { names: List<String> -> names.joinToString(", ", "{", "}") { "\"$it\"" } }
+    val interfaceHash = perfectHash(interfaces.map { it.name })
+    appendLine("package org.mpris;")
+    appendLine()
+    appendLine("/**")
+    appendLine(" * Property dispatch tables generated by the generateMPRISProperties task from the @DBusProperty declarations in")
+    appendLine(" * org.mpris.mpris. Do not edit.")
+    appendLine(" * <p>Every property has a dense index within its interface. Names are resolved through a perfect hash over the")
+    appendLine(" * name length and two characters, so a lookup costs one array index and one equals call.</p>")
+    appendLine(" */")
+    appendLine("final class MPRISProperties {")
+    for (mprisInterface in interfaces) {
+        mprisInterface.properties.forEachIndexed { index, name ->
+            appendLine("    static final int ${mprisInterface.constant}_${constantName(name)} = $index;")
+        }
+    }
+    appendLine()
+    appendLine("    private static final MPRISObjectPaths[] INTERFACES = {${interfaces.joinToString(", ") { "MPRISObjectPaths.${it.constant}" }}};")
+    appendLine("    private static final String[] INTERFACE_NAMES = ${quoted(interfaces.map { it.name })};")
+    appendLine("    private static final int[] INTERFACE_SLOTS = ${slotTable(interfaces.map { it.name }, interfaceHash)};")
+    for (mprisInterface in interfaces) {
+        val hash = perfectHash(mprisInterface.properties)
+        appendLine("    private static final String[] ${mprisInterface.constant}_NAMES = ${quoted(mprisInterface.properties)};")
+        appendLine("    private static final int[] ${mprisInterface.constant}_SLOTS = ${slotTable(mprisInterface.properties, hash)};")
+        appendLine("    private static final boolean[] ${mprisInterface.constant}_WRITABLE = ${mprisInterface.writable.joinToString(", ", "{", "}")};")
+    }
+    appendLine()
+    appendLine("    private MPRISProperties() {")
+    appendLine("    }")
+    appendLine()
+    appendLine("    /**")
+    appendLine("     * @return The interface or null if it is not part of MPRIS")
+    appendLine("     */")
+    appendLine("    static MPRISObjectPaths interfaceOf(String interfaceName) {")
+    appendLine("        int slot = slot(INTERFACE_SLOTS, interfaceName, ${interfaceHash.take(3).joinToString(", ")});")
+    appendLine("        return slot >= 0 && INTERFACE_NAMES[slot].equals(interfaceName) ? INTERFACES[slot] : null;")
+    appendLine("    }")
+    appendLine()
+    appendLine("    /**")
+    appendLine("     * @return The index of the property within its interface or -1 if the interface does not declare it")
+    appendLine("     */")
+    appendLine("    static int index(MPRISObjectPaths objectPath, String propertyName) {")
+    appendLine("        String[] names;")
+    appendLine("        int slot;")
+    appendLine("        switch (objectPath) {")
+    for (mprisInterface in interfaces) {
+        val hash = perfectHash(mprisInterface.properties)
+        appendLine("            case ${mprisInterface.constant}:")
+        appendLine("                names = ${mprisInterface.constant}_NAMES;")
+        appendLine("                slot = slot(${mprisInterface.constant}_SLOTS, propertyName, ${hash.take(3).joinToString(", ")});")
+        appendLine("                break;")
+    }
+    appendLine("            default:")
+    appendLine("                return -1;")
+    appendLine("        }")
+    appendLine("        return slot >= 0 && names[slot].equals(propertyName) ? slot : -1;")
+    appendLine("    }")
+    appendLine()
+    appendLine("    /**")
+    appendLine("     * @return The number of properties the interface declares")
+    appendLine("     */")
+    appendLine("    static int count(MPRISObjectPaths objectPath) {")
+    appendLine("        return names(objectPath).length;")
+    appendLine("    }")
+    appendLine()
+    appendLine("    static String name(MPRISObjectPaths objectPath, int index) {")
+    appendLine("        return names(objectPath)[index];")
+    appendLine("    }")
+    appendLine()
+    appendLine("    /**")
+    appendLine("     * @return false if the property is declared with access READ, clients may then not Set it")
+    appendLine("     */")
+    appendLine("    static boolean isWritable(MPRISObjectPaths objectPath, int index) {")
+    appendLine("        switch (objectPath) {")
+    for (mprisInterface in interfaces) {
+        appendLine("            case ${mprisInterface.constant}:")
+        appendLine("                return ${mprisInterface.constant}_WRITABLE[index];")
+    }
+    appendLine("            default:")
+    appendLine("                throw new IllegalArgumentException(objectPath.name());")
+    appendLine("        }")
+    appendLine("    }")
+    appendLine()
+    appendLine("    private static String[] names(MPRISObjectPaths objectPath) {")
+    appendLine("        switch (objectPath) {")
+    for (mprisInterface in interfaces) {
+        appendLine("            case ${mprisInterface.constant}:")
+        appendLine("                return ${mprisInterface.constant}_NAMES;")
+    }
+    appendLine("            default:")
+    appendLine("                throw new IllegalArgumentException(objectPath.name());")
+    appendLine("        }")
+    appendLine("    }")
+    appendLine()
+    appendLine("    private static int slot(int[] slots, String name, int lengthFactor, int charFactor, int charIndex) {")
+    appendLine("        int length = name.length();")
+    appendLine("        if(length == 0) return -1;")
+    appendLine("        return slots[(length * lengthFactor + name.charAt(Math.min(charIndex, length - 1)) * charFactor")
+    appendLine("                + name.charAt(length - 1)) & (slots.length - 1)];")
+    appendLine("    }")
+    appendLine("}")
 }
@@ -0,0 +1,37 @@
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+group = "org.mpris"
+version = libs.versions.mprisJava.get()
+
+repositories {
+    mavenCentral()
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+dependencies {
+    jmh(project(":"))  // Dependency on the main module
+    jmh(testFixtures(project(":")))  // Embedded bus
+    jmh(libs.jmhCore)
+    jmhAnnotationProcessor(libs.jmhGeneratorAnnprocess)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    // Cold start numbers need e.g. -PjmhFork=10 -PjmhWarmupIterations=0 -PjmhIterations=1
+    fork = (project.findProperty("jmhFork") as String?)?.toInt() ?: 1
+    warmupIterations = (project.findProperty("jmhWarmupIterations") as String?)?.toInt() ?: 3
+    warmup = "2s"
+    iterations = (project.findProperty("jmhIterations") as String?)?.toInt() ?: 5
+    timeOnIteration = "2s"
+    // Run a subset with e.g. -PjmhIncludes=PropertyRead
+    if (project.hasProperty("jmhIncludes")) {
+        includes.add(project.property("jmhIncludes") as String)
+    }
+}
@@ -0,0 +1,69 @@
+package org.mpris.benchmarks;
+
+import org.freedesktop.dbus.DBusPath;
+import org.mpris.MediaPlayerDSLKt;
+import org.mpris.Metadata;
+import org.mpris.MetadataPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building track metadata with the Java builder, with the Java builder backed by a {@link MetadataPool}
+ * and with the Kotlin {@code MetadataBuilder} (through the {@code track(...)} helper).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetadataBenchmark {
+    private final DBusPath trackId = new DBusPath("/org/mpris/benchmark/track/1");
+    private final List<String> artists = Arrays.asList("Artist");
+    private final URI artUrl = URI.create("https://example.org/cover.png");
+    private final MetadataPool pool = new MetadataPool();
+
+    @Benchmark
+    public Metadata javaBuilder() {
+        return new Metadata.Builder()
+                .setTrackID(trackId)
+                .setLength(180_000_000)
+                .setTitle("Title")
+                .setArtists(artists)
+                .setAlbumName("Album")
+                .setAlbumArtists(artists)
+                .setTrackNumber(1)
+                .setArtURL(artUrl)
+                .build();
+    }
+
+    @Benchmark
+    public Metadata pooledJavaBuilder() {
+        return new Metadata.Builder(pool)
+                .setTrackID(trackId)
+                .setLength(180_000_000)
+                .setTitle("Title")
+                .setArtists(artists)
+                .setAlbumName("Album")
+                .setAlbumArtists(artists)
+                .setTrackNumber(1)
+                .setArtURL(artUrl)
+                .build();
+    }
+
+    @Benchmark
+    public Metadata kotlinBuilder() {
+        return MediaPlayerDSLKt.track(
+                "/org/mpris/benchmark/track/1",
+                "Title",
+                "Artist",
+                "Album",
+                1,
+                180_000_000,
+                "https://example.org/cover.png",
+                null,
+                null
+        );
+    }
+}
@@ -0,0 +1,98 @@
+package org.mpris.benchmarks;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.mpris.MPRISMP2Base;
+import org.mpris.MPRISMediaPlayer;
+import org.mpris.Metadata;
+import org.mpris.mpris.LoopStatus;
+import org.mpris.mpris.PlaybackStatus;
+import org.mpris.testing.EmbeddedBus;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A fully configured player exported on an {@link EmbeddedBus} together with a client side proxy of its
+ * properties.
+ */
+final class PlayerFixture implements AutoCloseable {
+    static final String PLAYER_NAME = "benchmark";
+    static final String BUS_NAME = "org.mpris.MediaPlayer2." + PLAYER_NAME;
+    static final String OBJECT_PATH = "/org/mpris/MediaPlayer2";
+
+    private final EmbeddedBus bus;
+    private final MPRISMediaPlayer mediaPlayer;
+    private final DBusConnection client;
+    private final Properties remoteProperties;
+
+    private PlayerFixture(EmbeddedBus bus, MPRISMediaPlayer mediaPlayer, DBusConnection client, Properties remoteProperties) {
+        this.bus = bus;
+        this.mediaPlayer = mediaPlayer;
+        this.client = client;
+        this.remoteProperties = remoteProperties;
+    }
+
+    static PlayerFixture start(long propertiesFlushWindowMillis) throws IOException, DBusException, InterruptedException {
+        EmbeddedBus bus = EmbeddedBus.start();
+        MPRISMediaPlayer mediaPlayer = new MPRISMediaPlayer(bus.connect(), PLAYER_NAME);
+        mediaPlayer.buildMPRISMediaPlayer2None(
+                new MPRISMediaPlayer.MediaPlayer2Builder()
+                        .setIdentity("Benchmark")
+                        .setCanRaise(true)
+                        .setCanQuit(true)
+                        .setSupportedUriSchemes("file", "https")
+                        .setSupportedMimeTypes("audio/mpeg", "audio/flac")
+                        .setPropertiesFlushWindow(propertiesFlushWindowMillis),
+                new MPRISMediaPlayer.PlayerBuilder()
+                        .setPlaybackStatus(PlaybackStatus.PLAYING)
+                        .setLoopStatus(LoopStatus.NONE)
+                        .setMetadata(sampleMetadata(0))
+                        .setCanControl(true)
+                        .setCanPlay(true)
+                        .setCanPause(true)
+                        .setCanSeek(true)
+                        .setCanGoNext(true)
+                        .setCanGoPrevious(true)
+        );
+        mediaPlayer.create();
+        DBusConnection client = bus.connect();
+        Properties remoteProperties = client.getRemoteObject(BUS_NAME, OBJECT_PATH, Properties.class);
+        return new PlayerFixture(bus, mediaPlayer, client, remoteProperties);
+    }
+
+    static Metadata sampleMetadata(int track) {
+        return new Metadata.Builder()
+                .setTrackID(new DBusPath("/org/mpris/benchmark/track/" + track))
+                .setLength(180_000_000)
+                .setTitle("Track " + track)
+                .setArtists(Arrays.asList("Artist"))
+                .setAlbumName("Album")
+                .setAlbumArtists(Arrays.asList("Artist"))
+                .setTrackNumber(track)
+                .build();
+    }
+
+    MPRISMediaPlayer getMediaPlayer() {
+        return mediaPlayer;
+    }
+
+    MPRISMP2Base getPlayer() {
+        return mediaPlayer.getMPRISMediaPlayer2();
+    }
+
+    DBusConnection getClient() {
+        return client;
+    }
+
+    Properties getRemoteProperties() {
+        return remoteProperties;
+    }
+
+    @Override
+    public void close() throws IOException {
+        bus.close();
+    }
+}
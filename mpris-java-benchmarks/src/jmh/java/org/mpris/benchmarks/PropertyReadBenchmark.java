@@ -0,0 +1,66 @@
+package org.mpris.benchmarks;
+
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.types.Variant;
+import org.mpris.MPRISMP2Base;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of Get and GetAll, once as a direct call on the exported object and once as a round trip through
+ * the embedded daemon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropertyReadBenchmark {
+    private static final String MEDIA_PLAYER2 = "org.mpris.MediaPlayer2";
+    private static final String PLAYER = "org.mpris.MediaPlayer2.Player";
+
+    private PlayerFixture fixture;
+    private MPRISMP2Base player;
+    private Properties remoteProperties;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DBusException, InterruptedException {
+        fixture = PlayerFixture.start(0);
+        player = fixture.getPlayer();
+        remoteProperties = fixture.getRemoteProperties();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Variant<?> getLocal() throws DBusException {
+        return player.Get(MEDIA_PLAYER2, "Identity");
+    }
+
+    @Benchmark
+    public Variant<?> getPositionLocal() throws DBusException {
+        return player.Get(PLAYER, "Position");
+    }
+
+    @Benchmark
+    public Map<String, Variant<?>> getAllLocal() {
+        return player.GetAll(PLAYER);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object getRemote() {
+        return remoteProperties.Get(MEDIA_PLAYER2, "Identity");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, Variant<?>> getAllRemote() {
+        return remoteProperties.GetAll(PLAYER);
+    }
+}
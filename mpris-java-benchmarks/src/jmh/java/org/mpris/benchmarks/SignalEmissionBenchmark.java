@@ -0,0 +1,70 @@
+package org.mpris.benchmarks;
+
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.mpris.MPRISMP2Base;
+import org.mpris.Metadata;
+import org.mpris.mpris.PlaybackStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of changing properties, which updates the snapshot and sends PropertiesChanged to the embedded daemon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignalEmissionBenchmark {
+    private static final int TRACKS = 16;
+
+    /**
+     * The flush window of the emitter, 0 sends every change as its own signal
+     */
+    @Param({"0", "10"})
+    public long flushWindowMillis;
+
+    private PlayerFixture fixture;
+    private MPRISMP2Base player;
+    private Metadata[] tracks;
+    private int track;
+    private double volume;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DBusException, InterruptedException {
+        fixture = PlayerFixture.start(flushWindowMillis);
+        player = fixture.getPlayer();
+        tracks = new Metadata[TRACKS];
+        for(int i = 0; i < TRACKS; i++) {
+            tracks[i] = PlayerFixture.sampleMetadata(i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void updateVolume() throws DBusException {
+        volume = volume >= 1.0 ? 0.0 : volume + 0.01;
+        player.setVolume(volume);
+    }
+
+    @Benchmark
+    public void updateMetadata() throws DBusException {
+        track = (track + 1) % TRACKS;
+        player.setMetadata(tracks[track]);
+    }
+
+    @Benchmark
+    public void trackChangeTransaction() throws DBusException {
+        track = (track + 1) % TRACKS;
+        player.transaction(() -> {
+            player.setMetadata(tracks[track]);
+            player.setPlaybackStatus(PlaybackStatus.PLAYING);
+            player.setPosition(0);
+            player.setCanGoPrevious(track > 0);
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package org.mpris.benchmarks;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.mpris.MPRISMP2Base;
+import org.mpris.MPRISMediaPlayer;
+import org.mpris.testing.EmbeddedBus;
+import org.mpris.testing.MPRISTestHarness;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from building a player with all four interfaces until it owns its bus name, measured once per fresh JVM.
+ * <p>{@code create} is the library path, exporting from the precomputed introspection tables and adding the
+ * signal handlers after the name is owned. {@code createReflective} is the same player exported through
+ * {@code connection.exportObject}, which reflects over the class and builds the introspection XML first.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+    private EmbeddedBus bus;
+    private DBusConnection connection;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException, DBusException, InterruptedException {
+        bus = EmbeddedBus.start();
+        connection = bus.connect();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        bus.close();
+    }
+
+    @Benchmark
+    public MPRISMediaPlayer create() throws DBusException {
+        MPRISMediaPlayer mediaPlayer = build();
+        mediaPlayer.create();
+        return mediaPlayer;
+    }
+
+    @Benchmark
+    public MPRISMediaPlayer createReflective() throws DBusException {
+        MPRISMediaPlayer mediaPlayer = build();
+        MPRISMP2Base player = mediaPlayer.getMPRISMediaPlayer2();
+        player.init();
+        connection.exportObject(player.getObjectPath(), player);
+        connection.requestBusName(PlayerFixture.BUS_NAME);
+        return mediaPlayer;
+    }
+
+    private MPRISMediaPlayer build() throws DBusException {
+        MPRISMediaPlayer mediaPlayer = new MPRISMediaPlayer(connection, PlayerFixture.PLAYER_NAME);
+        mediaPlayer.buildMPRISMediaPlayer2All(
+                MPRISTestHarness.defaultMediaPlayer2(),
+                MPRISTestHarness.defaultPlayer(),
+                MPRISTestHarness.defaultTrackList(),
+                MPRISTestHarness.defaultPlaylists()
+        );
+        return mediaPlayer;
+    }
+}
@@ -0,0 +1,79 @@
+package org.mpris.benchmarks;
+
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.types.Variant;
+import org.mpris.MPRISMP2Base;
+import org.mpris.mpris.PlaybackStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stress test of the player state: one thread keeps writing properties while three threads read them.
+ * <p>The writer raises Volume by one on every call and toggles PlaybackStatus, which re-anchors the position.
+ * Each reader remembers the last Volume it saw, through the getter and through GetAll, and counts a stale read
+ * whenever a later read returns an older value. Reads are linearizable when {@code staleReads} stays 0.</p>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StateContentionBenchmark {
+    private static final String PLAYER = "org.mpris.MediaPlayer2.Player";
+
+    private PlayerFixture fixture;
+    private MPRISMP2Base player;
+    private double volume;
+    private boolean playing;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ReaderState {
+        public long staleReads;
+        double lastVolume;
+        double lastSnapshotVolume;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DBusException, InterruptedException {
+        fixture = PlayerFixture.start(0);
+        player = fixture.getPlayer();
+        player.setPlaybackStatus(PlaybackStatus.PAUSED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writer() throws DBusException {
+        player.setVolume(++volume);
+        playing = !playing;
+        player.setPlaybackStatus(playing ? PlaybackStatus.PLAYING : PlaybackStatus.PAUSED);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public double getter(ReaderState reader) {
+        double current = player.getVolume();
+        if(current < reader.lastVolume) reader.staleReads++;
+        reader.lastVolume = current;
+        return current;
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Map<String, Variant<?>> getAll(ReaderState reader) {
+        Map<String, Variant<?>> all = player.GetAll(PLAYER);
+        double current = (Double) all.get("Volume").getValue();
+        if(current < reader.lastSnapshotVolume) reader.staleReads++;
+        reader.lastSnapshotVolume = current;
+        return all;
+    }
+}
@@ -0,0 +1,20 @@
+plugins {
+    `java-library`
+}
+
+group = "org.mpris"
+version = libs.versions.mprisJava.get()
+
+repositories {
+    mavenCentral()
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+dependencies {
+    api(project(":"))  // Dependency on the main module for the org.mpris.mpris interfaces
+    implementation(libs.jetbrainsAnnotations)
+}
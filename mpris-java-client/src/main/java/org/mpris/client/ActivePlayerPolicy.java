@@ -0,0 +1,59 @@
+package org.mpris.client;
+
+import org.jetbrains.annotations.NotNull;
+import org.mpris.mpris.PlaybackStatus;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Decides which of the discovered players a controller acts on, see {@link PlayerDiscovery#getActivePlayer()}
+ */
+public interface ActivePlayerPolicy {
+    /**
+     * @param players The discovered players in the order they appeared, never empty
+     * @return The active player or null if none should be
+     */
+    RemotePlayer choose(@NotNull List<RemotePlayer> players);
+
+    /**
+     * Prefers playing players, then the one which started playing last, then the one which appeared last
+     */
+    static ActivePlayerPolicy mostRecentlyPlaying() {
+        return last(Comparator.comparing((RemotePlayer player) -> player.getPlaybackStatus() == PlaybackStatus.PLAYING)
+                .thenComparingLong(RemotePlayer::getLastPlayingMillis));
+    }
+
+    /**
+     * Prefers playing players, then the earliest entry of the list, then {@link #mostRecentlyPlaying()}
+     * @param busNames Bus names by priority. A name also matches its instances, e.g. org.mpris.MediaPlayer2.vlc
+     *                 matches org.mpris.MediaPlayer2.vlc.instance42
+     */
+    static ActivePlayerPolicy priority(@NotNull String... busNames) {
+        List<String> ranking = Arrays.asList(busNames);
+        Comparator<RemotePlayer> byRank = Comparator.comparingInt(player -> {
+            for(int i = 0; i < ranking.size(); i++) {
+                String name = ranking.get(i);
+                if(player.getBusName().equals(name) || player.getBusName().startsWith(name + ".")) return -i;
+            }
+            return -ranking.size();
+        });
+        return last(Comparator.comparing((RemotePlayer player) -> player.getPlaybackStatus() == PlaybackStatus.PLAYING)
+                .thenComparing(byRank)
+                .thenComparingLong(RemotePlayer::getLastPlayingMillis));
+    }
+
+    /**
+     * @return A policy choosing the greatest player, the one which appeared last on ties
+     */
+    private static ActivePlayerPolicy last(Comparator<RemotePlayer> order) {
+        return players -> {
+            RemotePlayer chosen = null;
+            for(RemotePlayer player : players) {
+                if(chosen == null || order.compare(player, chosen) >= 0) chosen = player;
+            }
+            return chosen;
+        };
+    }
+}
@@ -0,0 +1,163 @@
+package org.mpris.client;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBus;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.jetbrains.annotations.NotNull;
+import org.mpris.mpris.Player;
+import org.mpris.mpris.Playlists;
+import org.mpris.mpris.TrackList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Watches and controls other MPRIS players on a bus.
+ * <p>The client registers one handler per signal on the connection and routes each signal to the
+ * {@link RemotePlayer} whose bus name is owned by the sender. Connecting to a player reads its properties once,
+ * afterwards the mirror is kept current by signals only.</p>
+ * <pre>{@code
+ * MPRISClient client = new MPRISClient(DBusConnection.getConnection(DBusConnection.DBusBusType.SESSION));
+ * RemotePlayer vlc = client.connect("org.mpris.MediaPlayer2.vlc");
+ * vlc.getPlaybackStatus(); // no round trip
+ * vlc.getPlayer().PlayPause();
+ * }</pre>
+ */
+public class MPRISClient implements AutoCloseable {
+    public static final String OBJECT_PATH = "/org/mpris/MediaPlayer2";
+
+    private final DBusConnection connection;
+    private final DBus bus;
+    private final Map<String, RemotePlayer> players = new ConcurrentHashMap<>();
+    private final List<Registration<?>> registrations = new ArrayList<>();
+
+    private static final class Registration<S extends DBusSignal> {
+        private final Class<S> type;
+        private final DBusSigHandler<S> handler;
+
+        private Registration(Class<S> type, DBusSigHandler<S> handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * @param connection The connection to watch the bus on, it stays open when the client is closed
+     */
+    public MPRISClient(@NotNull DBusConnection connection) throws DBusException {
+        this.connection = connection;
+        this.bus = connection.getRemoteObject("org.freedesktop.DBus", "/org/freedesktop/DBus", DBus.class);
+        route(Properties.PropertiesChanged.class, RemotePlayer::propertiesChanged);
+        route(Player.Seeked.class, RemotePlayer::seeked);
+        route(TrackList.TrackListReplaced.class, RemotePlayer::trackListReplaced);
+        route(TrackList.TrackAdded.class, RemotePlayer::trackAdded);
+        route(TrackList.TrackRemoved.class, RemotePlayer::trackRemoved);
+        route(TrackList.TrackMetadataChanged.class, RemotePlayer::trackMetadataChanged);
+        route(Playlists.PlaylistChanged.class, RemotePlayer::playlistChanged);
+    }
+
+    private <S extends DBusSignal> void route(Class<S> type, BiConsumer<RemotePlayer, S> target) throws DBusException {
+        DBusSigHandler<S> handler = signal -> {
+            if(!OBJECT_PATH.equals(signal.getPath())) return;
+            for(RemotePlayer player : players.values()) {
+                if(signal.getSource().equals(player.getUniqueName())) target.accept(player, signal);
+            }
+        };
+        connection.addSigHandler(type, handler);
+        registrations.add(new Registration<>(type, handler));
+    }
+
+    /**
+     * Mirrors the player, or returns the mirror if it is connected already
+     * @param busName The well-known name, e.g. org.mpris.MediaPlayer2.vlc
+     */
+    public RemotePlayer connect(@NotNull String busName) throws DBusException {
+        RemotePlayer existing = players.get(busName);
+        if(existing != null) return existing;
+        return connect(busName, resolve(busName));
+    }
+
+    /**
+     * Mirrors the player owned by the unique name. A mirror of the bus name with a previous owner is read again.
+     */
+    RemotePlayer connect(String busName, String uniqueName) throws DBusException {
+        RemotePlayer existing = players.get(busName);
+        if(existing != null) {
+            if(!uniqueName.equals(existing.getUniqueName())) {
+                existing.ownerChanged(uniqueName);
+                existing.refresh();
+            }
+            return existing;
+        }
+        RemotePlayer player = new RemotePlayer(connection, busName, uniqueName);
+        // Signals sent while the properties are read are applied, the GetAll replies only fill in the rest
+        players.put(busName, player);
+        try {
+            player.refresh();
+        } catch (RuntimeException e) {
+            players.remove(busName);
+            throw e;
+        }
+        return player;
+    }
+
+    /**
+     * Stops mirroring the player
+     */
+    public void disconnect(@NotNull String busName) {
+        players.remove(busName);
+    }
+
+    /**
+     * @return The player or null if it is not connected
+     */
+    public RemotePlayer getPlayer(@NotNull String busName) {
+        return players.get(busName);
+    }
+
+    public Collection<RemotePlayer> getPlayers() {
+        return Collections.unmodifiableCollection(players.values());
+    }
+
+    public DBusConnection getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return The unique name owning the bus name
+     */
+    String resolve(String busName) {
+        return busName.startsWith(":") ? busName : bus.GetNameOwner(busName);
+    }
+
+    /**
+     * @return All names on the bus
+     */
+    String[] listNames() {
+        return bus.ListNames();
+    }
+
+    /**
+     * Removes the signal handlers and forgets all players
+     */
+    @Override
+    public void close() throws DBusException {
+        for(Registration<?> registration : registrations) {
+            remove(registration);
+        }
+        registrations.clear();
+        players.clear();
+    }
+
+    private <S extends DBusSignal> void remove(Registration<S> registration) throws DBusException {
+        connection.removeSigHandler(registration.type, registration.handler);
+    }
+}
@@ -0,0 +1,210 @@
+package org.mpris.client;
+
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.DBus;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Live registry of all MPRIS players on the bus.
+ * <p>{@link #start()} lists the bus names once. Afterwards players are added and removed one at a time from
+ * NameOwnerChanged, so players coming and going never cause a rescan. Each player is mirrored by the
+ * {@link MPRISClient}. The active player is chosen again by the {@link ActivePlayerPolicy} whenever a player
+ * appears, vanishes or changes its PlaybackStatus.</p>
+ * <p>NameOwnerChanged signals may be handled out of order; for each name only the one with the highest serial
+ * counts, so a player which vanished right after it appeared is not added.</p>
+ */
+public class PlayerDiscovery implements AutoCloseable {
+    /**
+     * The prefix of the bus names MPRIS players request
+     */
+    public static final String BUS_NAME_PREFIX = "org.mpris.MediaPlayer2.";
+
+    private final MPRISClient client;
+    private final ActivePlayerPolicy policy;
+    private final Map<String, RemotePlayer> players = new LinkedHashMap<>();
+    private final Map<String, Long> serials = new HashMap<>();
+    private final Map<String, String> owners = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final DBusSigHandler<DBus.NameOwnerChanged> handler = this::nameOwnerChanged;
+    private final RemotePlayer.Listener playbackListener = new RemotePlayer.Listener() {
+        @Override
+        public void propertiesChanged(RemotePlayer player, String interfaceName, Set<String> propertyNames) {
+            if(RemotePlayer.PLAYER.equals(interfaceName) && propertyNames.contains("PlaybackStatus")) chooseActive();
+        }
+    };
+    private RemotePlayer activePlayer;
+    private boolean started;
+
+    /**
+     * Notified on the signal handler threads
+     */
+    public interface Listener {
+        default void playerAdded(RemotePlayer player) {
+        }
+
+        default void playerRemoved(RemotePlayer player) {
+        }
+
+        /**
+         * @param player The new active player or null if there is none
+         */
+        default void activePlayerChanged(RemotePlayer player) {
+        }
+    }
+
+    /**
+     * Chooses the active player with {@link ActivePlayerPolicy#mostRecentlyPlaying()}
+     */
+    public PlayerDiscovery(@NotNull MPRISClient client) {
+        this(client, ActivePlayerPolicy.mostRecentlyPlaying());
+    }
+
+    public PlayerDiscovery(@NotNull MPRISClient client, @NotNull ActivePlayerPolicy policy) {
+        this.client = client;
+        this.policy = policy;
+    }
+
+    /**
+     * Watches NameOwnerChanged and adds the players already on the bus
+     */
+    public void start() throws DBusException {
+        synchronized (this) {
+            if(started) throw new IllegalStateException("Discovery is already started");
+            started = true;
+        }
+        client.getConnection().addSigHandler(DBus.NameOwnerChanged.class, handler);
+        for(String name : client.listNames()) {
+            if(!name.startsWith(BUS_NAME_PREFIX)) continue;
+            synchronized (this) {
+                // NameOwnerChanged already reported the name after the handler was added
+                if(serials.containsKey(name)) continue;
+            }
+            String owner;
+            try {
+                owner = client.resolve(name);
+            } catch (DBusExecutionException e) {
+                continue;
+            }
+            add(name, owner, 0);
+        }
+    }
+
+    private void nameOwnerChanged(DBus.NameOwnerChanged signal) {
+        if(!signal.name.startsWith(BUS_NAME_PREFIX)) return;
+        synchronized (this) {
+            Long last = serials.get(signal.name);
+            if(last != null && last > signal.getSerial()) return;
+            serials.put(signal.name, signal.getSerial());
+            owners.put(signal.name, signal.newOwner);
+        }
+        if(signal.newOwner.isEmpty()) {
+            remove(signal.name);
+        }else{
+            add(signal.name, signal.newOwner, signal.getSerial());
+        }
+    }
+
+    private void add(String name, String owner, long serial) {
+        RemotePlayer player;
+        try {
+            player = client.connect(name, owner);
+        } catch (DBusException | DBusExecutionException e) {
+            // Gone again before its properties could be read, or not a valid player
+            return;
+        }
+        boolean added;
+        synchronized (this) {
+            Long latest = serials.get(name);
+            if(latest != null && latest > serial) {
+                // A newer NameOwnerChanged was handled while the player was being read, it decides
+                if(owners.get(name).isEmpty()) client.disconnect(name);
+                return;
+            }
+            added = players.put(name, player) == null;
+        }
+        if(!added) return;
+        player.addListener(playbackListener);
+        for(Listener listener : listeners) {
+            listener.playerAdded(player);
+        }
+        chooseActive();
+    }
+
+    private void remove(String name) {
+        RemotePlayer player;
+        synchronized (this) {
+            player = players.remove(name);
+            client.disconnect(name);
+        }
+        if(player == null) return;
+        player.removeListener(playbackListener);
+        for(Listener listener : listeners) {
+            listener.playerRemoved(player);
+        }
+        chooseActive();
+    }
+
+    private void chooseActive() {
+        RemotePlayer chosen;
+        synchronized (this) {
+            chosen = players.isEmpty() ? null : policy.choose(new ArrayList<>(players.values()));
+            if(chosen == activePlayer) return;
+            activePlayer = chosen;
+        }
+        for(Listener listener : listeners) {
+            listener.activePlayerChanged(chosen);
+        }
+    }
+
+    /**
+     * @return The players in the order they appeared
+     */
+    public synchronized List<RemotePlayer> getPlayers() {
+        return Collections.unmodifiableList(new ArrayList<>(players.values()));
+    }
+
+    /**
+     * @return The player or null if no player has the bus name
+     */
+    public synchronized RemotePlayer getPlayer(@NotNull String busName) {
+        return players.get(busName);
+    }
+
+    /**
+     * @return The player chosen by the policy or null if there are no players
+     */
+    public synchronized RemotePlayer getActivePlayer() {
+        return activePlayer;
+    }
+
+    public void addListener(@NotNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NotNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops watching the bus and disconnects all discovered players. The client stays open.
+     */
+    @Override
+    public void close() throws DBusException {
+        client.getConnection().removeSigHandler(DBus.NameOwnerChanged.class, handler);
+        List<RemotePlayer> removed;
+        synchronized (this) {
+            removed = new ArrayList<>(players.values());
+            players.clear();
+            activePlayer = null;
+        }
+        for(RemotePlayer player : removed) {
+            player.removeListener(playbackListener);
+            client.disconnect(player.getBusName());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.mpris.client;
+
+import org.freedesktop.dbus.types.Variant;
+
+import java.util.*;
+
+/**
+ * Local copy of the properties of one remote interface.
+ * <p>dbus-java runs signal handlers on a thread pool, so PropertiesChanged signals may be handled out of order. Each
+ * property remembers the serial of the signal which last set it and older signals are dropped. A GetAll reply
+ * only fills in properties which no signal has changed since the request was sent.</p>
+ */
+final class PropertyMirror {
+    private final Map<String, Object> values = new HashMap<>();
+    private final Map<String, Long> serials = new HashMap<>();
+    private final Set<String> stale = new HashSet<>();
+    private long generation;
+    private final Map<String, Long> generations = new HashMap<>();
+    private long resetGeneration;
+    private boolean loaded;
+
+    /**
+     * @return The generation to pass to {@link #load(Map, long)} with the reply of a GetAll sent now
+     */
+    synchronized long beginLoad() {
+        return generation;
+    }
+
+    /**
+     * Applies a GetAll reply, skipping properties changed by signals after the request began
+     */
+    synchronized void load(Map<String, Variant<?>> all, long since) {
+        if(since < resetGeneration) return;
+        for(Map.Entry<String, Variant<?>> entry : all.entrySet()) {
+            Long changed = generations.get(entry.getKey());
+            if(changed != null && changed > since) continue;
+            values.put(entry.getKey(), entry.getValue().getValue());
+            stale.remove(entry.getKey());
+        }
+        loaded = true;
+    }
+
+    /**
+     * Applies the properties of a PropertiesChanged signal
+     * @return The names of the properties which were applied
+     */
+    synchronized Set<String> apply(long serial, Map<String, Variant<?>> changed, List<String> invalidated) {
+        generation++;
+        Set<String> applied = new LinkedHashSet<>();
+        for(Map.Entry<String, Variant<?>> entry : changed.entrySet()) {
+            if(!newer(entry.getKey(), serial)) continue;
+            values.put(entry.getKey(), entry.getValue().getValue());
+            stale.remove(entry.getKey());
+            applied.add(entry.getKey());
+        }
+        for(String name : invalidated) {
+            if(!newer(name, serial)) continue;
+            stale.add(name);
+            applied.add(name);
+        }
+        return applied;
+    }
+
+    /**
+     * Sets a property derived from another signal (e.g. Tracks from TrackAdded)
+     */
+    synchronized void put(String name, Object value) {
+        generation++;
+        generations.put(name, generation);
+        values.put(name, value);
+        stale.remove(name);
+    }
+
+    private boolean newer(String name, long serial) {
+        Long previous = serials.get(name);
+        if(previous != null && previous > serial) return false;
+        serials.put(name, serial);
+        generations.put(name, generation);
+        return true;
+    }
+
+    /**
+     * Forgets all values and serials, e.g. when another connection took over the bus name. Serials are per
+     * sender, so those of the previous owner would drop the signals of the new one. GetAll replies requested
+     * before the reset are ignored.
+     */
+    synchronized void reset() {
+        values.clear();
+        serials.clear();
+        stale.clear();
+        generations.clear();
+        resetGeneration = ++generation;
+        loaded = false;
+    }
+
+    /**
+     * @return The value or null if the property is unknown
+     */
+    synchronized Object get(String name) {
+        return values.get(name);
+    }
+
+    /**
+     * @return true if the property was invalidated without a new value and has to be read from the bus
+     */
+    synchronized boolean isStale(String name) {
+        return stale.contains(name);
+    }
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return A copy of all known values
+     */
+    synchronized Map<String, Object> snapshot() {
+        return new HashMap<>(values);
+    }
+}
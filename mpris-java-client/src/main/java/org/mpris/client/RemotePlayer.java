@@ -0,0 +1,580 @@
+package org.mpris.client;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.types.Variant;
+import org.jetbrains.annotations.NotNull;
+import org.mpris.mpris.*;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local mirror of a player on the bus.
+ * <p>The mirror is filled with one GetAll per interface and kept current from PropertiesChanged, Seeked and the
+ * TrackList signals, so every getter is answered without a round trip. The position is extrapolated from the last
+ * known position, PlaybackStatus and Rate like the MPRIS spec tells clients to. Only properties which the player
+ * invalidated without sending a value are read from the bus again, once, on their next read.</p>
+ * <p>Methods are called through the proxies, e.g. {@code getPlayer().Next()}. Writable properties are set with
+ * {@link #set(String, String, Variant)}; the mirror changes when the player confirms with PropertiesChanged.</p>
+ */
+public class RemotePlayer {
+    static final String MEDIA_PLAYER2 = "org.mpris.MediaPlayer2";
+    static final String PLAYER = "org.mpris.MediaPlayer2.Player";
+    static final String TRACKLIST = "org.mpris.MediaPlayer2.TrackList";
+    static final String PLAYLISTS = "org.mpris.MediaPlayer2.Playlists";
+
+    private final String busName;
+    private volatile String uniqueName;
+    private final DBusProperties properties;
+    private final MediaPlayer2 mediaPlayer2;
+    private final Player player;
+    private final TrackList trackList;
+    private final Playlists playlists;
+    private final Map<String, PropertyMirror> mirrors = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private long positionAnchor;
+    private long anchorNanos;
+    private long seekSerial;
+    private volatile long lastPlayingMillis;
+    private List<DBusPath> tracks = new ArrayList<>();
+    private final Map<String, Map<String, Variant<?>>> trackMetadata = new HashMap<>();
+    private long trackSerial;
+    private boolean tracksStale;
+
+    /**
+     * Notified on the signal handler threads after the mirror has been updated
+     */
+    public interface Listener {
+        /**
+         * @param propertyNames The properties which changed or were invalidated
+         */
+        default void propertiesChanged(RemotePlayer player, String interfaceName, Set<String> propertyNames) {
+        }
+
+        /**
+         * @param position The new position in microseconds
+         */
+        default void seeked(RemotePlayer player, long position) {
+        }
+
+        /**
+         * The tracks or the metadata of a track changed
+         */
+        default void trackListChanged(RemotePlayer player) {
+        }
+    }
+
+    RemotePlayer(DBusConnection connection, String busName, String uniqueName) throws DBusException {
+        this.busName = busName;
+        this.uniqueName = uniqueName;
+        this.properties = connection.getRemoteObject(busName, MPRISClient.OBJECT_PATH, DBusProperties.class);
+        this.mediaPlayer2 = connection.getRemoteObject(busName, MPRISClient.OBJECT_PATH, MediaPlayer2.class);
+        this.player = connection.getRemoteObject(busName, MPRISClient.OBJECT_PATH, Player.class);
+        this.trackList = connection.getRemoteObject(busName, MPRISClient.OBJECT_PATH, TrackList.class);
+        this.playlists = connection.getRemoteObject(busName, MPRISClient.OBJECT_PATH, Playlists.class);
+        for(String interfaceName : Arrays.asList(MEDIA_PLAYER2, PLAYER, TRACKLIST, PLAYLISTS)) {
+            mirrors.put(interfaceName, new PropertyMirror());
+        }
+    }
+
+    /**
+     * Reads all properties of all interfaces the player implements, one GetAll each
+     * @throws DBusExecutionException If the player does not implement MediaPlayer2 and Player
+     */
+    public void refresh() {
+        load(MEDIA_PLAYER2);
+        load(PLAYER);
+        if(getBoolean(MEDIA_PLAYER2, "HasTrackList")) {
+            try {
+                load(TRACKLIST);
+            } catch (DBusExecutionException e) {
+                // HasTrackList is wrong, the player has no tracklist after all
+            }
+        }
+        try {
+            load(PLAYLISTS);
+        } catch (DBusExecutionException e) {
+            // Playlists is optional
+        }
+    }
+
+    private void load(String interfaceName) {
+        PropertyMirror mirror = mirrors.get(interfaceName);
+        long since = mirror.beginLoad();
+        Map<String, Variant<?>> all;
+        try {
+            all = properties.GetAll(interfaceName);
+        } catch (DBusException e) {
+            throw new DBusExecutionException(e.getMessage());
+        }
+        synchronized (this) {
+            mirror.load(all, since);
+            if(PLAYER.equals(interfaceName)) {
+                Object position = mirror.get("Position");
+                anchor(position instanceof Number ? ((Number) position).longValue() : 0);
+                if(getPlaybackStatus() == PlaybackStatus.PLAYING) lastPlayingMillis = System.currentTimeMillis();
+            }else if(TRACKLIST.equals(interfaceName)) {
+                tracks = toPaths(mirror.get("Tracks"));
+                tracksStale = false;
+            }
+        }
+    }
+
+    /**
+     * @return The name the player was looked up by
+     */
+    public String getBusName() {
+        return busName;
+    }
+
+    /**
+     * @return The unique name of the connection owning the bus name, signals are matched against it
+     */
+    public String getUniqueName() {
+        return uniqueName;
+    }
+
+    /**
+     * Switches to the new owner of the bus name and forgets everything learned from the previous one, the caller
+     * reads the properties again with {@link #refresh()}
+     */
+    synchronized void ownerChanged(String uniqueName) {
+        this.uniqueName = uniqueName;
+        for(PropertyMirror mirror : mirrors.values()) {
+            mirror.reset();
+        }
+        seekSerial = 0;
+        anchor(0);
+        lastPlayingMillis = 0;
+        tracks = new ArrayList<>();
+        trackMetadata.clear();
+        trackSerial = 0;
+        tracksStale = false;
+    }
+
+    /**
+     * @return The time in milliseconds since the epoch when the player was last seen starting to play, 0 if it never played
+     */
+    public long getLastPlayingMillis() {
+        return lastPlayingMillis;
+    }
+
+    public MediaPlayer2 getMediaPlayer2() {
+        return mediaPlayer2;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return The proxy, calls fail if {@link #hasTrackList()} is false
+     */
+    public TrackList getTrackList() {
+        return trackList;
+    }
+
+    /**
+     * @return The proxy, calls fail if {@link #hasPlaylists()} is false
+     */
+    public Playlists getPlaylists() {
+        return playlists;
+    }
+
+    public boolean hasTrackList() {
+        return mirrors.get(TRACKLIST).isLoaded();
+    }
+
+    public boolean hasPlaylists() {
+        return mirrors.get(PLAYLISTS).isLoaded();
+    }
+
+    public void addListener(@NotNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NotNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return The mirrored value of the property, null if the player does not have it
+     */
+    public Object get(@NotNull String interfaceName, @NotNull String propertyName) {
+        PropertyMirror mirror = mirrors.get(interfaceName);
+        if(mirror == null) throw new IllegalArgumentException("Unknown interface " + interfaceName);
+        if(mirror.isStale(propertyName)) {
+            long since = mirror.beginLoad();
+            Variant<?> value;
+            try {
+                value = properties.Get(interfaceName, propertyName);
+            } catch (DBusException e) {
+                throw new DBusExecutionException(e.getMessage());
+            }
+            mirror.load(Collections.singletonMap(propertyName, value), since);
+        }
+        return mirror.get(propertyName);
+    }
+
+    /**
+     * @return A copy of all mirrored properties of the interface
+     */
+    public Map<String, Object> getAll(@NotNull String interfaceName) {
+        PropertyMirror mirror = mirrors.get(interfaceName);
+        if(mirror == null) throw new IllegalArgumentException("Unknown interface " + interfaceName);
+        return mirror.snapshot();
+    }
+
+    /**
+     * Sets a property on the player. The mirror keeps the old value until PropertiesChanged arrives.
+     */
+    public void set(@NotNull String interfaceName, @NotNull String propertyName, @NotNull Variant<?> value) throws DBusException {
+        properties.Set(interfaceName, propertyName, value);
+    }
+
+    public String getIdentity() {
+        return (String) get(MEDIA_PLAYER2, "Identity");
+    }
+
+    public String getDesktopEntry() {
+        return (String) get(MEDIA_PLAYER2, "DesktopEntry");
+    }
+
+    public boolean getCanQuit() {
+        return getBoolean(MEDIA_PLAYER2, "CanQuit");
+    }
+
+    public boolean getCanRaise() {
+        return getBoolean(MEDIA_PLAYER2, "CanRaise");
+    }
+
+    public PlaybackStatus getPlaybackStatus() {
+        Object status = get(PLAYER, "PlaybackStatus");
+        for(PlaybackStatus value : PlaybackStatus.values()) {
+            if(value.GetAsString().equals(status)) return value;
+        }
+        return PlaybackStatus.STOPPED;
+    }
+
+    /**
+     * @return The loop status or null if the player does not support looping
+     */
+    public LoopStatus getLoopStatus() {
+        Object status = get(PLAYER, "LoopStatus");
+        for(LoopStatus value : LoopStatus.values()) {
+            if(value.GetAsString().equals(status)) return value;
+        }
+        return null;
+    }
+
+    public double getRate() {
+        Object rate = get(PLAYER, "Rate");
+        return rate instanceof Number ? ((Number) rate).doubleValue() : 1.0;
+    }
+
+    public boolean getShuffle() {
+        return getBoolean(PLAYER, "Shuffle");
+    }
+
+    public double getVolume() {
+        Object volume = get(PLAYER, "Volume");
+        return volume instanceof Number ? ((Number) volume).doubleValue() : 0.0;
+    }
+
+    /**
+     * @return The metadata of the current track, empty if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Variant<?>> getMetadata() {
+        Object metadata = get(PLAYER, "Metadata");
+        return metadata instanceof Map ? Collections.unmodifiableMap((Map<String, Variant<?>>) metadata) : Collections.emptyMap();
+    }
+
+    /**
+     * @return The mpris:trackid of the current track or null if there is none
+     */
+    public DBusPath getTrackId() {
+        Variant<?> trackId = getMetadata().get("mpris:trackid");
+        return trackId == null ? null : toPath(trackId.getValue());
+    }
+
+    /**
+     * @return The extrapolated position in microseconds
+     */
+    public synchronized long getPosition() {
+        if(getPlaybackStatus() != PlaybackStatus.PLAYING) return positionAnchor;
+        long elapsed = (System.nanoTime() - anchorNanos) / 1000;
+        long position = positionAnchor + (long) (elapsed * getRate());
+        long length = getLength();
+        if(length > 0 && position > length) return length;
+        return Math.max(0, position);
+    }
+
+    /**
+     * @return mpris:length of the current track in microseconds or 0 if it is unknown
+     */
+    public long getLength() {
+        Variant<?> length = getMetadata().get("mpris:length");
+        return length != null && length.getValue() instanceof Number ? ((Number) length.getValue()).longValue() : 0;
+    }
+
+    public boolean getCanGoNext() {
+        return getBoolean(PLAYER, "CanGoNext");
+    }
+
+    public boolean getCanGoPrevious() {
+        return getBoolean(PLAYER, "CanGoPrevious");
+    }
+
+    public boolean getCanPlay() {
+        return getBoolean(PLAYER, "CanPlay");
+    }
+
+    public boolean getCanPause() {
+        return getBoolean(PLAYER, "CanPause");
+    }
+
+    public boolean getCanSeek() {
+        return getBoolean(PLAYER, "CanSeek");
+    }
+
+    public boolean getCanControl() {
+        return getBoolean(PLAYER, "CanControl");
+    }
+
+    /**
+     * @return The tracks of the tracklist, empty if the player has none
+     */
+    public List<DBusPath> getTracks() {
+        synchronized (this) {
+            if(!tracksStale) return Collections.unmodifiableList(new ArrayList<>(tracks));
+        }
+        load(TRACKLIST);
+        synchronized (this) {
+            return Collections.unmodifiableList(new ArrayList<>(tracks));
+        }
+    }
+
+    /**
+     * @return The metadata of the tracks in request order. Metadata announced by TrackAdded or
+     * TrackMetadataChanged is served locally, the rest is requested in one GetTracksMetadata call.
+     */
+    public List<Map<String, Variant<?>>> getTracksMetadata(@NotNull List<DBusPath> trackIds) {
+        List<DBusPath> missing = new ArrayList<>();
+        synchronized (this) {
+            for(DBusPath trackId : trackIds) {
+                if(!trackMetadata.containsKey(trackId.getPath())) missing.add(trackId);
+            }
+        }
+        Map<String, Map<String, Variant<?>>> loaded = new HashMap<>();
+        if(!missing.isEmpty()) {
+            for(Map<String, Variant<?>> metadata : trackList.GetTracksMetadata(missing)) {
+                Variant<?> trackId = metadata.get("mpris:trackid");
+                if(trackId != null) loaded.put(toPath(trackId.getValue()).getPath(), metadata);
+            }
+        }
+        List<Map<String, Variant<?>>> result = new ArrayList<>(trackIds.size());
+        synchronized (this) {
+            for(Map.Entry<String, Map<String, Variant<?>>> entry : loaded.entrySet()) {
+                trackMetadata.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            for(DBusPath trackId : trackIds) {
+                Map<String, Variant<?>> metadata = trackMetadata.get(trackId.getPath());
+                if(metadata != null) result.add(metadata);
+            }
+        }
+        return result;
+    }
+
+    public int getPlaylistCount() {
+        Object count = get(PLAYLISTS, "PlaylistCount");
+        return count instanceof Number ? ((Number) count).intValue() : 0;
+    }
+
+    /**
+     * @return The orderings as sent by the player, e.g. "Alphabetical"
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getOrderings() {
+        Object orderings = get(PLAYLISTS, "Orderings");
+        return orderings instanceof List ? Collections.unmodifiableList((List<String>) orderings) : Collections.emptyList();
+    }
+
+    /**
+     * @return The active playlist or null if there is none
+     */
+    public Playlists.Playlist getActivePlaylist() {
+        Object active = get(PLAYLISTS, "ActivePlaylist");
+        if(active instanceof Playlists.Maybe_Playlist) {
+            Playlists.Maybe_Playlist maybe = (Playlists.Maybe_Playlist) active;
+            return maybe.hasPlaylist() ? maybe.getPlaylist() : null;
+        }
+        if(active instanceof Object[]) {
+            Object[] maybe = (Object[]) active;
+            if(maybe.length == 2 && Boolean.TRUE.equals(maybe[0]) && maybe[1] instanceof Object[]) {
+                Object[] playlist = (Object[]) maybe[1];
+                return new Playlists.Playlist(toPath(playlist[0]), (String) playlist[1], (String) playlist[2]);
+            }
+        }
+        return null;
+    }
+
+    void propertiesChanged(Properties.PropertiesChanged signal) {
+        PropertyMirror mirror = mirrors.get(signal.getInterfaceName());
+        if(mirror == null) return;
+        Set<String> applied;
+        synchronized (this) {
+            long position = PLAYER.equals(signal.getInterfaceName()) ? getPosition() : 0;
+            DBusPath trackId = PLAYER.equals(signal.getInterfaceName()) ? getTrackId() : null;
+            applied = mirror.apply(signal.getSerial(), signal.getPropertiesChanged(), signal.getPropertiesRemoved());
+            if(PLAYER.equals(signal.getInterfaceName())) {
+                if(applied.contains("PlaybackStatus") && getPlaybackStatus() == PlaybackStatus.PLAYING) {
+                    lastPlayingMillis = System.currentTimeMillis();
+                }
+                if(applied.contains("Metadata") && !Objects.equals(trackId, getTrackId())) {
+                    anchor(0);
+                }else if(applied.contains("PlaybackStatus") && getPlaybackStatus() == PlaybackStatus.STOPPED) {
+                    anchor(0);
+                }else if(applied.contains("PlaybackStatus") || applied.contains("Rate")) {
+                    anchor(position);
+                }
+            }
+            // Tracks is invalidated on every edit, the TrackList signals keep it current
+            if(TRACKLIST.equals(signal.getInterfaceName())) applied.remove("Tracks");
+        }
+        if(applied.isEmpty()) return;
+        for(Listener listener : listeners) {
+            listener.propertiesChanged(this, signal.getInterfaceName(), applied);
+        }
+    }
+
+    void seeked(Player.Seeked signal) {
+        synchronized (this) {
+            if(signal.getSerial() < seekSerial) return;
+            seekSerial = signal.getSerial();
+            anchor(signal.getTimeInUs());
+        }
+        for(Listener listener : listeners) {
+            listener.seeked(this, signal.getTimeInUs());
+        }
+    }
+
+    void trackListReplaced(TrackList.TrackListReplaced signal) {
+        synchronized (this) {
+            if(signal.getSerial() < trackSerial) {
+                tracksStale = true;
+            }else{
+                trackSerial = signal.getSerial();
+                tracks = new ArrayList<>(signal.getTracks());
+                trackMetadata.clear();
+                tracksStale = false;
+            }
+        }
+        trackListChanged();
+    }
+
+    void trackAdded(TrackList.TrackAdded signal) {
+        synchronized (this) {
+            Variant<?> trackId = signal.getMetadata().get("mpris:trackid");
+            if(!tracksChangedInOrder(signal.getSerial()) || trackId == null) return;
+            DBusPath added = toPath(trackId.getValue());
+            int after = indexOf(signal.getAfterTrack());
+            tracks.add(after + 1, added);
+            trackMetadata.put(added.getPath(), signal.getMetadata());
+        }
+        trackListChanged();
+    }
+
+    void trackRemoved(TrackList.TrackRemoved signal) {
+        synchronized (this) {
+            if(!tracksChangedInOrder(signal.getSerial())) return;
+            int index = indexOf(signal.getTrackId());
+            if(index >= 0) tracks.remove(index);
+            trackMetadata.remove(signal.getTrackId().getPath());
+        }
+        trackListChanged();
+    }
+
+    void trackMetadataChanged(TrackList.TrackMetadataChanged signal) {
+        synchronized (this) {
+            trackMetadata.remove(signal.getTrackId().getPath());
+            Variant<?> trackId = signal.getMetadata().get("mpris:trackid");
+            if(trackId != null) {
+                DBusPath renamed = toPath(trackId.getValue());
+                int index = indexOf(signal.getTrackId());
+                if(index >= 0) tracks.set(index, renamed);
+                trackMetadata.put(renamed.getPath(), signal.getMetadata());
+            }
+        }
+        trackListChanged();
+    }
+
+    void playlistChanged(Playlists.PlaylistChanged signal) {
+        Playlists.Playlist active = getActivePlaylist();
+        if(active == null || !active.getId().getPath().equals(signal.getPlaylist().getId().getPath())) return;
+        mirrors.get(PLAYLISTS).put("ActivePlaylist", new Playlists.Maybe_Playlist(true, signal.getPlaylist()));
+        for(Listener listener : listeners) {
+            listener.propertiesChanged(this, PLAYLISTS, Collections.singleton("ActivePlaylist"));
+        }
+    }
+
+    /**
+     * Edits handled out of order can not be replayed, the tracks are read again on the next access instead
+     * @return true if the edit can be applied
+     */
+    private boolean tracksChangedInOrder(long serial) {
+        if(tracksStale) return false;
+        if(serial < trackSerial) {
+            tracksStale = true;
+            return false;
+        }
+        trackSerial = serial;
+        return true;
+    }
+
+    private void trackListChanged() {
+        for(Listener listener : listeners) {
+            listener.trackListChanged(this);
+        }
+    }
+
+    private int indexOf(DBusPath trackId) {
+        for(int i = 0; i < tracks.size(); i++) {
+            if(tracks.get(i).getPath().equals(trackId.getPath())) return i;
+        }
+        return -1;
+    }
+
+    private void anchor(long position) {
+        positionAnchor = position;
+        anchorNanos = System.nanoTime();
+    }
+
+    private boolean getBoolean(String interfaceName, String propertyName) {
+        return Boolean.TRUE.equals(get(interfaceName, propertyName));
+    }
+
+    private static DBusPath toPath(Object value) {
+        return value instanceof DBusPath ? (DBusPath) value : new DBusPath(value.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<DBusPath> toPaths(Object value) {
+        List<DBusPath> paths = new ArrayList<>();
+        if(value instanceof List) {
+            for(Object path : (List<Object>) value) {
+                paths.add(toPath(path));
+            }
+        }
+        return paths;
+    }
+
+    @Override
+    public String toString() {
+        return "RemotePlayer{" + busName + " (" + uniqueName + ")}";
+    }
+}
@@ -12,7 +12,10 @@ pluginManagement {
         kotlin("jvm").version(extra["kotlin.version"] as String)
         id("org.jetbrains.compose").version(extra["compose.version"] as String)
         id("org.jetbrains.kotlin.plugin.compose").version(extra["kotlin.version"] as String)
+        id("me.champeau.jmh").version(extra["jmh.plugin.version"] as String)
     }
 }
 
 include("mpris-java-demos")
+include("mpris-java-benchmarks")
+include("mpris-java-client")
@@ -0,0 +1,81 @@
+package org.mpris;
+
+import org.freedesktop.dbus.MethodTuple;
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.messages.ExportedObject;
+import org.freedesktop.dbus.utils.DBusNamingUtil;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Writes the tables read by {@link ExportTable}. Runs at build time through the generateIntrospection task.
+ * <p>The data is produced by dbus-java itself: the generator is an ExportedObject which reports the interfaces of
+ * the MPRIS class instead of its own, so the XML and the method table are exactly what exportObject would build.</p>
+ */
+final class IntrospectionGenerator extends ExportedObject {
+    private static final String[] EXPORTED = {
+            "org.mpris.MPRISMP2All",
+            "org.mpris.MPRISMP2WPL",
+            "org.mpris.MPRISMP2WTL",
+            "org.mpris.MPRISMP2None",
+    };
+
+    private static Class<?> target;
+
+    private IntrospectionGenerator() throws DBusException {
+        super(() -> "/", false);
+    }
+
+    @Override
+    protected Set<Class<?>> getDBusInterfaces(Class<?> type) {
+        return super.getDBusInterfaces(target);
+    }
+
+    /**
+     * @param args The resource directory to write org/mpris/introspection into
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = Path.of(args[0]).resolve("org/mpris/introspection");
+        Files.createDirectories(directory);
+        for(String name : EXPORTED) {
+            target = Class.forName(name, false, IntrospectionGenerator.class.getClassLoader());
+            IntrospectionGenerator generated = new IntrospectionGenerator();
+            write(directory.resolve(target.getSimpleName() + ".xml"), generated.getIntrospectiondata());
+            write(directory.resolve(target.getSimpleName() + ".methods"), methods(generated));
+        }
+    }
+
+    private static String methods(IntrospectionGenerator generated) {
+        List<String> lines = new ArrayList<>();
+        for(Class<?> type : generated.getDBusInterfaces(target)) {
+            if(type.isAnnotationPresent(DBusInterfaceName.class)) {
+                lines.add(String.join("\t", "interface", type.getName(), DBusNamingUtil.getInterfaceName(type)));
+            }
+        }
+        List<String> methods = new ArrayList<>();
+        for(Map.Entry<MethodTuple, Method> entry : generated.getMethods().entrySet()) {
+            Method method = entry.getValue();
+            StringJoiner line = new StringJoiner("\t");
+            line.add("method").add(entry.getKey().getName()).add(entry.getKey().getSig())
+                    .add(method.getDeclaringClass().getName()).add(method.getName());
+            for(Class<?> parameterType : method.getParameterTypes()) {
+                line.add(parameterType.getName());
+            }
+            methods.add(line.toString());
+        }
+        Collections.sort(methods);
+        lines.addAll(methods);
+        return "# Generated by IntrospectionGenerator, do not edit\n" + String.join("\n", lines) + "\n";
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,374 @@
+package org.mpris;
+
+import org.freedesktop.dbus.types.Variant;
+import org.jetbrains.annotations.NotNull;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Local file cache for album art, so mpris:artUrl can point to a {@code file://} path every client can read.
+ * <p>Images are stored under the SHA-256 of their bytes, so the same art is written once however many tracks use
+ * it. Files are written to a temporary file in the cache directory and renamed atomically, readers never see a
+ * partial image. The cache is bounded by the total size of its files and evicts the least recently used ones;
+ * the modification time of a file records its last use, so the order survives restarts.</p>
+ * <p>Images larger than {@link #setMaxDimension(int)} are scaled down before they are stored. Remote art is
+ * downloaded once and remembered by its URI. An image larger than the whole cache is rejected, downloads and
+ * streams are read no further than that.</p>
+ */
+public class ArtCache {
+    /**
+     * 64 MiB
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> files = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, URI> remote = new HashMap<>();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private volatile int maxDimension;
+    private long totalBytes;
+    private long hits;
+    private long writes;
+    private long evictions;
+
+    private static final class Entry {
+        private final String fileName;
+        private final long size;
+
+        private Entry(String fileName, long size) {
+            this.fileName = fileName;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Uses {@code $XDG_CACHE_HOME/mpris-java/art} (or {@code ~/.cache/mpris-java/art}) with {@link #DEFAULT_MAX_BYTES}
+     */
+    public ArtCache() throws IOException {
+        this(defaultDirectory(), DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param directory The directory holding the files, created if it does not exist
+     * @param maxBytes The maximum total size of all files
+     */
+    public ArtCache(@NotNull Path directory, long maxBytes) throws IOException {
+        if(maxBytes <= 0) throw new IllegalArgumentException("Max bytes must be greater than 0");
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        load();
+    }
+
+    /**
+     * @return {@code $XDG_CACHE_HOME/mpris-java/art}, falling back to {@code ~/.cache} as the spec says
+     */
+    public static Path defaultDirectory() {
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        Path base = cacheHome != null && !cacheHome.isEmpty() && Paths.get(cacheHome).isAbsolute()
+                ? Paths.get(cacheHome)
+                : Paths.get(System.getProperty("user.home"), ".cache");
+        return base.resolve("mpris-java").resolve("art");
+    }
+
+    /**
+     * Scales images down so neither side is longer than this before they are stored
+     * @param maxDimension The maximum width and height in pixels, 0 to store images as they are
+     */
+    public ArtCache setMaxDimension(int maxDimension) {
+        if(maxDimension < 0) throw new IllegalArgumentException("Max dimension is less than 0");
+        this.maxDimension = maxDimension;
+        return this;
+    }
+
+    /**
+     * Stores the image unless it is cached already
+     * @return The {@code file://} URI to pass to {@link Metadata.Builder#setArtURL(URI)}
+     * @throws IOException If the image, after scaling it down, is larger than the cache
+     */
+    public URI store(byte @NotNull [] image) throws IOException {
+        int dimension = maxDimension;
+        String name = hash(image, dimension);
+        synchronized (this) {
+            Path file = touch(name);
+            if(file != null) return file.toUri();
+        }
+        byte[] content = dimension > 0 ? downscale(image, dimension) : image;
+        if(content.length > maxBytes) throw new IOException("Image of " + content.length + " bytes is larger than the cache of " + maxBytes + " bytes");
+        String fileName = name + extension(content);
+        Path temp = Files.createTempFile(directory, name, TEMP_SUFFIX);
+        try {
+            Files.write(temp, content);
+            Files.move(temp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        synchronized (this) {
+            writes++;
+            Entry previous = files.put(name, new Entry(fileName, content.length));
+            if(previous != null) totalBytes -= previous.size;
+            totalBytes += content.length;
+            evict(name);
+        }
+        return directory.resolve(fileName).toUri();
+    }
+
+    /**
+     * Reads the stream to its end and stores the image, see {@link #store(byte[])}
+     */
+    public URI store(@NotNull InputStream image) throws IOException {
+        return store(readLimited(image, "Image"));
+    }
+
+    /**
+     * Downloads remote art once and stores it. {@code file} URIs and other schemes are returned as they are.
+     * @return The {@code file://} URI of the cached copy
+     */
+    public URI fetch(@NotNull URI art) throws IOException {
+        String scheme = art.getScheme();
+        if(!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) return art;
+        synchronized (this) {
+            URI cached = remote.get(art.toString());
+            if(cached != null && touch(hashOf(cached)) != null) return cached;
+        }
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(HttpRequest.newBuilder(art).timeout(Duration.ofSeconds(30)).GET().build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + art, e);
+        }
+        byte[] image;
+        try(InputStream body = response.body()) {
+            if(response.statusCode() / 100 != 2) throw new IOException("Downloading " + art + " failed with status " + response.statusCode());
+            long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if(length > maxBytes) throw new IOException(art + " has " + length + " bytes, more than the cache of " + maxBytes + " bytes");
+            image = readLimited(body, art.toString());
+        }
+        URI file = store(image);
+        synchronized (this) {
+            remote.put(art.toString(), file);
+        }
+        return file;
+    }
+
+    /**
+     * @return The metadata with remote mpris:artUrl replaced by the cached copy, or the metadata itself if there
+     * is nothing to replace
+     */
+    public Metadata materialize(@NotNull Metadata metadata) throws IOException {
+        Variant<?> artUrl = metadata.get("mpris:artUrl");
+        if(artUrl == null) return metadata;
+        URI art = URI.create(artUrl.getValue().toString());
+        URI file = fetch(art);
+        if(file.equals(art)) return metadata;
+        Map<String, Variant<?>> map = new LinkedHashMap<>(metadata.getInternalMap());
+        map.put("mpris:artUrl", new Variant<>(file.toString(), "s"));
+        return Metadata.of(map);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return The total size of all cached files
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    /**
+     * @return How often an image was already cached
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return The number of files written
+     */
+    public synchronized long getWriteCount() {
+        return writes;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Indexes the files left by earlier runs, least recently used first, and removes abandoned temporary files
+     */
+    private void load() throws IOException {
+        List<Path> found = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        try(Stream<Path> listing = Files.list(directory)) {
+            for(Path file : (Iterable<Path>) listing::iterator) {
+                if(file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                if(!attrs.isRegularFile()) continue;
+                found.add(file);
+                attributes.put(file, attrs);
+            }
+        }
+        found.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        for(Path file : found) {
+            String fileName = file.getFileName().toString();
+            long size = attributes.get(file).size();
+            files.put(hashOf(fileName), new Entry(fileName, size));
+            totalBytes += size;
+        }
+        evict(null);
+    }
+
+    /**
+     * Marks the cached file as used
+     * @return The file or null if it is not cached
+     */
+    private Path touch(String name) {
+        Entry entry = files.get(name);
+        if(entry == null) return null;
+        Path file = directory.resolve(entry.fileName);
+        if(!Files.isRegularFile(file)) {
+            files.remove(name);
+            totalBytes -= entry.size;
+            return null;
+        }
+        hits++;
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // The order is only kept in memory then
+        }
+        return file;
+    }
+
+    /**
+     * Deletes the least recently used files until the cache fits, never the image just written
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Entry>> eldest = files.entrySet().iterator();
+        while(totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> entry = eldest.next();
+            if(entry.getKey().equals(keep)) continue;
+            try {
+                Files.deleteIfExists(directory.resolve(entry.getValue().fileName));
+            } catch (IOException e) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= entry.getValue().size;
+            evictions++;
+        }
+        remote.values().removeIf(file -> !files.containsKey(hashOf(file)));
+    }
+
+    /**
+     * Reads the stream to its end, but no more than the cache can hold
+     */
+    private byte[] readLimited(InputStream in, String source) throws IOException {
+        int limit = (int) Math.min(maxBytes, Integer.MAX_VALUE - 8);
+        byte[] content = in.readNBytes(limit);
+        if(in.read() != -1) throw new IOException(source + " is larger than the cache of " + maxBytes + " bytes");
+        return content;
+    }
+
+    private static String hashOf(URI file) {
+        return hashOf(Paths.get(file).getFileName().toString());
+    }
+
+    private static String hashOf(String fileName) {
+        int extension = fileName.indexOf('.');
+        return extension < 0 ? fileName : fileName.substring(0, extension);
+    }
+
+    private static String hash(byte[] image, int dimension) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(image);
+            if(dimension > 0) digest.update(("@" + dimension).getBytes());
+            StringBuilder name = new StringBuilder();
+            for(byte b : digest.digest()) {
+                name.append(String.format("%02x", b));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return The image scaled to fit the dimension, or the image itself if it is small enough or not readable
+     */
+    private static byte[] downscale(byte[] image, int dimension) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(image));
+        if(source == null) return image;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if(width <= dimension && height <= dimension) return image;
+        double scale = Math.min((double) dimension / width, (double) dimension / height);
+        int scaledWidth = Math.max(1, (int) Math.round(width * scale));
+        int scaledHeight = Math.max(1, (int) Math.round(height * scale));
+        boolean alpha = source.getColorModel().hasAlpha();
+        BufferedImage scaled = new BufferedImage(scaledWidth, scaledHeight, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, scaledWidth, scaledHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if(!ImageIO.write(scaled, alpha ? "png" : "jpg", out)) return image;
+        return out.toByteArray();
+    }
+
+    /**
+     * @return The file extension matching the magic bytes of the image
+     */
+    private static String extension(byte[] image) {
+        if(image.length >= 8 && (image[0] & 0xff) == 0x89 && image[1] == 'P' && image[2] == 'N' && image[3] == 'G') return ".png";
+        if(image.length >= 3 && (image[0] & 0xff) == 0xff && (image[1] & 0xff) == 0xd8 && (image[2] & 0xff) == 0xff) return ".jpg";
+        if(image.length >= 6 && image[0] == 'G' && image[1] == 'I' && image[2] == 'F') return ".gif";
+        if(image.length >= 12 && image[0] == 'R' && image[1] == 'I' && image[2] == 'F' && image[3] == 'F'
+                && image[8] == 'W' && image[9] == 'E' && image[10] == 'B' && image[11] == 'P') return ".webp";
+        return ".img";
+    }
+}
@@ -0,0 +1,254 @@
+package org.mpris;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the handlers of fire-and-forget methods (Next, Play, Seek, AddTrack, ...) off the D-Bus worker threads,
+ * so a slow handler does not stall other incoming calls and property reads.
+ * <p>Handlers of the same {@link Category} run one after another in the order the calls arrived, handlers of
+ * different categories may run concurrently. Methods returning a value (GetTracksMetadata, GetPlaylists) are
+ * not dispatched since their result has to be sent back to the caller.</p>
+ * <p>The default executor uses virtual threads on JDK 21+ and a small bounded pool of daemon threads otherwise.
+ * Pass {@code Runnable::run} to {@link MPRISMediaPlayer.MediaPlayer2Builder#setCallbackExecutor(Executor)} to run
+ * handlers synchronously like before.</p>
+ */
+public class CallbackDispatcher {
+    private static final int POOL_SIZE = 4;
+    private static final int POOL_QUEUE_CAPACITY = 256;
+
+    private final Executor executor;
+    private final MPRISMetrics metrics;
+    private final Map<Category, Lane> lanes = new EnumMap<>(Category.class);
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Groups of methods whose handlers must not overtake each other
+     */
+    public enum Category {
+        /** Raise, Quit */
+        MEDIA_PLAYER2,
+        /** Next, Previous, Play, Pause, PlayPause, Stop */
+        PLAYBACK,
+        /** Seek, SetPosition */
+        SEEK,
+        /** OpenURI */
+        OPEN_URI,
+        /** AddTrack, RemoveTrack, GoTo */
+        TRACKLIST,
+        /** ActivatePlaylist */
+        PLAYLISTS
+    }
+
+    /**
+     * @param executor The executor running the handlers or null for the default executor
+     * @param metrics Receives the latency and failures of every handler
+     */
+    CallbackDispatcher(Executor executor, MPRISMetrics metrics) {
+        this.executor = executor != null ? executor : defaultExecutor();
+        this.metrics = metrics;
+        for(Category category : Category.values()) {
+            lanes.put(category, new Lane());
+        }
+    }
+
+    /**
+     * Queues the handler behind all handlers of the same category
+     */
+    public void dispatch(@NotNull Category category, @NotNull Runnable handler) {
+        dispatch(category, category.name(), handler);
+    }
+
+    /**
+     * Queues the handler behind all handlers of the same category
+     * @param callbackName The name the handler is reported under in {@link MPRISMetrics}
+     */
+    public void dispatch(@NotNull Category category, @NotNull String callbackName, @NotNull Runnable handler) {
+        dispatched.incrementAndGet();
+        lanes.get(category).enqueue(new Task(callbackName, handler));
+    }
+
+    /**
+     * @return The number of handlers of the category which are queued or running
+     */
+    public int getQueueDepth(@NotNull Category category) {
+        return lanes.get(category).depth.get();
+    }
+
+    /**
+     * @return The number of handlers of all categories which are queued or running
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for(Lane lane : lanes.values()) {
+            depth += lane.depth.get();
+        }
+        return depth;
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * @return The number of handlers which threw an exception
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return The average time a handler took to run in nanoseconds
+     */
+    public long getAverageLatencyNanos() {
+        long count = completed.get() + failed.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / count;
+    }
+
+    /**
+     * @return The longest time a handler took to run in nanoseconds
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    private void run(Task task) {
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            task.handler.run();
+            completed.incrementAndGet();
+        } catch (RuntimeException e) {
+            error = e;
+            failed.incrementAndGet();
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        } catch (Error e) {
+            // Counted, then left to the executor; the lane reschedules itself for the remaining handlers
+            error = e;
+            failed.incrementAndGet();
+            throw e;
+        } finally {
+            long latency = System.nanoTime() - start;
+            totalLatencyNanos.addAndGet(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            metrics.callbackCompleted(task.callbackName, latency, error);
+        }
+    }
+
+    private static final class Task {
+        private final String callbackName;
+        private final Runnable handler;
+
+        private Task(String callbackName, Runnable handler) {
+            this.callbackName = callbackName;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Serializes the handlers of one category on top of the shared executor
+     */
+    private final class Lane implements Runnable {
+        private final ArrayDeque<Task> queue = new ArrayDeque<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private boolean scheduled;
+
+        void enqueue(Task task) {
+            depth.incrementAndGet();
+            synchronized (queue) {
+                queue.add(task);
+                if(scheduled) return;
+                scheduled = true;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // Keep the order and run the lane on the calling thread instead of dropping the handler
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean drained = false;
+            try {
+                while(true) {
+                    Task task;
+                    synchronized (queue) {
+                        task = queue.poll();
+                        if(task == null) {
+                            scheduled = false;
+                            drained = true;
+                            return;
+                        }
+                    }
+                    try {
+                        CallbackDispatcher.this.run(task);
+                    } finally {
+                        depth.decrementAndGet();
+                    }
+                }
+            } finally {
+                if(!drained) resume();
+            }
+        }
+
+        /**
+         * A handler threw an Error out of {@link #run()}, hands the handlers behind it to a new run
+         */
+        private void resume() {
+            synchronized (queue) {
+                if(queue.isEmpty()) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                synchronized (queue) {
+                    scheduled = false;
+                }
+                // The next enqueue schedules the lane again
+            }
+        }
+    }
+
+    static Executor defaultExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threads = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    POOL_SIZE, POOL_SIZE,
+                    30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(POOL_QUEUE_CAPACITY),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "mpris-callback-" + threads.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
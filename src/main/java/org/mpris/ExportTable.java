@@ -0,0 +1,219 @@
+package org.mpris;
+
+import org.freedesktop.dbus.MethodTuple;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.messages.ExportedObject;
+import org.freedesktop.dbus.messages.ObjectTree;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The introspection data and method table of an exported MPRIS class, precomputed at build time.
+ * <p>{@code connection.exportObject} reflects over every interface of the object and builds the introspection XML
+ * on each launch. The generateIntrospection build task runs the same code once per class and ships the result as
+ * resources next to this class. Exporting then only resolves the methods by name and registers the table with the
+ * connection.</p>
+ * <p>Registering needs the protected export tables of dbus-java. If they cannot be reached (e.g. on the module
+ * path) or a class has no table, the object is exported the regular way.</p>
+ */
+final class ExportTable {
+    private static final ClassValue<ExportTable> TABLES = new ClassValue<>() {
+        @Override
+        protected ExportTable computeValue(Class<?> type) {
+            try {
+                return load(type);
+            } catch (IOException | ReflectiveOperationException e) {
+                return null;
+            }
+        }
+    };
+
+    private static final Map<String, Class<?>> PRIMITIVES = Map.of(
+            "boolean", boolean.class, "byte", byte.class, "short", short.class, "char", char.class,
+            "int", int.class, "long", long.class, "float", float.class, "double", double.class
+    );
+
+    private final String introspectionData;
+    private final Map<MethodTuple, Method> methods;
+    private final Map<String, String> interfaceNames;
+
+    private ExportTable(String introspectionData, Map<MethodTuple, Method> methods, Map<String, String> interfaceNames) {
+        this.introspectionData = introspectionData;
+        this.methods = methods;
+        this.interfaceNames = interfaceNames;
+    }
+
+    /**
+     * Exports the object from its precomputed table, or through {@link DBusConnection#exportObject} if there is none
+     */
+    static void export(DBusConnection connection, String objectPath, DBusInterface object) throws DBusException {
+        ExportTable table = TABLES.get(object.getClass());
+        if(table == null || Registry.EXPORTED_OBJECTS == null) {
+            connection.exportObject(objectPath, object);
+            return;
+        }
+        table.register(connection, objectPath, object);
+    }
+
+    /**
+     * Does what exportObject does after building the ExportedObject
+     */
+    @SuppressWarnings("unchecked")
+    private void register(DBusConnection connection, String objectPath, DBusInterface object) throws DBusException {
+        Map<String, ExportedObject> exportedObjects;
+        ObjectTree objectTree;
+        try {
+            exportedObjects = (Map<String, ExportedObject>) Registry.EXPORTED_OBJECTS.invoke(connection);
+            objectTree = (ObjectTree) Registry.OBJECT_TREE.invoke(connection);
+            for(Map.Entry<String, String> name : interfaceNames.entrySet()) {
+                Registry.ADD_INTERFACE_MAP.invoke(null, name.getKey(), name.getValue());
+            }
+        } catch (ReflectiveOperationException e) {
+            connection.exportObject(objectPath, object);
+            return;
+        }
+        synchronized (exportedObjects) {
+            if(exportedObjects.get(objectPath) != null) throw new DBusException("Object already exported");
+            ExportedObject exported = new Precomputed(object, this);
+            exportedObjects.put(objectPath, exported);
+            synchronized (objectTree) {
+                objectTree.add(objectPath, exported, introspectionData);
+            }
+        }
+    }
+
+    /**
+     * Reads the table of the class
+     * @return The table or null if the class has none
+     */
+    private static ExportTable load(Class<?> type) throws IOException, ReflectiveOperationException {
+        String xml = read(type, ".xml");
+        String table = read(type, ".methods");
+        if(xml == null || table == null) return null;
+        ClassLoader loader = type.getClassLoader();
+        Map<MethodTuple, Method> methods = new HashMap<>();
+        Map<String, String> interfaceNames = new LinkedHashMap<>();
+        for(String line : table.split("\n")) {
+            if(line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\t", -1);
+            if(fields[0].equals("interface")) {
+                interfaceNames.put(fields[1], fields[2]);
+                continue;
+            }
+            // method <D-Bus name> <signature> <declaring class> <Java name> <parameter types...>
+            Class<?>[] parameterTypes = new Class<?>[fields.length - 5];
+            for(int i = 0; i < parameterTypes.length; i++) {
+                parameterTypes[i] = resolve(fields[5 + i], loader);
+            }
+            Method method = resolve(fields[3], loader).getMethod(fields[4], parameterTypes);
+            methods.put(new MethodTuple(fields[1], fields[2]), method);
+        }
+        return new ExportTable(xml, Collections.unmodifiableMap(methods), Collections.unmodifiableMap(interfaceNames));
+    }
+
+    private static String read(Class<?> type, String extension) throws IOException {
+        try (InputStream input = ExportTable.class.getResourceAsStream("introspection/" + type.getSimpleName() + extension)) {
+            if(input == null) return null;
+            StringBuilder content = new StringBuilder();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            char[] buffer = new char[4096];
+            int read;
+            while((read = reader.read(buffer)) != -1) {
+                content.append(buffer, 0, read);
+            }
+            return content.toString();
+        }
+    }
+
+    private static Class<?> resolve(String name, ClassLoader loader) throws ClassNotFoundException {
+        Class<?> primitive = PRIMITIVES.get(name);
+        return primitive != null ? primitive : Class.forName(name, false, loader);
+    }
+
+    /**
+     * Serves the precomputed table. The generators are stubbed out so the ExportedObject constructor, which still
+     * walks the standard Introspectable and Peer interfaces, does not reflect on them.
+     */
+    private static final class Precomputed extends ExportedObject {
+        private final ExportTable table;
+
+        private Precomputed(DBusInterface object, ExportTable table) throws DBusException {
+            super(object, false);
+            this.table = table;
+        }
+
+        @Override
+        protected Set<Class<?>> getDBusInterfaces(Class<?> type) {
+            return new LinkedHashSet<>();
+        }
+
+        @Override
+        protected String generateAnnotationsXml(AnnotatedElement element) {
+            return "";
+        }
+
+        @Override
+        protected String generateMethodsXml(Class<?> type) {
+            return "";
+        }
+
+        @Override
+        protected String generatePropertiesXml(Class<?> type) {
+            return "";
+        }
+
+        @Override
+        protected String generateSignalsXml(Class<?> type) {
+            return "";
+        }
+
+        @Override
+        public Map<MethodTuple, Method> getMethods() {
+            return table.methods;
+        }
+
+        @Override
+        public String getIntrospectiondata() {
+            return table.introspectionData;
+        }
+    }
+
+    /**
+     * The non-public parts of dbus-java which exportObject uses, null if they cannot be accessed
+     */
+    private static final class Registry {
+        private static final Method EXPORTED_OBJECTS;
+        private static final Method OBJECT_TREE;
+        private static final Method ADD_INTERFACE_MAP;
+
+        static {
+            Method exportedObjects = null;
+            Method objectTree = null;
+            Method addInterfaceMap = null;
+            try {
+                exportedObjects = AbstractConnection.class.getDeclaredMethod("getExportedObjects");
+                objectTree = AbstractConnection.class.getDeclaredMethod("getObjectTree");
+                addInterfaceMap = DBusSignal.class.getDeclaredMethod("addInterfaceMap", String.class, String.class);
+                exportedObjects.setAccessible(true);
+                objectTree.setAccessible(true);
+                addInterfaceMap.setAccessible(true);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                exportedObjects = null;
+            }
+            EXPORTED_OBJECTS = exportedObjects;
+            OBJECT_TREE = objectTree;
+            ADD_INTERFACE_MAP = addInterfaceMap;
+        }
+    }
+}
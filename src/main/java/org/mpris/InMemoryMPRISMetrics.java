@@ -0,0 +1,135 @@
+package org.mpris;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link MPRISMetrics} which keeps counters and callback timers in memory.
+ * <p>Counters are named like {@code method.org.mpris.MediaPlayer2.Player.Next}, {@code get.org.mpris.MediaPlayer2.Player},
+ * {@code getAll.org.mpris.MediaPlayer2.Player}, {@code set.<interface>.<property>}, {@code changed.<interface>.<property>},
+ * {@code signal.emitted.<name>}, {@code signal.received.<name>}, {@code callback.calls.<name>} and
+ * {@code callback.errors.<name>}.</p>
+ */
+public class InMemoryMPRISMetrics implements MPRISMetrics {
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Accumulated latency of one callback
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMeanNanos() {
+            long calls = count.sum();
+            return calls == 0 ? 0 : totalNanos.sum() / calls;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.1fus max=%.1fus", getCount(), getMeanNanos() / 1000.0, getMaxNanos() / 1000.0);
+        }
+    }
+
+    @Override
+    public void methodCalled(MPRISObjectPaths objectPath, String member) {
+        increment("method." + objectPath.getPath() + "." + member);
+    }
+
+    @Override
+    public void propertiesRead(MPRISObjectPaths objectPath, String propertyName) {
+        increment((propertyName == null ? "getAll." : "get.") + objectPath.getPath());
+    }
+
+    @Override
+    public void propertyWritten(MPRISObjectPaths objectPath, String propertyName) {
+        increment("set." + objectPath.getPath() + "." + propertyName);
+    }
+
+    @Override
+    public void propertyChanged(MPRISObjectPaths objectPath, String propertyName) {
+        increment("changed." + objectPath.getPath() + "." + propertyName);
+    }
+
+    @Override
+    public void signalEmitted(String signalName) {
+        increment("signal.emitted." + signalName);
+    }
+
+    @Override
+    public void signalReceived(String signalName) {
+        increment("signal.received." + signalName);
+    }
+
+    @Override
+    public void callbackCompleted(String callbackName, long nanos, Throwable error) {
+        increment("callback.calls." + callbackName);
+        if(error != null) increment("callback.errors." + callbackName);
+        timers.computeIfAbsent(callbackName, k -> new Timer()).record(nanos);
+    }
+
+    /**
+     * @return The value of the counter or 0 if it has never been incremented
+     */
+    public long getCount(String counterName) {
+        LongAdder counter = counters.get(counterName);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return The latency of the callback or null if it has never been called
+     */
+    public Timer getTimer(String callbackName) {
+        return timers.get(callbackName);
+    }
+
+    /**
+     * @return All counters sorted by name
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for(Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return All callback timers sorted by callback name
+     */
+    public Map<String, Timer> getTimers() {
+        return new TreeMap<>(timers);
+    }
+
+    public void reset() {
+        counters.clear();
+        timers.clear();
+    }
+
+    private void increment(String counterName) {
+        counters.computeIfAbsent(counterName, k -> new LongAdder()).increment();
+    }
+}
@@ -0,0 +1,220 @@
+package org.mpris;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many players in one process.
+ * <p>Every player gets its own well-known name ({@code org.mpris.MediaPlayer2.<name>.instanceN}) and its own
+ * connection, so clients see its signals sent from its own unique name. Only the executor running the callbacks
+ * and the precomputed export tables are shared, no connection is. {@link #start()} puts all built players on the
+ * bus and {@link #close()} takes them off again. Each player's round trips block a thread of the host's own bus
+ * pool, never a callback thread, and the players' connections work in parallel so n players cost about one round
+ * trip instead of n.</p>
+ * <pre>{@code
+ * MPRISHost host = new MPRISHost();
+ * MPRISMediaPlayer kitchen = host.createPlayer("zones");
+ * kitchen.buildMPRISMediaPlayer2None(mediaPlayer2Builder, playerBuilder);
+ * MPRISMediaPlayer garden = host.createPlayer("zones");
+ * garden.buildMPRISMediaPlayer2None(mediaPlayer2Builder, playerBuilder);
+ * host.start(); // exports both players and requests both names
+ * }</pre>
+ */
+public class MPRISHost implements AutoCloseable {
+    private static final String BUS_NAME_PREFIX = "org.mpris.MediaPlayer2.";
+
+    private final ConnectionFactory connections;
+    private final Executor callbackExecutor;
+    private final List<MPRISMediaPlayer> created = new ArrayList<>();
+    private final Set<MPRISMediaPlayer> registered = new LinkedHashSet<>();
+    private final AtomicInteger instances = new AtomicInteger();
+    private boolean closed;
+
+    /**
+     * Opens the connection of a new player
+     */
+    public interface ConnectionFactory {
+        DBusConnection open() throws DBusException;
+    }
+
+    /**
+     * Connects every player to the session bus
+     */
+    public MPRISHost() {
+        this(() -> DBusConnection.newConnection(DBusConnection.DBusBusType.SESSION), null);
+    }
+
+    /**
+     * @param connections Opens a connection per player, the host closes them when the player is removed
+     * @param callbackExecutor The executor running the callbacks of all players which do not set their own, or
+     *                         null for the default executor
+     */
+    public MPRISHost(@NotNull ConnectionFactory connections, Executor callbackExecutor) {
+        this.connections = connections;
+        this.callbackExecutor = callbackExecutor != null ? callbackExecutor : CallbackDispatcher.defaultExecutor();
+    }
+
+    /**
+     * Creates a player named {@code <name>.instanceN} on a new connection. Build it, then call {@link #start()}
+     * (or {@link MPRISMediaPlayer#create()} on the player) to put it on the bus.
+     */
+    public synchronized MPRISMediaPlayer createPlayer(@NotNull String name) throws DBusException {
+        if(closed) throw new IllegalStateException("Host is closed");
+        MPRISMediaPlayer player = new MPRISMediaPlayer(this, connections.open(), name + ".instance" + instances.incrementAndGet());
+        created.add(player);
+        return player;
+    }
+
+    /**
+     * Puts every built player which is not on the bus yet on it
+     */
+    public synchronized void start() throws DBusException {
+        if(closed) throw new IllegalStateException("Host is closed");
+        List<MPRISMediaPlayer> starting = new ArrayList<>();
+        for(MPRISMediaPlayer player : created) {
+            if(player.getMPRISMediaPlayer2() != null && !registered.contains(player)) starting.add(player);
+        }
+        Set<MPRISMediaPlayer> started = ConcurrentHashMap.newKeySet();
+        DBusException failure = forEach(starting, player -> {
+            put(player);
+            started.add(player);
+        });
+        for(MPRISMediaPlayer player : starting) {
+            if(started.contains(player)) registered.add(player);
+        }
+        if(failure != null) throw failure;
+    }
+
+    /**
+     * Called by {@link MPRISMediaPlayer#create()} for players of this host
+     */
+    synchronized void register(MPRISMediaPlayer player) throws DBusException {
+        if(closed) throw new IllegalStateException("Host is closed");
+        if(registered.contains(player)) throw new IllegalStateException("Player " + player.getPlayerName() + " is already registered");
+        if(player.getMPRISMediaPlayer2() == null) throw new IllegalStateException("No media player has been built");
+        put(player);
+        registered.add(player);
+    }
+
+    /**
+     * Takes the player off the bus and closes its connection
+     */
+    public synchronized void removePlayer(@NotNull MPRISMediaPlayer player) throws DBusException {
+        if(!created.remove(player)) return;
+        boolean onBus = registered.remove(player);
+        remove(player, onBus);
+    }
+
+    /**
+     * Takes all players off the bus and closes their connections
+     */
+    @Override
+    public synchronized void close() throws DBusException {
+        if(closed) return;
+        closed = true;
+        Set<MPRISMediaPlayer> onBus = new HashSet<>(registered);
+        DBusException failure = forEach(created, player -> remove(player, onBus.contains(player)));
+        registered.clear();
+        created.clear();
+        if(failure != null) throw failure;
+    }
+
+    /**
+     * @return The executor running the callbacks of players which do not set their own
+     */
+    Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * @return The players which are on the bus
+     */
+    public synchronized Collection<MPRISMediaPlayer> getPlayers() {
+        return Collections.unmodifiableList(new ArrayList<>(registered));
+    }
+
+    private interface PlayerTask {
+        void run(MPRISMediaPlayer player) throws DBusException;
+    }
+
+    /**
+     * Runs the task for all players in parallel, each on its own connection. The round trips block, so they run
+     * on {@link BusThreads} and not on the callback executor.
+     * @return The first failure or null
+     */
+    private DBusException forEach(Collection<MPRISMediaPlayer> players, PlayerTask task) {
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for(MPRISMediaPlayer player : players) {
+            Runnable run = () -> {
+                try {
+                    task.run(player);
+                } catch (DBusException e) {
+                    throw new CompletionException(e);
+                }
+            };
+            tasks.add(CompletableFuture.runAsync(run, BusThreads.POOL));
+        }
+        DBusException failure = null;
+        for(CompletableFuture<Void> future : tasks) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if(failure == null) {
+                    failure = e.getCause() instanceof DBusException ? (DBusException) e.getCause() : new DBusException(String.valueOf(e.getCause()));
+                }
+            }
+        }
+        return failure;
+    }
+
+    private static void put(MPRISMediaPlayer player) throws DBusException {
+        MPRISMP2Base object = player.getMPRISMediaPlayer2();
+        DBusConnection connection = player.getConnection();
+        ExportTable.export(connection, object.getObjectPath(), object);
+        try {
+            connection.requestBusName(BUS_NAME_PREFIX + player.getPlayerName());
+        } catch (DBusException e) {
+            connection.unExportObject(object.getObjectPath());
+            throw e;
+        }
+        object.init();
+    }
+
+    private static void remove(MPRISMediaPlayer player, boolean onBus) throws DBusException {
+        DBusConnection connection = player.getConnection();
+        DBusException failure = null;
+        if(onBus) {
+            try {
+                connection.releaseBusName(BUS_NAME_PREFIX + player.getPlayerName());
+            } catch (DBusException e) {
+                failure = e;
+            }
+            connection.unExportObject(player.getMPRISMediaPlayer2().getObjectPath());
+        }
+        try {
+            connection.close();
+        } catch (IOException e) {
+            if(failure == null) failure = new DBusException(e.getMessage());
+        }
+        if(failure != null) throw failure;
+    }
+
+    /**
+     * The threads waiting for the round trips of {@link #start()} and {@link #close()}, shared by all hosts.
+     * Platform threads, because dbus-java blocks in synchronized code which pins virtual threads.
+     */
+    private static final class BusThreads {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        private static final ExecutorService POOL = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mpris-host-bus-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,811 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.errors.InvalidMethodArgument;
+import org.freedesktop.dbus.errors.PropertyReadOnly;
+import org.freedesktop.dbus.errors.UnknownInterface;
+import org.freedesktop.dbus.errors.UnknownProperty;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.types.Variant;
+import org.jetbrains.annotations.NotNull;
+import org.mpris.mpris.*;
+
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The property and method engine shared by all MPRIS objects.
+ * <p>Implements the required MediaPlayer2 and Player interfaces. The optional TrackList and Playlists interfaces
+ * are plugged in as {@link MPRISModule}s, and the subclasses only decide which D-Bus interfaces get exported.</p>
+ * <p>Properties are served from a {@link PropertySnapshot} and written through a setter table which is indexed by
+ * interface and by the generated {@link MPRISProperties} index, so Get and Set never hash the property name.
+ * Unknown interfaces and properties are answered with UnknownInterface and UnknownProperty errors.</p>
+ * <p>All property values live in one immutable {@link PlayerState} which writers replace with compareAndSet, so
+ * getters, Get and GetAll never lock and never see a half-applied change.</p>
+ * <p>Position is not stored as a value but extrapolated from a {@link PlaybackClock} on every read, so it only
+ * changes in the snapshot when playback is interrupted (seek, play/pause, rate change).</p>
+ */
+@SuppressWarnings("unused")
+public abstract class MPRISMP2Base implements MediaPlayer2, Player, DBusProperties {
+    private static final MPRISObjectPaths[] INTERFACES = MPRISObjectPaths.values();
+
+    private final TypeRunnable<?> onRaise;
+    private final TypeRunnable<?> onQuit;
+    private final DBusConnection connection;
+    private final TypeRunnable<?> onNext;
+    private final TypeRunnable<?> onPrevious;
+    private final TypeRunnable<?> onPause;
+    private final TypeRunnable<?> onPlayPause;
+    private final TypeRunnable<?> onStop;
+    private final TypeRunnable<?> onPlay;
+    private final TypeRunnable<Integer> onSeek;
+    private final TypeRunnable<Map<DBusPath, Integer>> onSetPosition;
+    private final TypeRunnable<String> onOpenURI;
+    private final TypeRunnable<Long> onSignalSeeked;
+    private final List<MPRISModule> modules;
+    private final PropertySetter[][] setters;
+    private final AtomicReference<PlayerState> state;
+    private final PropertiesChangedEmitter propertiesEmitter;
+    private final SeekScheduler seekScheduler;
+    private final CallbackDispatcher callbackDispatcher;
+    private final MPRISMetrics metrics;
+
+    /**
+     * Writes a property received through org.freedesktop.DBus.Properties.Set
+     */
+    interface PropertySetter {
+        void set(Variant<?> value) throws DBusException;
+    }
+
+    @SuppressWarnings("unchecked")
+    MPRISMP2Base(
+            DBusConnection connection,
+            MPRISMediaPlayer.MediaPlayer2Builder mediaPlayer2Builder,
+            MPRISMediaPlayer.PlayerBuilder playerBuilder,
+            MPRISModule... modules
+    ) {
+        this.connection = connection;
+        this.metrics = mediaPlayer2Builder.metrics;
+        this.modules = Collections.unmodifiableList(Arrays.asList(modules));
+        PlayerState initial = new PlayerState();
+        initial.canQuit = mediaPlayer2Builder.canQuit;
+        initial.fullscreen = mediaPlayer2Builder.fullscreen;
+        initial.canSetFullscreen = mediaPlayer2Builder.canSetFullscreen;
+        initial.canRaise = mediaPlayer2Builder.canRaise;
+        initial.hasTracklist = getModule(MPRISObjectPaths.TRACKLIST) != null;
+        initial.identity = mediaPlayer2Builder.identity;
+        initial.desktopEntry = mediaPlayer2Builder.desktopEntry;
+        initial.supportedUriSchemes = mediaPlayer2Builder.supportedUriSchemes;
+        initial.supportedMimeTypes = mediaPlayer2Builder.supportedMimeTypes;
+        this.onRaise = mediaPlayer2Builder.onRaise;
+        this.onQuit = mediaPlayer2Builder.onQuit;
+        initial.playbackStatus = playerBuilder.playbackStatus;
+        initial.loopStatus = playerBuilder.loopStatus;
+        initial.rate = playerBuilder.rate;
+        if(initial.rate == -1) initial.rate = 1.0;
+        initial.shuffle = playerBuilder.shuffle;
+        initial.metadata = playerBuilder.metadata;
+        if(initial.metadata == null) throw new IllegalArgumentException("No metadata");
+        initial.volume = playerBuilder.volume;
+        if(initial.volume == -1) initial.volume = 1.0;
+        initial.clock = PlaybackClock.of(playerBuilder.position == -1 ? 0 : playerBuilder.position, initial.rate, initial.playbackStatus == PlaybackStatus.PLAYING);
+        initial.minimumRate = playerBuilder.minimumRate;
+        if(initial.minimumRate == -1) initial.minimumRate = 1.0;
+        initial.maximumRate = playerBuilder.maximumRate;
+        if(initial.maximumRate == -1) initial.maximumRate = 1.0;
+        initial.canGoNext = playerBuilder.canGoNext;
+        initial.canGoPrevious = playerBuilder.canGoPrevious;
+        initial.canPlay = playerBuilder.canPlay;
+        initial.canPause = playerBuilder.canPause;
+        initial.canSeek = playerBuilder.canSeek;
+        initial.canControl = playerBuilder.canControl;
+        this.onNext = playerBuilder.onNext;
+        this.onPrevious = playerBuilder.onPrevious;
+        this.onPause = playerBuilder.onPause;
+        this.onPlay = playerBuilder.onPlay;
+        this.onStop = playerBuilder.onStop;
+        this.onPlayPause = playerBuilder.onPlayPause;
+        this.onSeek = playerBuilder.onSeek;
+        this.onSetPosition = playerBuilder.onSetPosition;
+        this.onOpenURI = playerBuilder.onOpenURI;
+        this.onSignalSeeked = playerBuilder.onSignalSeeked;
+
+        Map<String, PropertySetter>[] namedSetters = new Map[INTERFACES.length];
+        for(MPRISObjectPaths objectPath : INTERFACES) {
+            namedSetters[objectPath.ordinal()] = new HashMap<>();
+        }
+        PropertySnapshot.Builder snapshot = PropertySnapshot.builder();
+        putProperties(snapshot, initial);
+        registerSetters(namedSetters);
+        for(MPRISModule module : modules) {
+            module.attach(this);
+            module.putProperties(snapshot);
+            module.registerSetters(namedSetters[module.getInterface().ordinal()]);
+        }
+        this.setters = indexSetters(namedSetters);
+        initial.properties = snapshot.build();
+        this.state = new AtomicReference<>(initial);
+        this.callbackDispatcher = new CallbackDispatcher(mediaPlayer2Builder.callbackExecutor, metrics);
+        this.propertiesEmitter = new PropertiesChangedEmitter(connection, getObjectPath(), mediaPlayer2Builder.propertiesFlushWindowMillis, metrics);
+        this.seekScheduler = new SeekScheduler(connection, getObjectPath(), playerBuilder.seekedMaxRate, () -> state.get().position(), metrics);
+    }
+
+    private static void putProperties(PropertySnapshot.Builder snapshot, PlayerState state) {
+        snapshot.put(MPRISObjectPaths.MEDIAPLAYER2, "CanQuit", new Variant<>(state.canQuit, "b"))
+                .put(MPRISObjectPaths.MEDIAPLAYER2, "Fullscreen", new Variant<>(state.fullscreen, "b"))
+                .put(MPRISObjectPaths.MEDIAPLAYER2, "CanSetFullscreen", new Variant<>(state.canSetFullscreen, "b"))
+                .put(MPRISObjectPaths.MEDIAPLAYER2, "CanRaise", new Variant<>(state.canRaise, "b"))
+                .put(MPRISObjectPaths.MEDIAPLAYER2, "HasTrackList", new Variant<>(state.hasTracklist, "b"))
+                .put(MPRISObjectPaths.MEDIAPLAYER2, "Identity", new Variant<>(state.identity, "s"))
+                .put(MPRISObjectPaths.MEDIAPLAYER2, "DesktopEntry", new Variant<>(state.desktopEntry, "s"))
+                .put(MPRISObjectPaths.MEDIAPLAYER2, "SupportedUriSchemes", new Variant<>(state.supportedUriSchemes, "as"))
+                .put(MPRISObjectPaths.MEDIAPLAYER2, "SupportedMimeTypes", new Variant<>(state.supportedMimeTypes, "as"))
+                .put(MPRISObjectPaths.PLAYER, "PlaybackStatus", new Variant<>(state.playbackStatus.GetAsString(), "s"))
+                .put(MPRISObjectPaths.PLAYER, "LoopStatus", new Variant<>(state.loopStatus.GetAsString(), "s"))
+                .put(MPRISObjectPaths.PLAYER, "Rate", new Variant<>(state.rate, "d"))
+                .put(MPRISObjectPaths.PLAYER, "Shuffle", new Variant<>(state.shuffle, "b"))
+                .put(MPRISObjectPaths.PLAYER, "Metadata", state.metadata.toVariant())
+                .put(MPRISObjectPaths.PLAYER, "Volume", new Variant<>(state.volume, "d"))
+                .put(MPRISObjectPaths.PLAYER, "Position", state.positionVariant())
+                .put(MPRISObjectPaths.PLAYER, "MinimumRate", new Variant<>(state.minimumRate, "d"))
+                .put(MPRISObjectPaths.PLAYER, "MaximumRate", new Variant<>(state.maximumRate, "d"))
+                .put(MPRISObjectPaths.PLAYER, "CanGoNext", new Variant<>(state.canGoNext, "b"))
+                .put(MPRISObjectPaths.PLAYER, "CanGoPrevious", new Variant<>(state.canGoPrevious, "b"))
+                .put(MPRISObjectPaths.PLAYER, "CanPlay", new Variant<>(state.canPlay, "b"))
+                .put(MPRISObjectPaths.PLAYER, "CanPause", new Variant<>(state.canPause, "b"))
+                .put(MPRISObjectPaths.PLAYER, "CanSeek", new Variant<>(state.canSeek, "b"))
+                .put(MPRISObjectPaths.PLAYER, "CanControl", new Variant<>(state.canControl, "b"));
+    }
+
+    /**
+     * Moves the setters into tables indexed by {@link MPRISProperties#index(MPRISObjectPaths, String)}
+     */
+    private static PropertySetter[][] indexSetters(Map<String, PropertySetter>[] namedSetters) {
+        PropertySetter[][] indexed = new PropertySetter[INTERFACES.length][];
+        for(MPRISObjectPaths objectPath : INTERFACES) {
+            indexed[objectPath.ordinal()] = new PropertySetter[MPRISProperties.count(objectPath)];
+            for(Map.Entry<String, PropertySetter> entry : namedSetters[objectPath.ordinal()].entrySet()) {
+                int index = MPRISProperties.index(objectPath, entry.getKey());
+                if(index < 0) throw new IllegalArgumentException(objectPath.getPath() + " has no property " + entry.getKey());
+                indexed[objectPath.ordinal()][index] = entry.getValue();
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * Registers the writers of the properties declared READ_WRITE, Set on the others is answered with
+     * PropertyReadOnly before a writer is looked up. The writers go through the same setters as the Java API, so
+     * a client is held to the same checks.
+     */
+    private void registerSetters(Map<String, PropertySetter>[] setters) {
+        Map<String, PropertySetter> mediaPlayer2 = setters[MPRISObjectPaths.MEDIAPLAYER2.ordinal()];
+        mediaPlayer2.put("Fullscreen", value -> {
+            if(!state.get().canSetFullscreen) throw new IllegalArgumentException("CanSetFullscreen is false");
+            setFullscreen((Boolean) value.getValue());
+        });
+
+        Map<String, PropertySetter> player = setters[MPRISObjectPaths.PLAYER.ordinal()];
+        player.put("LoopStatus", value -> {
+            LoopStatus loopStatus = LoopStatus.fromString((String) value.getValue());
+            if(loopStatus == null) throw new IllegalArgumentException("Unknown loop status " + value.getValue());
+            setLoopStatus(loopStatus);
+        });
+        player.put("Rate", value -> {
+            // setRate does not check CanControl, the player itself may always change the rate
+            if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+            setRate((Double) value.getValue());
+        });
+        player.put("Shuffle", value -> setShuffle((Boolean) value.getValue()));
+        player.put("Volume", value -> setVolume((Double) value.getValue()));
+    }
+
+    @Override
+    public Variant<?> Get(String interface_name, String property_name) throws DBusException {
+        MPRISObjectPaths objectPath = exportedInterface(interface_name);
+        int index = MPRISProperties.index(objectPath, property_name);
+        if(index < 0) throw unknownProperty(interface_name, property_name);
+        metrics.propertiesRead(objectPath, property_name);
+        if(objectPath == MPRISObjectPaths.PLAYER && index == MPRISProperties.PLAYER_POSITION) return state.get().positionVariant();
+        refresh(objectPath);
+        Variant<?> value = state.get().properties.get(objectPath, index);
+        if(value == null) throw unknownProperty(interface_name, property_name);
+        return value;
+    }
+
+    @Override
+    public Map<String, Variant<?>> GetAll(String interface_name) {
+        MPRISObjectPaths objectPath = exportedInterface(interface_name);
+        metrics.propertiesRead(objectPath, null);
+        refresh(objectPath);
+        PlayerState current = state.get();
+        Map<String, Variant<?>> all = current.properties.getAll(objectPath);
+        if(!current.clock.isPlaying() || objectPath != MPRISObjectPaths.PLAYER) return all;
+        Map<String, Variant<?>> live = new LinkedHashMap<>(all);
+        live.put("Position", current.positionVariant());
+        return live;
+    }
+
+    @Override
+    public void Set(String interface_name, String property_name, Variant<?> value) throws DBusException {
+        MPRISObjectPaths objectPath = exportedInterface(interface_name);
+        int index = MPRISProperties.index(objectPath, property_name);
+        if(index >= 0 && !MPRISProperties.isWritable(objectPath, index)) {
+            throw new PropertyReadOnly(interface_name + "." + property_name + " is read-only");
+        }
+        PropertySetter setter = index < 0 ? null : setters[objectPath.ordinal()][index];
+        if(setter == null) throw unknownProperty(interface_name, property_name);
+        metrics.propertyWritten(objectPath, property_name);
+        try {
+            setter.set(value);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new InvalidMethodArgument("Cannot set " + interface_name + "." + property_name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @throws UnknownInterface If the interface is not part of MPRIS or not exported by this object
+     */
+    private MPRISObjectPaths exportedInterface(String interfaceName) {
+        MPRISObjectPaths objectPath = MPRISObjectPaths.fromPath(interfaceName);
+        if(objectPath == null || !state.get().properties.isExported(objectPath)) {
+            throw new UnknownInterface("No such interface: " + interfaceName);
+        }
+        return objectPath;
+    }
+
+    private static UnknownProperty unknownProperty(String interfaceName, String propertyName) {
+        return new UnknownProperty(interfaceName + " has no property " + propertyName);
+    }
+
+    private void refresh(MPRISObjectPaths objectPath) {
+        MPRISModule module = getModule(objectPath);
+        if(module != null) module.refresh();
+    }
+
+    void update(String propName, Variant<?> value, MPRISObjectPaths objectPaths) throws DBusException {
+        set(propName, value, objectPaths, next -> {});
+    }
+
+    /**
+     * Applies the change to the state, publishes the property together with it and emits it. The commit and the
+     * emit happen under the lock of the emitter, otherwise two writers could commit in one order and emit in the
+     * other, leaving clients with a value that is no longer published.
+     */
+    private void set(String propName, Variant<?> value, MPRISObjectPaths objectPaths, PlayerState.Change change) throws DBusException {
+        metrics.propertyChanged(objectPaths, propName);
+        propertiesEmitter.emit(propName, value, objectPaths, () -> commit(next -> {
+            change.apply(next);
+            next.put(objectPaths, propName, value);
+        }));
+    }
+
+    /**
+     * Copies the current state, applies the change to the copy and swaps it in, retrying if another writer
+     * published first. Readers never block.
+     * @return The published state
+     */
+    private PlayerState commit(PlayerState.Change change) {
+        while(true) {
+            PlayerState current = state.get();
+            PlayerState next = current.copy();
+            change.apply(next);
+            if(state.compareAndSet(current, next)) return next;
+        }
+    }
+
+    /**
+     * Emits the property as invalidated, its value has to be published before the next read
+     */
+    void invalidate(String propName, MPRISObjectPaths objectPaths) throws DBusException {
+        metrics.propertyChanged(objectPaths, propName);
+        propertiesEmitter.invalidate(propName, objectPaths);
+    }
+
+    /**
+     * Sends a signal of this object and counts it
+     */
+    void sendSignal(DBusSignal signal) {
+        connection.sendMessage(signal);
+        metrics.signalEmitted(signal.getName());
+    }
+
+    /**
+     * Runs a callback on the calling thread and reports its latency and exceptions
+     */
+    <T> void call(String callbackName, TypeRunnable<T> callback, T value) {
+        call(callbackName, v -> {
+            callback.run(v);
+            return null;
+        }, value);
+    }
+
+    /**
+     * Runs a callback on the calling thread and reports its latency and exceptions
+     */
+    <S, T> S call(String callbackName, ReturnableTypeRunnable<S, T> callback, T value) {
+        if(!metrics.isEnabled()) return callback.run(value);
+        long start = System.nanoTime();
+        try {
+            S result = callback.run(value);
+            metrics.callbackCompleted(callbackName, System.nanoTime() - start, null);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.callbackCompleted(callbackName, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces a single property in the snapshot served by Get and GetAll without emitting a signal
+     */
+    void publish(String propName, Variant<?> value, MPRISObjectPaths objectPaths) {
+        commit(next -> next.put(objectPaths, propName, value));
+    }
+
+    /**
+     * @return The mpris:trackid of the current metadata or NoTrack if there is none
+     */
+    DBusPath getCurrentTrackId() {
+        DBusPath trackId = state.get().metadata.getTrackID();
+        return trackId == null ? TrackListStore.NO_TRACK : trackId;
+    }
+
+    /**
+     * @return The published state, all values of the same version
+     */
+    PlayerState getState() {
+        return state.get();
+    }
+
+    static DBusPath toTrackId(Object value) {
+        return value instanceof DBusPath ? (DBusPath) value : new DBusPath(value.toString());
+    }
+
+    DBusConnection getConnection() {
+        return connection;
+    }
+
+    MPRISMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The module implementing the interface or null if the interface is not exported
+     */
+    MPRISModule getModule(MPRISObjectPaths objectPath) {
+        for(MPRISModule module : modules) {
+            if(module.getInterface() == objectPath) return module;
+        }
+        return null;
+    }
+
+    /**
+     * @return The D-Bus interfaces exported by this object
+     */
+    public Set<MPRISObjectPaths> getInterfaces() {
+        Set<MPRISObjectPaths> interfaces = EnumSet.of(MPRISObjectPaths.MEDIAPLAYER2, MPRISObjectPaths.PLAYER);
+        for(MPRISModule module : modules) {
+            interfaces.add(module.getInterface());
+        }
+        return interfaces;
+    }
+
+    /**
+     * @return The emitter which batches the PropertiesChanged signals of this object
+     */
+    public PropertiesChangedEmitter getPropertiesChangedEmitter() {
+        return propertiesEmitter;
+    }
+
+    /**
+     * @return The scheduler sending Seeked when the position jumps
+     */
+    public SeekScheduler getSeekScheduler() {
+        return seekScheduler;
+    }
+
+    /**
+     * @return The dispatcher running the handlers of fire-and-forget methods
+     */
+    public CallbackDispatcher getCallbackDispatcher() {
+        return callbackDispatcher;
+    }
+
+    /**
+     * Runs the block and emits all property changes it made as one PropertiesChanged signal per interface
+     */
+    public void transaction(@NotNull PropertiesChangedEmitter.Transaction transaction) throws DBusException {
+        propertiesEmitter.transaction(transaction);
+    }
+
+    public boolean getCanQuit() {
+        return state.get().canQuit;
+    }
+
+    public void setCanQuit(boolean canQuit) throws DBusException {
+        set("CanQuit", new Variant<>(canQuit, "b"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.canQuit = canQuit);
+    }
+
+    public boolean getFullscreen() {
+        return state.get().fullscreen;
+    }
+
+    public void setFullscreen(boolean fullscreen) throws DBusException {
+        set("Fullscreen", new Variant<>(fullscreen, "b"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.fullscreen = fullscreen);
+    }
+
+    public boolean getCanSetFullscreen() {
+        return state.get().canSetFullscreen;
+    }
+
+    public void setCanSetFullscreen(boolean canSetFullscreen) throws DBusException {
+        set("CanSetFullscreen", new Variant<>(canSetFullscreen, "b"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.canSetFullscreen = canSetFullscreen);
+    }
+
+    public boolean getCanRaise() {
+        return state.get().canRaise;
+    }
+
+    public void setCanRaise(boolean canRaise) throws DBusException {
+        set("CanRaise", new Variant<>(canRaise, "b"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.canRaise = canRaise);
+    }
+
+    public boolean getHasTracklist() {
+        return state.get().hasTracklist;
+    }
+
+    public void setHasTrackList(boolean hasTracklist) throws DBusException {
+        set("HasTrackList", new Variant<>(hasTracklist, "b"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.hasTracklist = hasTracklist);
+    }
+
+    public String getIdentity() {
+        return state.get().identity;
+    }
+
+    public void setIdentity(@NotNull String identity) throws DBusException {
+        set("Identity", new Variant<>(identity, "s"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.identity = identity);
+    }
+
+    public String getDesktopEntry() {
+        return state.get().desktopEntry;
+    }
+
+    public void setDesktopEntry(@NotNull String desktopEntry) throws DBusException, IllegalArgumentException {
+        if(!desktopEntry.isEmpty() && !desktopEntry.toLowerCase(Locale.ROOT).endsWith(".desktop")) {
+            throw new IllegalArgumentException("Desktop entry must be an desktop entry");
+        }
+        set("DesktopEntry", new Variant<>(desktopEntry, "s"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.desktopEntry = desktopEntry);
+    }
+
+    public List<String> getSupportedUriSchemes() {
+        return state.get().supportedUriSchemes;
+    }
+
+    public void setSupportedUriSchemes(@NotNull String... supportedUriSchemes) throws DBusException {
+        List<String> schemes = Arrays.asList(supportedUriSchemes);
+        set("SupportedUriSchemes", new Variant<>(schemes, "as"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.supportedUriSchemes = schemes);
+    }
+
+    public List<String> getSupportedMimeTypes() {
+        return state.get().supportedMimeTypes;
+    }
+
+    public void setSupportedMimeTypes(@NotNull List<String> supportedMimeTypes) throws DBusException {
+        set("SupportedMimeTypes", new Variant<>(supportedMimeTypes, "as"), MPRISObjectPaths.MEDIAPLAYER2, next -> next.supportedMimeTypes = supportedMimeTypes);
+    }
+
+    @Override
+    public void Raise() {
+        metrics.methodCalled(MPRISObjectPaths.MEDIAPLAYER2, "Raise");
+        if(state.get().canRaise) callbackDispatcher.dispatch(CallbackDispatcher.Category.MEDIA_PLAYER2, "onRaise", () -> onRaise.run(null));
+    }
+
+    @Override
+    public void Quit() {
+        metrics.methodCalled(MPRISObjectPaths.MEDIAPLAYER2, "Quit");
+        if(state.get().canQuit) callbackDispatcher.dispatch(CallbackDispatcher.Category.MEDIA_PLAYER2, "onQuit", () -> onQuit.run(null));
+    }
+
+    public PlaybackStatus getPlaybackStatus() {
+        return state.get().playbackStatus;
+    }
+
+    public void setPlaybackStatus(@NotNull PlaybackStatus playbackStatus) throws DBusException {
+        set("PlaybackStatus", new Variant<>(playbackStatus.GetAsString(), "s"), MPRISObjectPaths.PLAYER, next -> {
+            next.playbackStatus = playbackStatus;
+            next.anchor(next.clock.withPlaying(playbackStatus == PlaybackStatus.PLAYING, next.getLength()));
+        });
+    }
+
+    public LoopStatus getLoopStatus() {
+        return state.get().loopStatus;
+    }
+
+    public void setLoopStatus(@NotNull LoopStatus loopStatus) throws DBusException, IllegalArgumentException {
+        if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+        set("LoopStatus", new Variant<>(loopStatus.GetAsString(), "s"), MPRISObjectPaths.PLAYER, next -> next.loopStatus = loopStatus);
+    }
+
+    public double getRate() {
+        return state.get().rate;
+    }
+
+    public void setRate(double rate) throws DBusException, IllegalArgumentException {
+        if(rate == 0) {
+            setPlaybackStatus(PlaybackStatus.PAUSED);
+            call("onPause", onPause, null);
+            return;
+        }
+        double minimumRate = state.get().minimumRate;
+        double maximumRate = state.get().maximumRate;
+        if(minimumRate != -1 && maximumRate != -1) {
+            if(rate < minimumRate) {
+                throw new IllegalArgumentException("Minimum rate is " + minimumRate + " but got " + rate);
+            }
+
+            if(rate > maximumRate) {
+                throw new IllegalArgumentException("Maximum rate is " + maximumRate + " but got " + rate);
+            }
+        }else{
+            throw new IllegalArgumentException("Setting the rate is not supported by this player");
+        }
+        set("Rate", new Variant<>(rate, "d"), MPRISObjectPaths.PLAYER, next -> {
+            next.rate = rate;
+            next.anchor(next.clock.withRate(rate, next.getLength()));
+        });
+    }
+
+    public boolean getShuffle() {
+        return state.get().shuffle;
+    }
+
+    public void setShuffle(boolean shuffle) throws DBusException, IllegalArgumentException {
+        if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+        set("Shuffle", new Variant<>(shuffle, "b"), MPRISObjectPaths.PLAYER, next -> next.shuffle = shuffle);
+    }
+
+    public Metadata getMetadata() {
+        return state.get().metadata;
+    }
+
+    public void setMetadata(@NotNull Metadata metadata) throws DBusException {
+        set("Metadata", metadata.toVariant(), MPRISObjectPaths.PLAYER, next -> next.metadata = metadata);
+    }
+
+    public double getVolume() {
+        return state.get().volume;
+    }
+
+    public void setVolume(double volume) throws DBusException, IllegalArgumentException {
+        if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+        double clamped = Math.max(volume, 0.0);
+        set("Volume", new Variant<>(clamped, "d"), MPRISObjectPaths.PLAYER, next -> next.volume = clamped);
+    }
+
+    /**
+     * @return The current position in microseconds, extrapolated from the last discontinuity and the rate
+     */
+    public int getPosition() {
+        return (int) Math.min(Integer.MAX_VALUE, state.get().position());
+    }
+
+    /**
+     * Reports a discontinuity (e.g. a seek) and sends Seeked through the {@link SeekScheduler}. While playing the
+     * position advances on its own, so this does not need to be called periodically; positions close to the
+     * extrapolated one only correct the drift.
+     */
+    public void setPosition(int i) {
+        long expected = state.get().position();
+        commit(next -> next.anchor(next.clock.withPosition(i)));
+        seekScheduler.positionSet(expected, i);
+    }
+
+    public double getMinimumRate() {
+        return state.get().minimumRate;
+    }
+
+    public void setMinimumRate(double minimumRate) throws DBusException, IllegalArgumentException {
+        if(minimumRate < 0.1) {
+            throw new IllegalArgumentException("Minimum rate is less than 0.1");
+        }
+        if(minimumRate > state.get().maximumRate) {
+            throw new IllegalArgumentException("Minimum rate is greater than maximum rate");
+        }
+        set("MinimumRate", new Variant<>(minimumRate, "d"), MPRISObjectPaths.PLAYER, next -> next.minimumRate = minimumRate);
+    }
+
+    public double getMaximumRate() {
+        return state.get().maximumRate;
+    }
+
+    public void setMaximumRate(double maximumRate) throws DBusException {
+        if(maximumRate < state.get().minimumRate) {
+            throw new IllegalArgumentException("Maximum rate is less than minimum rate");
+        }
+        set("MaximumRate", new Variant<>(maximumRate, "d"), MPRISObjectPaths.PLAYER, next -> next.maximumRate = maximumRate);
+    }
+
+    public boolean getCanGoNext() {
+        PlayerState current = state.get();
+        if(!current.canControl) return false;
+        return current.canGoNext;
+    }
+
+    public void setCanGoNext(boolean canGoNext) throws DBusException, IllegalArgumentException {
+        if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+        set("CanGoNext", new Variant<>(canGoNext, "b"), MPRISObjectPaths.PLAYER, next -> next.canGoNext = canGoNext);
+    }
+
+    public boolean getCanGoPrevious() {
+        PlayerState current = state.get();
+        if(!current.canControl) return false;
+        return current.canGoPrevious;
+    }
+
+    public void setCanGoPrevious(boolean canGoPrevious) throws DBusException, IllegalArgumentException {
+        if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+        set("CanGoPrevious", new Variant<>(canGoPrevious, "b"), MPRISObjectPaths.PLAYER, next -> next.canGoPrevious = canGoPrevious);
+    }
+
+    public boolean getCanPlay() {
+        PlayerState current = state.get();
+        if(!current.canControl) return false;
+        return current.canPlay;
+    }
+
+    public void setCanPlay(boolean canPlay) throws DBusException, IllegalArgumentException {
+        if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+        set("CanPlay", new Variant<>(canPlay, "b"), MPRISObjectPaths.PLAYER, next -> next.canPlay = canPlay);
+    }
+
+    public boolean getCanPause() {
+        PlayerState current = state.get();
+        if(!current.canControl) return false;
+        return current.canPause;
+    }
+
+    public void setCanPause(boolean canPause) throws DBusException, IllegalArgumentException {
+        if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+        set("CanPause", new Variant<>(canPause, "b"), MPRISObjectPaths.PLAYER, next -> next.canPause = canPause);
+    }
+
+    public boolean getCanSeek() {
+        PlayerState current = state.get();
+        if(!current.canControl) return false;
+        return current.canSeek;
+    }
+
+    public void setCanSeek(boolean canSeek) throws DBusException, IllegalArgumentException {
+        if(!state.get().canControl) throw new IllegalArgumentException("CanControl is false");
+        set("CanSeek", new Variant<>(canSeek, "b"), MPRISObjectPaths.PLAYER, next -> next.canSeek = canSeek);
+    }
+
+    public boolean getCanControl() {
+        return state.get().canControl;
+    }
+
+    @Override
+    public void Next() {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "Next");
+        PlayerState current = state.get();
+        if(current.canControl && current.canGoNext) callbackDispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, "onNext", () -> onNext.run(null));
+    }
+
+    @Override
+    public void Previous() {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "Previous");
+        PlayerState current = state.get();
+        if(current.canControl && current.canGoPrevious) callbackDispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, "onPrevious", () -> onPrevious.run(null));
+    }
+
+    @Override
+    public void Pause() {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "Pause");
+        PlayerState current = state.get();
+        if(current.canControl && current.canPause) callbackDispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, "onPause", () -> onPause.run(null));
+    }
+
+    @Override
+    public void PlayPause() {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "PlayPause");
+        PlayerState current = state.get();
+        if(current.canControl && current.canPlay && current.canPause) callbackDispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, "onPlayPause", () -> onPlayPause.run(null));
+    }
+
+    @Override
+    public void Stop() {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "Stop");
+        PlayerState current = state.get();
+        if(current.canControl) callbackDispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, "onStop", () -> onStop.run(null));
+    }
+
+    @Override
+    public void Play() {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "Play");
+        PlayerState current = state.get();
+        if(current.canControl && current.canPlay) callbackDispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, "onPlay", () -> onPlay.run(null));
+    }
+
+    @Override
+    public void Seek(int x) {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "Seek");
+        PlayerState current = state.get();
+        if(current.canControl && current.canSeek) callbackDispatcher.dispatch(CallbackDispatcher.Category.SEEK, "onSeek", () -> onSeek.run(x));
+    }
+
+    @Override
+    public void SetPosition(DBusPath Track_Id, int x) {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "SetPosition");
+        PlayerState current = state.get();
+        if(current.canControl && current.canSeek) callbackDispatcher.dispatch(CallbackDispatcher.Category.SEEK, "onSetPosition", () -> onSetPosition.run(new HashMap<DBusPath, Integer>() {{
+            put(Track_Id, x);
+        }}));
+    }
+
+    @Override
+    public void OpenURI(String Uri) {
+        metrics.methodCalled(MPRISObjectPaths.PLAYER, "OpenURI");
+        List<String> supportedUriSchemes = state.get().supportedUriSchemes;
+        if(supportedUriSchemes.isEmpty()) return;
+        URI parsed = URI.create(Uri);
+        if(!supportedUriSchemes.contains(parsed.getScheme())) return;
+        callbackDispatcher.dispatch(CallbackDispatcher.Category.OPEN_URI, "onOpenURI", () -> openURI(Uri));
+    }
+
+    private void openURI(String uri) {
+        onOpenURI.run(uri);
+
+        try {
+            for(MPRISModule module : modules) {
+                module.onUriOpened(uri);
+            }
+        }catch (DBusException e) {
+            throw new RuntimeException(e);
+        }
+
+        if(state.get().playbackStatus == PlaybackStatus.STOPPED) {
+            onPlay.run(null);
+            commit(next -> {
+                next.playbackStatus = PlaybackStatus.PLAYING;
+                next.anchor(next.clock.withPlaying(true, next.getLength()));
+                next.put(MPRISObjectPaths.PLAYER, "PlaybackStatus", new Variant<>(PlaybackStatus.PLAYING.GetAsString(), "s"));
+            });
+        }
+    }
+
+    @Override
+    public String getObjectPath() {
+        return "/org/mpris/MediaPlayer2";
+    }
+
+    /**
+     * The handlers of this player match the signal type on the whole bus. They see the signals the player sends
+     * itself, through the {@link SeekScheduler} or the modules, and those of objects which are no MPRIS player.
+     * @return true if the signal was sent by another connection from the MPRIS object path
+     */
+    boolean isForeignSignal(DBusSignal signal) {
+        return !connection.getUniqueName().equals(signal.getSource()) && getObjectPath().equals(signal.getPath());
+    }
+
+    public void init() throws DBusException {
+        connection.addSigHandler(Seeked.class, new DBusSigHandler<Seeked>() {
+            @Override
+            public void handle(Seeked s) {
+                if(!isForeignSignal(s)) return;
+                metrics.signalReceived("Seeked");
+                PlayerState current = state.get();
+                if(current.canControl && current.canSeek) {
+                    call("onSignalSeeked", onSignalSeeked, s.getTimeInUs());
+                }
+            }
+        });
+        for(MPRISModule module : modules) {
+            module.init(connection);
+        }
+    }
+}
@@ -7,7 +7,10 @@ import org.freedesktop.dbus.types.Variant;
 import org.jetbrains.annotations.NotNull;
 import org.mpris.mpris.*;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @SuppressWarnings("unused")
 public class MPRISMediaPlayer {
@@ -15,9 +18,11 @@ public class MPRISMediaPlayer {
     private MPRISMP2None mprisMediaPlayer2None;
     private MPRISMP2WPL mprisMediaPlayer2WPL;
     private MPRISMP2WTL mprisMediaPlayer2WTL;
+    private MPRISMP2Base mprisMediaPlayer2;
     private final String playerName;
     private final DBusConnection connection;
-    private MediaPlayer2Mode buildMode = MediaPlayer2Mode.NONE;
+    private final MPRISHost host;
+    private StateFile.Snapshot restoredState;
 
     /**
      * @param connection DBusConnection (System, Session)
@@ -31,6 +36,23 @@ public class MPRISMediaPlayer {
         this.playerName = playerName;
         if(connection == null) connection = DBusConnection.newConnection(DBusConnection.DBusBusType.SESSION);
         this.connection = connection;
+        this.host = null;
+    }
+
+    /**
+     * A player of the host on its own connection
+     */
+    MPRISMediaPlayer(MPRISHost host, DBusConnection connection, String playerName) {
+        this.playerName = playerName;
+        this.connection = connection;
+        this.host = host;
+    }
+
+    /**
+     * @return The connection the player is exported on
+     */
+    public DBusConnection getConnection() {
+        return connection;
     }
 
     /**
@@ -47,7 +69,7 @@ public class MPRISMediaPlayer {
      * <p>WTL  = MediaPlayer2, Player TrackList</p>
      * <p>NONE = MediaPlayer2, Player</p>
      */
-    enum MediaPlayer2Mode {
+    public enum MediaPlayer2Mode {
         ALL, // MediaPlayer2, Player, TrackList, Playlists
         WPL, // MediaPlayer2, Player, Playlists
         WTL, // MediaPlayer2, Player TrackList
@@ -64,13 +86,16 @@ public class MPRISMediaPlayer {
             @NotNull TrackListBuilder trackListBuilder,
             @NotNull PlaylistsBuilder playlistsBuilder
     ) {
+        hosted(mediaPlayer2Builder);
+        restore(playerBuilder, trackListBuilder, playlistsBuilder);
         mprisMediaPlayer2All = mediaPlayer2Builder.buildAll(
                 connection,
                 playerBuilder,
                 trackListBuilder,
                 playlistsBuilder
         );
-        buildMode = MediaPlayer2Mode.ALL;
+        mprisMediaPlayer2 = mprisMediaPlayer2All;
+        restored();
         return mprisMediaPlayer2All;
     }
 
@@ -82,11 +107,14 @@ public class MPRISMediaPlayer {
             @NotNull MediaPlayer2Builder mediaPlayer2Builder,
             @NotNull PlayerBuilder playerBuilder
     ) {
+        hosted(mediaPlayer2Builder);
+        restore(playerBuilder, null, null);
         mprisMediaPlayer2None = mediaPlayer2Builder.buildNone(
                 connection,
                 playerBuilder
         );
-        buildMode = MediaPlayer2Mode.NONE;
+        mprisMediaPlayer2 = mprisMediaPlayer2None;
+        restored();
         return mprisMediaPlayer2None;
     }
 
@@ -99,12 +127,15 @@ public class MPRISMediaPlayer {
             @NotNull PlayerBuilder playerBuilder,
             @NotNull PlaylistsBuilder playlistsBuilder
     ) {
+        hosted(mediaPlayer2Builder);
+        restore(playerBuilder, null, playlistsBuilder);
         mprisMediaPlayer2WPL = mediaPlayer2Builder.buildWPL(
                 connection,
                 playerBuilder,
                 playlistsBuilder
         );
-        buildMode = MediaPlayer2Mode.WPL;
+        mprisMediaPlayer2 = mprisMediaPlayer2WPL;
+        restored();
         return mprisMediaPlayer2WPL;
     }
 
@@ -117,15 +148,63 @@ public class MPRISMediaPlayer {
             @NotNull PlayerBuilder playerBuilder,
             @NotNull TrackListBuilder trackListBuilder
     ) {
+        hosted(mediaPlayer2Builder);
+        restore(playerBuilder, trackListBuilder, null);
         mprisMediaPlayer2WTL = mediaPlayer2Builder.buildWTL(
                 connection,
                 playerBuilder,
                 trackListBuilder
         );
-        buildMode = MediaPlayer2Mode.WTL;
+        mprisMediaPlayer2 = mprisMediaPlayer2WTL;
+        restored();
         return mprisMediaPlayer2WTL;
     }
 
+    /**
+     * Restores the state last written to the file by {@link #persistState}. The next build replaces the playback
+     * status, loop status, rate, shuffle, metadata, volume and position of the PlayerBuilder, the tracks of the
+     * TrackListBuilder and the active playlist of the PlaylistsBuilder with the stored values, so the PlayerBuilder
+     * needs no metadata and the player can be created before the application has loaded its library. A stored
+     * Playing status is restored as Paused. The stored metadata of the tracks is cached and answers
+     * GetTracksMetadata until the tracks change.
+     * @return The restored snapshot or null if the file holds none
+     */
+    public StateFile.Snapshot restoreState(@NotNull StateFile stateFile) throws IOException {
+        restoredState = stateFile.read();
+        return restoredState;
+    }
+
+    /**
+     * Writes the state of the built player to the file every intervalMillis until the file is closed. Nothing
+     * is written while the state does not change.
+     */
+    public void persistState(@NotNull StateFile stateFile, long intervalMillis) {
+        if(mprisMediaPlayer2 == null) throw new IllegalStateException("No media player has been built");
+        stateFile.persist(mprisMediaPlayer2, intervalMillis);
+    }
+
+    /**
+     * Players of a host run their callbacks on the executor of the host unless they set their own
+     */
+    private void hosted(MediaPlayer2Builder mediaPlayer2Builder) {
+        if(host != null && mediaPlayer2Builder.callbackExecutor == null) {
+            mediaPlayer2Builder.setCallbackExecutor(host.getCallbackExecutor());
+        }
+    }
+
+    private void restore(PlayerBuilder playerBuilder, TrackListBuilder trackListBuilder, PlaylistsBuilder playlistsBuilder) {
+        if(restoredState == null) return;
+        restoredState.restore(playerBuilder);
+        if(trackListBuilder != null) restoredState.restore(trackListBuilder);
+        if(playlistsBuilder != null) restoredState.restore(playlistsBuilder);
+    }
+
+    private void restored() {
+        if(restoredState == null) return;
+        restoredState.restore(mprisMediaPlayer2);
+        restoredState = null;
+    }
+
     public static class MediaPlayer2Builder {
         boolean canQuit;
         boolean fullscreen;
@@ -137,6 +216,9 @@ public class MPRISMediaPlayer {
         List<String> supportedMimeTypes;
         TypeRunnable<?> onRaise;
         TypeRunnable<?> onQuit;
+        long propertiesFlushWindowMillis;
+        Executor callbackExecutor;
+        MPRISMetrics metrics;
 
         public MediaPlayer2Builder() {
             canQuit = false;
@@ -149,6 +231,8 @@ public class MPRISMediaPlayer {
             supportedMimeTypes = Collections.emptyList();
             onRaise = (T) -> {};
             onQuit = (T) -> {};
+            propertiesFlushWindowMillis = 0;
+            metrics = MPRISMetrics.NOOP;
         }
 
         public MediaPlayer2Builder setCanQuit(boolean canQuit) {
@@ -201,66 +285,55 @@ public class MPRISMediaPlayer {
             return this;
         }
 
+        /**
+         * @param propertiesFlushWindowMillis How long property changes are collected and merged into one
+         *                                    PropertiesChanged signal per interface (0 = send every change immediately)
+         */
+        public MediaPlayer2Builder setPropertiesFlushWindow(long propertiesFlushWindowMillis) {
+            if(propertiesFlushWindowMillis < 0) throw new IllegalArgumentException("Flush window is less than 0");
+            this.propertiesFlushWindowMillis = propertiesFlushWindowMillis;
+            return this;
+        }
+
+        /**
+         * @param callbackExecutor The executor running the handlers of fire-and-forget methods like Next or Seek.
+         *                         null uses virtual threads on JDK 21+ and a small bounded pool otherwise,
+         *                         {@code Runnable::run} runs them on the D-Bus worker thread.
+         */
+        public MediaPlayer2Builder setCallbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * @param metrics Receives method calls, property reads, signals and callback latencies of the object,
+         *                e.g. an {@link InMemoryMPRISMetrics}. null disables instrumentation.
+         */
+        public MediaPlayer2Builder setMetrics(MPRISMetrics metrics) {
+            this.metrics = metrics != null ? metrics : MPRISMetrics.NOOP;
+            return this;
+        }
+
         public MPRISMP2All buildAll(
                 DBusConnection connection,
                 PlayerBuilder playerBuilder,
                 TrackListBuilder trackListBuilder,
                 PlaylistsBuilder playlistsBuilder
         ) {
-            if(!desktopEntry.isEmpty() && !desktopEntry.toLowerCase(Locale.ROOT).endsWith(".desktop")) {
-                throw new IllegalArgumentException("Desktop entry must be an desktop entry");
-            }
-            if(identity.isEmpty()) {
-                identity = desktopEntry.split("/")[desktopEntry.split("/").length]
-                        .replace(".desktop", "");
-            }
+            build();
             playerBuilder.build();
             trackListBuilder.build();
             playlistsBuilder.build();
-            return new MPRISMP2All(
-                    connection,
-                    playerBuilder,
-                    trackListBuilder,
-                    playlistsBuilder,
-                    canQuit,
-                    fullscreen,
-                    canSetFullscreen,
-                    canRaise,
-                    identity,
-                    desktopEntry,
-                    supportedUriSchemes,
-                    supportedMimeTypes,
-                    onRaise,
-                    onQuit
-            );
+            return new MPRISMP2All(connection, this, playerBuilder, trackListBuilder, playlistsBuilder);
         }
 
         public MPRISMP2None buildNone(
                 DBusConnection connection,
                 PlayerBuilder playerBuilder
         ) {
-            if(!desktopEntry.isEmpty() && !desktopEntry.toLowerCase(Locale.ROOT).endsWith(".desktop")) {
-                throw new IllegalArgumentException("Desktop entry must be an desktop entry");
-            }
-            if(identity.isEmpty()) {
-                identity = desktopEntry.split("/")[desktopEntry.split("/").length]
-                        .replace(".desktop", "");
-            }
+            build();
             playerBuilder.build();
-            return new MPRISMP2None(
-                    connection,
-                    playerBuilder,
-                    canQuit,
-                    fullscreen,
-                    canSetFullscreen,
-                    canRaise,
-                    identity,
-                    desktopEntry,
-                    supportedUriSchemes,
-                    supportedMimeTypes,
-                    onRaise,
-                    onQuit
-            );
+            return new MPRISMP2None(connection, this, playerBuilder);
         }
 
         public MPRISMP2WPL buildWPL(
@@ -268,30 +341,10 @@ public class MPRISMediaPlayer {
                 PlayerBuilder playerBuilder,
                 PlaylistsBuilder playlistsBuilder
         ) {
-            if(!desktopEntry.isEmpty() && !desktopEntry.toLowerCase(Locale.ROOT).endsWith(".desktop")) {
-                throw new IllegalArgumentException("Desktop entry must be an desktop entry");
-            }
-            if(identity.isEmpty()) {
-                identity = desktopEntry.split("/")[desktopEntry.split("/").length]
-                        .replace(".desktop", "");
-            }
+            build();
             playerBuilder.build();
             playlistsBuilder.build();
-            return new MPRISMP2WPL(
-                    connection,
-                    playerBuilder,
-                    playlistsBuilder,
-                    canQuit,
-                    fullscreen,
-                    canSetFullscreen,
-                    canRaise,
-                    identity,
-                    desktopEntry,
-                    supportedUriSchemes,
-                    supportedMimeTypes,
-                    onRaise,
-                    onQuit
-            );
+            return new MPRISMP2WPL(connection, this, playerBuilder, playlistsBuilder);
         }
 
         public MPRISMP2WTL buildWTL(
@@ -299,30 +352,21 @@ public class MPRISMediaPlayer {
                 PlayerBuilder playerBuilder,
                 TrackListBuilder trackListBuilder
         ) {
+            build();
+            playerBuilder.build();
+            trackListBuilder.build();
+            return new MPRISMP2WTL(connection, this, playerBuilder, trackListBuilder);
+        }
+
+        void build() {
             if(!desktopEntry.isEmpty() && !desktopEntry.toLowerCase(Locale.ROOT).endsWith(".desktop")) {
                 throw new IllegalArgumentException("Desktop entry must be an desktop entry");
             }
             if(identity.isEmpty()) {
-                identity = desktopEntry.split("/")[desktopEntry.split("/").length]
+                String[] desktopEntryPath = desktopEntry.split("/");
+                identity = desktopEntryPath[desktopEntryPath.length - 1]
                         .replace(".desktop", "");
             }
-            playerBuilder.build();
-            trackListBuilder.build();
-            return new MPRISMP2WTL(
-                    connection,
-                    playerBuilder,
-                    trackListBuilder,
-                    canQuit,
-                    fullscreen,
-                    canSetFullscreen,
-                    canRaise,
-                    identity,
-                    desktopEntry,
-                    supportedUriSchemes,
-                    supportedMimeTypes,
-                    onRaise,
-                    onQuit
-            );
         }
     }
 
@@ -331,7 +375,7 @@ public class MPRISMediaPlayer {
         LoopStatus loopStatus;
         double rate;
         boolean shuffle;
-        Map<String, Variant<?>> metadata;
+        Metadata metadata;
         double volume;
         int position;
         double minimumRate;
@@ -352,6 +396,7 @@ public class MPRISMediaPlayer {
         TypeRunnable<Map<DBusPath, Integer>> onSetPosition;
         TypeRunnable<String> onOpenURI;
         TypeRunnable<Long> onSignalSeeked;
+        double seekedMaxRate;
 
         public PlayerBuilder() {
             playbackStatus = PlaybackStatus.STOPPED;
@@ -377,6 +422,7 @@ public class MPRISMediaPlayer {
             onSetPosition = (T) -> {};
             onOpenURI = (T) -> {};
             onSignalSeeked = (T) -> {};
+            seekedMaxRate = 10;
         }
 
         public PlayerBuilder setPlaybackStatus(@NotNull PlaybackStatus playbackStatus) {
@@ -400,7 +446,7 @@ public class MPRISMediaPlayer {
         }
 
         public PlayerBuilder setMetadata(@NotNull Metadata metadata) {
-            this.metadata = metadata.getInternalMap();
+            this.metadata = metadata;
             return this;
         }
 
@@ -504,6 +550,16 @@ public class MPRISMediaPlayer {
             return this;
         }
 
+        /**
+         * @param seekedMaxRate The maximum number of Seeked signals per second while the position keeps jumping
+         *                      (default 10), {@link Double#POSITIVE_INFINITY} sends every jump
+         */
+        public PlayerBuilder setSeekedMaxRate(double seekedMaxRate) {
+            if(!(seekedMaxRate > 0)) throw new IllegalArgumentException("Maximum Seeked rate must be greater than 0");
+            this.seekedMaxRate = seekedMaxRate;
+            return this;
+        }
+
         void build() {
             if(metadata == null) throw new IllegalArgumentException("Metadata must be set");
             if(minimumRate != -1 && maximumRate != -1) {
@@ -529,8 +585,8 @@ public class MPRISMediaPlayer {
                 }
             }
             if(position == -1) position = 0;
-            if(position < 0 || position > (Integer) metadata.get("mpris:length").getValue()) {
-                throw new IllegalArgumentException("Position must be between 0 and " + (Integer) metadata.get("mpris:length").getValue());
+            if(position < 0 || position > metadata.getLength()) {
+                throw new IllegalArgumentException("Position must be between 0 and " + metadata.getLength());
             }
             if(volume == -1) volume = 1.0;
             if(volume < 0.0) volume = 0.0;
@@ -541,6 +597,7 @@ public class MPRISMediaPlayer {
         List<DBusPath> tracks;
         Boolean canEditTracks;
         ReturnableTypeRunnable<List<Map<String, Variant<?>>>, List<DBusPath>> onGetTracksMetadata;
+        ReturnableTypeRunnable<CompletableFuture<List<Map<String, Variant<?>>>>, List<DBusPath>> onGetTracksMetadataAsync;
         TypeRunnable<List<Object>> onAddTrack;
         TypeRunnable<DBusPath> onRemoveTrack;
         TypeRunnable<DBusPath> onGoTo;
@@ -548,6 +605,10 @@ public class MPRISMediaPlayer {
         ReturnableTypeRunnable<TrackList.TrackAdded, TrackList.TrackAdded> onSignalTrackAdded;
         TypeRunnable<TrackList.TrackRemoved> onSignalTrackRemoved;
         TypeRunnable<TrackList.TrackMetadataChanged> onSignalTrackMetadataChanged;
+        int metadataCacheEntries;
+        long metadataCacheWeight;
+        int metadataPartitionSize;
+        long metadataTimeoutMillis;
 
         public TrackListBuilder() {
             tracks = null;
@@ -559,6 +620,10 @@ public class MPRISMediaPlayer {
             onSignalTrackListReplaced = null;
             onSignalTrackAdded = null;
             onSignalTrackMetadataChanged = null;
+            metadataCacheEntries = 1000;
+            metadataCacheWeight = 8 * 1024 * 1024;
+            metadataPartitionSize = 100;
+            metadataTimeoutMillis = 2000;
         }
 
         public TrackListBuilder setTracks(@NotNull DBusPath... tracks) {
@@ -576,6 +641,17 @@ public class MPRISMediaPlayer {
             return this;
         }
 
+        /**
+         * Answers GetTracksMetadata without blocking on the backend, used instead of onGetTracksMetadata.
+         * <p>Uncached tracks are split into partitions (see {@link #setMetadataBatching(int, long)}) and the handler
+         * is called once per partition, all before any result is awaited. Tracks of partitions which fail or do not
+         * complete within the timeout are answered with only their mpris:trackid.</p>
+         */
+        public TrackListBuilder setOnGetTracksMetadataAsync(@NotNull ReturnableTypeRunnable<CompletableFuture<List<Map<String, Variant<?>>>>, List<DBusPath>> onGetTracksMetadataAsync) {
+            this.onGetTracksMetadataAsync = onGetTracksMetadataAsync;
+            return this;
+        }
+
         public TrackListBuilder setOnAddTrack(@NotNull TypeRunnable<List<Object>> onAddTrack) {
             this.onAddTrack = onAddTrack;
             return this;
@@ -611,10 +687,36 @@ public class MPRISMediaPlayer {
             return this;
         }
 
+        /**
+         * Sizes the cache in front of onGetTracksMetadata
+         * @param maxEntries The maximum number of cached tracks (0 disables the cache)
+         * @param maxWeightBytes The maximum estimated size of all cached metadata in bytes
+         */
+        public TrackListBuilder setMetadataCache(int maxEntries, long maxWeightBytes) {
+            if(maxEntries < 0) throw new IllegalArgumentException("Max entries is less than 0");
+            if(maxWeightBytes < 0) throw new IllegalArgumentException("Max weight is less than 0");
+            this.metadataCacheEntries = maxEntries;
+            this.metadataCacheWeight = maxWeightBytes;
+            return this;
+        }
+
+        /**
+         * Configures onGetTracksMetadataAsync
+         * @param partitionSize The maximum number of tracks per call (100 by default)
+         * @param timeoutMillis The time a GetTracksMetadata call waits for all partitions (2000 by default)
+         */
+        public TrackListBuilder setMetadataBatching(int partitionSize, long timeoutMillis) {
+            if(partitionSize <= 0) throw new IllegalArgumentException("Partition size must be greater than 0");
+            if(timeoutMillis <= 0) throw new IllegalArgumentException("Timeout must be greater than 0");
+            this.metadataPartitionSize = partitionSize;
+            this.metadataTimeoutMillis = timeoutMillis;
+            return this;
+        }
+
         void build() {
             if(tracks == null) throw new IllegalArgumentException("tracks must be set");
             if(canEditTracks == null) throw new IllegalArgumentException("canEditTracks must be set");
-            if(onGetTracksMetadata == null) throw new IllegalArgumentException("onGetTracksMetadata must be set");
+            if(onGetTracksMetadata == null && onGetTracksMetadataAsync == null) throw new IllegalArgumentException("onGetTracksMetadata or onGetTracksMetadataAsync must be set");
             if(onAddTrack == null) throw new IllegalArgumentException("onAddTrack must be set");
             if(onRemoveTrack == null) throw new IllegalArgumentException("onRemoveTrack must be set");
             if(onGoTo == null) throw new IllegalArgumentException("onGoTo must be set");
@@ -632,6 +734,7 @@ public class MPRISMediaPlayer {
         TypeRunnable<DBusPath> onActivatePlaylist;
         ReturnableTypeRunnable<List<Playlists.Playlist>, List<Object>> onGetPlaylists;
         TypeRunnable<Playlists.PlaylistChanged> onSignalPlaylistChanged;
+        PlaylistRegistry registry;
 
         public PlaylistsBuilder() {
             playlistsCount = null;
@@ -640,6 +743,7 @@ public class MPRISMediaPlayer {
             onActivatePlaylist = null;
             onGetPlaylists = null;
             onSignalPlaylistChanged = null;
+            registry = null;
         }
 
         public PlaylistsBuilder setPlaylistsCount(@NotNull Integer playlistsCount) {
@@ -672,7 +776,21 @@ public class MPRISMediaPlayer {
             return this;
         }
 
+        /**
+         * Answers GetPlaylists from the registry and derives PlaylistCount and Orderings from it, so neither
+         * they nor onGetPlaylists have to be set
+         */
+        public PlaylistsBuilder setRegistry(@NotNull PlaylistRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
         void build() {
+            if(registry != null) {
+                playlistsCount = registry.size();
+                orderings = registry.getOrderings();
+                if(onGetPlaylists == null) onGetPlaylists = value -> Collections.emptyList();
+            }
             if(playlistsCount == null) throw new IllegalArgumentException("playlistsCount must be set");
             if(playlistsCount < 0) throw new IllegalArgumentException("PlaylistsCount is less than 0");
             if(orderings == null) throw new IllegalArgumentException("orderings must be set");
@@ -686,26 +804,58 @@ public class MPRISMediaPlayer {
         }
     }
 
+    /**
+     * Exports the built player with exactly the interfaces it was configured with and requests the bus name.
+     * The signal handlers are added once the name is owned, so clients find the player one round trip per
+     * handler earlier.
+     */
     public void create() throws DBusException {
-        switch (buildMode) {
-            case ALL:
-                mprisMediaPlayer2All.init();
-                connection.exportObject(mprisMediaPlayer2All.getObjectPath(), mprisMediaPlayer2All);
-                break;
-            case WPL:
-                mprisMediaPlayer2WPL.init();
-                connection.exportObject(mprisMediaPlayer2WPL.getObjectPath(), mprisMediaPlayer2WPL);
-                break;
-            case WTL:
-                mprisMediaPlayer2WTL.init();
-                connection.exportObject(mprisMediaPlayer2WTL.getObjectPath(), mprisMediaPlayer2WTL);
-                break;
-            case NONE:
-                mprisMediaPlayer2None.init();
-                connection.exportObject(mprisMediaPlayer2None.getObjectPath(), mprisMediaPlayer2None);
-                break;
+        if(mprisMediaPlayer2 == null) throw new IllegalStateException("No media player has been built");
+        if(host != null) {
+            host.register(this);
+            return;
         }
+        ExportTable.export(connection, mprisMediaPlayer2.getObjectPath(), mprisMediaPlayer2);
         connection.requestBusName("org.mpris.MediaPlayer2." + playerName);
+        mprisMediaPlayer2.init();
+    }
+
+    /**
+     * @return The host which created this player or null if it was created on its own
+     */
+    public MPRISHost getHost() {
+        return host;
+    }
+
+    /**
+     * @return The emitter batching the PropertiesChanged signals of the built player or null if nothing has been built
+     */
+    public PropertiesChangedEmitter getPropertiesChangedEmitter() {
+        return mprisMediaPlayer2 == null ? null : mprisMediaPlayer2.getPropertiesChangedEmitter();
+    }
+
+    /**
+     * @return The dispatcher running the handlers of the built player or null if nothing has been built
+     */
+    public CallbackDispatcher getCallbackDispatcher() {
+        return mprisMediaPlayer2 == null ? null : mprisMediaPlayer2.getCallbackDispatcher();
+    }
+
+    /**
+     * Runs the block and emits all property changes it made as one PropertiesChanged signal per interface
+     */
+    public void transaction(@NotNull PropertiesChangedEmitter.Transaction transaction) throws DBusException {
+        PropertiesChangedEmitter emitter = getPropertiesChangedEmitter();
+        if(emitter == null) throw new IllegalStateException("No media player has been built");
+        emitter.transaction(transaction);
+    }
+
+    /**
+     * Gets the built MPRIS object regardless of the mode it has been built with
+     * @return the MPRISMP2Base instance or null if nothing has been built
+     */
+    public MPRISMP2Base getMPRISMediaPlayer2() {
+        return mprisMediaPlayer2;
     }
 
     /**
@@ -0,0 +1,93 @@
+package org.mpris;
+
+/**
+ * Instrumentation hooks of an MPRIS object.
+ * <p>Implementations are called on the D-Bus worker and callback threads and must be thread safe and cheap.
+ * {@link #NOOP} is used when nothing is configured; since {@link #isEnabled()} returns false for it, no clock is read
+ * and the remaining calls are empty and inlined away by the JIT.</p>
+ * @see InMemoryMPRISMetrics
+ */
+public interface MPRISMetrics {
+    /**
+     * Discards everything
+     */
+    MPRISMetrics NOOP = new MPRISMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void methodCalled(MPRISObjectPaths objectPath, String member) {
+        }
+
+        @Override
+        public void propertiesRead(MPRISObjectPaths objectPath, String propertyName) {
+        }
+
+        @Override
+        public void propertyWritten(MPRISObjectPaths objectPath, String propertyName) {
+        }
+
+        @Override
+        public void propertyChanged(MPRISObjectPaths objectPath, String propertyName) {
+        }
+
+        @Override
+        public void signalEmitted(String signalName) {
+        }
+
+        @Override
+        public void signalReceived(String signalName) {
+        }
+
+        @Override
+        public void callbackCompleted(String callbackName, long nanos, Throwable error) {
+        }
+    };
+
+    /**
+     * @return false if callback latencies should not be measured
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * A D-Bus method of an MPRIS interface has been called (e.g. PLAYER, "Next")
+     */
+    void methodCalled(MPRISObjectPaths objectPath, String member);
+
+    /**
+     * Properties have been read through org.freedesktop.DBus.Properties
+     * @param propertyName The property passed to Get or null for GetAll
+     */
+    void propertiesRead(MPRISObjectPaths objectPath, String propertyName);
+
+    /**
+     * A property has been written through org.freedesktop.DBus.Properties.Set
+     */
+    void propertyWritten(MPRISObjectPaths objectPath, String propertyName);
+
+    /**
+     * A property has been changed by the player and queued for PropertiesChanged
+     */
+    void propertyChanged(MPRISObjectPaths objectPath, String propertyName);
+
+    /**
+     * A signal (PropertiesChanged, TrackAdded, ...) has been sent
+     */
+    void signalEmitted(String signalName);
+
+    /**
+     * A signal has been received by one of the handlers registered in init()
+     */
+    void signalReceived(String signalName);
+
+    /**
+     * A callback (onNext, onGetTracksMetadata, ...) has returned
+     * @param nanos The time the callback took
+     * @param error The exception thrown by the callback or null
+     */
+    void callbackCompleted(String callbackName, long nanos, Throwable error);
+}
@@ -0,0 +1,86 @@
+package org.mpris;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.types.Variant;
+
+import java.util.Map;
+
+/**
+ * An optional MPRIS interface (TrackList, Playlists) plugged into a {@link MPRISMP2Base}.
+ * <p>A module contributes its properties to the snapshot, its entries to the setter table and its signal
+ * handlers, and reports changes through the owning object.</p>
+ */
+abstract class MPRISModule {
+    private MPRISMP2Base owner;
+
+    /**
+     * @return The D-Bus interface implemented by this module
+     */
+    abstract MPRISObjectPaths getInterface();
+
+    /**
+     * Adds the initial value of every property of this module
+     */
+    abstract void putProperties(PropertySnapshot.Builder snapshot);
+
+    /**
+     * Registers the writers for properties received through org.freedesktop.DBus.Properties.Set. Only properties
+     * declared READ_WRITE need one, Set on the others is answered with PropertyReadOnly before a writer is looked up.
+     */
+    void registerSetters(Map<String, MPRISMP2Base.PropertySetter> setters) {
+    }
+
+    /**
+     * Registers the signal handlers of this module
+     */
+    void init(DBusConnection connection) throws DBusException {
+    }
+
+    /**
+     * Called after Player.OpenURI accepted and handed over an uri
+     */
+    void onUriOpened(String uri) throws DBusException {
+    }
+
+    void attach(MPRISMP2Base owner) {
+        if(this.owner != null) throw new IllegalStateException("Module is already attached");
+        this.owner = owner;
+    }
+
+    MPRISMP2Base getOwner() {
+        return owner;
+    }
+
+    void update(String propName, Variant<?> value) throws DBusException {
+        owner.update(propName, value, getInterface());
+    }
+
+    void publish(String propName, Variant<?> value) {
+        owner.publish(propName, value, getInterface());
+    }
+
+    void invalidate(String propName) throws DBusException {
+        owner.invalidate(propName, getInterface());
+    }
+
+    /**
+     * Called before Get or GetAll read properties of this module, to publish values which are built lazily
+     */
+    void refresh() {
+    }
+
+    /**
+     * Counts a D-Bus method call of this module's interface
+     */
+    void methodCalled(String member) {
+        owner.getMetrics().methodCalled(getInterface(), member);
+    }
+
+    /**
+     * Runs the handler of a fire-and-forget method on the callback dispatcher, ordered with the other
+     * handlers of this module
+     * @param callbackName The name the handler is reported under in {@link MPRISMetrics}
+     */
+    abstract void dispatch(String callbackName, Runnable handler);
+}
@@ -13,4 +13,12 @@ public enum MPRISObjectPaths {
     public String getPath() {
         return path;
     }
+
+    /**
+     * @param path The D-Bus interface name (e.g. org.mpris.MediaPlayer2.Player)
+     * @return The matching constant or null if the interface is not part of MPRIS
+     */
+    public static MPRISObjectPaths fromPath(String path) {
+        return MPRISProperties.interfaceOf(path);
+    }
 }
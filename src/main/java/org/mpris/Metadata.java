@@ -8,36 +8,186 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
+ * Immutable track metadata.
+ * <p>The keys of the MPRIS metadata guidelines are kept in fixed slots, other keys in a side map. The
+ * {@code a{sv}} map and the variant sent by Get, GetAll and PropertiesChanged are built once on first use and
+ * shared by every later read and signal of the same track.</p>
  @see <a href="https://www.freedesktop.org/wiki/Specifications/mpris-spec/metadata/">MPRIS v2 metadata guidelines</a>
  */
-public class Metadata {
-    private Map<String, Variant<?>> internalMap;
+public final class Metadata {
+    /**
+     * The keys with a fixed slot, in the order they are sent
+     */
+    enum Key {
+        TRACK_ID("mpris:trackid"),
+        LENGTH("mpris:length"),
+        ART_URL("mpris:artUrl"),
+        ALBUM("xesam:album"),
+        ALBUM_ARTIST("xesam:albumArtist"),
+        ARTIST("xesam:artist"),
+        AS_TEXT("xesam:asText"),
+        AUDIO_BPM("xesam:audioBPM"),
+        AUTO_RATING("xesam:autoRating"),
+        COMMENT("xesam:comment"),
+        COMPOSER("xesam:composer"),
+        CONTENT_CREATED("xesam:contentCreated"),
+        DISC_NUMBER("xesam:discNumber"),
+        FIRST_USED("xesam:firstUsed"),
+        GENRE("xesam:genre"),
+        LAST_USED("xesam:lastUsed"),
+        LYRICIST("xesam:lyricist"),
+        TITLE("xesam:title"),
+        TRACK_NUMBER("xesam:trackNumber"),
+        URL("xesam:url"),
+        USE_COUNT("xesam:useCount"),
+        USER_RATING("xesam:userRating");
 
-    private Metadata() {
+        private static final Key[] VALUES = values();
+        private static final Map<String, Key> BY_NAME = new HashMap<>();
+
+        static {
+            for(Key key : VALUES) {
+                BY_NAME.put(key.name, key);
+            }
+        }
+
+        private final String name;
+
+        Key(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return The key or null if it has no fixed slot
+         */
+        static Key fromName(String name) {
+            return BY_NAME.get(name);
+        }
+    }
+
+    private final Variant<?>[] slots;
+    private final Map<String, Variant<?>> custom;
+    private volatile Map<String, Variant<?>> internalMap;
+    private volatile Variant<Map<String, Variant<?>>> variant;
+
+    private Metadata(Variant<?>[] slots, Map<String, Variant<?>> custom) {
+        this.slots = slots;
+        this.custom = custom;
+    }
+
+    /**
+     * Copies a map received over D-Bus (e.g. through Properties.Set)
+     */
+    static Metadata of(Map<String, Variant<?>> map) {
+        Builder builder = new Builder();
+        for(Map.Entry<String, Variant<?>> entry : map.entrySet()) {
+            builder.set(entry.getKey(), entry.getValue());
+        }
+        return builder.create();
+    }
+
+    /**
+     * @return The value of the key or null if it is not set
+     */
+    public Variant<?> get(String key) {
+        Key slot = Key.fromName(key);
+        return slot != null ? slots[slot.ordinal()] : custom.get(key);
     }
 
-    Metadata(final Map<String, Variant<?>> internalMap) {
-        this.internalMap = internalMap;
+    /**
+     * @return mpris:trackid or null if it is not set
+     */
+    public DBusPath getTrackID() {
+        Variant<?> trackId = slots[Key.TRACK_ID.ordinal()];
+        return trackId == null ? null : MPRISMP2Base.toTrackId(trackId.getValue());
     }
 
+    /**
+     * @return mpris:length in microseconds or 0 if it is unknown
+     */
+    public long getLength() {
+        Variant<?> length = slots[Key.LENGTH.ordinal()];
+        if(length == null || !(length.getValue() instanceof Number)) return 0;
+        return ((Number) length.getValue()).longValue();
+    }
+
+    /**
+     * @return An unmodifiable {@code a{sv}} view, built on first use
+     */
     Map<String, Variant<?>> getInternalMap() {
-        return internalMap;
+        Map<String, Variant<?>> map = internalMap;
+        if(map == null) {
+            map = new LinkedHashMap<>();
+            for(Key key : Key.VALUES) {
+                Variant<?> value = slots[key.ordinal()];
+                if(value != null) map.put(key.name, value);
+            }
+            map.putAll(custom);
+            map = Collections.unmodifiableMap(map);
+            internalMap = map;
+        }
+        return map;
+    }
+
+    /**
+     * @return The Metadata property value, built on first use and shared by all reads and signals
+     */
+    Variant<Map<String, Variant<?>>> toVariant() {
+        Variant<Map<String, Variant<?>>> value = variant;
+        if(value == null) {
+            value = new Variant<>(getInternalMap(), "a{sv}");
+            variant = value;
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof Metadata)) return false;
+        Metadata other = (Metadata) o;
+        return Arrays.equals(slots, other.slots) && custom.equals(other.custom);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(slots) + custom.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Metadata" + getInternalMap();
     }
 
     public static class Builder {
-        private final Map<String, Variant<?>> internalMap = new HashMap<>();
+        private final Variant<?>[] slots = new Variant<?>[Key.VALUES.length];
+        private final Map<String, Variant<?>> custom = new LinkedHashMap<>();
+        private final MetadataPool pool;
+
+        public Builder() {
+            this(null);
+        }
+
+        /**
+         * @param pool Shares album names and the artist, genre, composer, lyricist and comment lists with other
+         *             metadata built with the same pool (null to copy them)
+         */
+        public Builder(MetadataPool pool) {
+            this.pool = pool;
+        }
 
         /**
          * @param trackID D-Bus path: A unique identity for this track within the context of an MPRIS object (eg: tracklist).
          */
         public Builder setTrackID(DBusPath trackID) {
-            internalMap.put("mpris:trackid", new Variant<>(trackID, "o"));
+            slots[Key.TRACK_ID.ordinal()] = new Variant<>(trackID, "o");
             return this;
         }
 
@@ -45,7 +195,7 @@ public class Metadata {
          * @param duration 64-bit integer: The duration of the track in microseconds.
          */
         public Builder setLength(int duration) {
-            internalMap.put("mpris:length", new Variant<>(duration, "x"));
+            slots[Key.LENGTH.ordinal()] = new Variant<>(duration, "x");
             return this;
         }
 
@@ -54,7 +204,7 @@ public class Metadata {
          *               Clients should not assume this will continue to exist when the media player stops giving out the URL.
          */
         public Builder setArtURL(URI artURL) {
-            internalMap.put("mpris:artUrl", new Variant<>(artURL.toString(), "s"));
+            slots[Key.ART_URL.ordinal()] = new Variant<>(artURL.toString(), "s");
             return this;
         }
 
@@ -62,7 +212,7 @@ public class Metadata {
          * @param albumName String: The album name.
          */
         public Builder setAlbumName(String albumName) {
-            internalMap.put("xesam:album", new Variant<>(albumName, "s"));
+            slots[Key.ALBUM.ordinal()] = new Variant<>(pool != null ? pool.intern(albumName) : albumName, "s");
             return this;
         }
 
@@ -70,7 +220,7 @@ public class Metadata {
          * @param albumArtists List of Strings: The album artist(s).
          */
         public Builder setAlbumArtists(List<String> albumArtists) {
-            internalMap.put("xesam:albumArtist", new Variant<>(albumArtists, "as"));
+            slots[Key.ALBUM_ARTIST.ordinal()] = new Variant<>(copy(albumArtists), "as");
             return this;
         }
 
@@ -78,7 +228,7 @@ public class Metadata {
          * @param artists List of Strings: The track artist(s).
          */
         public Builder setArtists(List<String> artists) {
-            internalMap.put("xesam:artist", new Variant<>(artists, "as"));
+            slots[Key.ARTIST.ordinal()] = new Variant<>(copy(artists), "as");
             return this;
         }
 
@@ -86,7 +236,7 @@ public class Metadata {
          * @param text String: The track lyrics.
          */
         public Builder setAsText(String text) {
-            internalMap.put("xesam:asText", new Variant<>(text, "s"));
+            slots[Key.AS_TEXT.ordinal()] = new Variant<>(text, "s");
             return this;
         }
 
@@ -94,7 +244,7 @@ public class Metadata {
          * @param bpm Integer: The speed of the music, in beats per minute.
          */
         public Builder setAudioBPM(int bpm) {
-            internalMap.put("xesam:audioBPM", new Variant<>(bpm, "x"));
+            slots[Key.AUDIO_BPM.ordinal()] = new Variant<>(bpm, "x");
             return this;
         }
 
@@ -105,7 +255,7 @@ public class Metadata {
             if (autoRating < 0.0 || autoRating > 1.0) {
                 throw new IllegalArgumentException("autoRating must be between 0.0f and 1.0f");
             }
-            internalMap.put("xesam:autoRating", new Variant<>(autoRating, "d"));
+            slots[Key.AUTO_RATING.ordinal()] = new Variant<>(autoRating, "d");
             return this;
         }
 
@@ -113,7 +263,7 @@ public class Metadata {
          * @param comments List of Strings: A (list of) freeform comment(s).
          */
         public Builder setComments(List<String> comments) {
-            internalMap.put("xesam:comment", new Variant<>(comments, "as"));
+            slots[Key.COMMENT.ordinal()] = new Variant<>(copy(comments), "as");
             return this;
         }
 
@@ -121,7 +271,7 @@ public class Metadata {
          * @param composers List of Strings: The composer(s) of the track.
          */
         public Builder setComposers(List<String> composers) {
-            internalMap.put("xesam:composer", new Variant<>(composers, "as"));
+            slots[Key.COMPOSER.ordinal()] = new Variant<>(copy(composers), "as");
             return this;
         }
 
@@ -133,7 +283,7 @@ public class Metadata {
             Instant instant = date.toInstant();
             OffsetDateTime offsetDateTime = instant.atOffset(offset);
             DateTimeFormatter formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
-            internalMap.put("xesam:contentCreated", new Variant<>(offsetDateTime.format(formatter), "s"));
+            slots[Key.CONTENT_CREATED.ordinal()] = new Variant<>(offsetDateTime.format(formatter), "s");
             return this;
         }
 
@@ -141,7 +291,7 @@ public class Metadata {
          * @param discNumber Integer: The disc number on the album that this track is from.
          */
         public Builder setDiscNumber(int discNumber) {
-            internalMap.put("xesam:discNumber", new Variant<>(discNumber, "x"));
+            slots[Key.DISC_NUMBER.ordinal()] = new Variant<>(discNumber, "x");
             return this;
         }
 
@@ -153,7 +303,7 @@ public class Metadata {
             Instant instant = date.toInstant();
             OffsetDateTime offsetDateTime = instant.atOffset(offset);
             DateTimeFormatter formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
-            internalMap.put("xesam:firstUsed", new Variant<>(offsetDateTime.format(formatter), "s"));
+            slots[Key.FIRST_USED.ordinal()] = new Variant<>(offsetDateTime.format(formatter), "s");
             return this;
         }
 
@@ -161,7 +311,7 @@ public class Metadata {
          * @param genres List of Strings: The genre(s) of the track.
          */
         public Builder setGenres(List<String> genres) {
-            internalMap.put("xesam:genre", new Variant<>(genres, "as"));
+            slots[Key.GENRE.ordinal()] = new Variant<>(copy(genres), "as");
             return this;
         }
 
@@ -173,7 +323,7 @@ public class Metadata {
             Instant instant = date.toInstant();
             OffsetDateTime offsetDateTime = instant.atOffset(offset);
             DateTimeFormatter formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
-            internalMap.put("xesam:lastUsed", new Variant<>(offsetDateTime.format(formatter), "s"));
+            slots[Key.LAST_USED.ordinal()] = new Variant<>(offsetDateTime.format(formatter), "s");
             return this;
         }
 
@@ -181,7 +331,7 @@ public class Metadata {
          * @param lyricists List of Strings: The lyricist(s) of the track.
          */
         public Builder setLyricists(List<String> lyricists) {
-            internalMap.put("xesam:lyricist", new Variant<>(lyricists, "as"));
+            slots[Key.LYRICIST.ordinal()] = new Variant<>(copy(lyricists), "as");
             return this;
         }
 
@@ -189,7 +339,7 @@ public class Metadata {
          * @param title String: The track title.
          */
         public Builder setTitle(String title) {
-            internalMap.put("xesam:title", new Variant<>(title, "s"));
+            slots[Key.TITLE.ordinal()] = new Variant<>(title, "s");
             return this;
         }
 
@@ -197,7 +347,7 @@ public class Metadata {
          * @param trackNumber Integer: The track number on the album disc.
          */
         public Builder setTrackNumber(int trackNumber) {
-            internalMap.put("xesam:trackNumber", new Variant<>(trackNumber, "x"));
+            slots[Key.TRACK_NUMBER.ordinal()] = new Variant<>(trackNumber, "x");
             return this;
         }
 
@@ -205,7 +355,7 @@ public class Metadata {
          * @param url URI: The location of the media file.
          */
         public Builder setURL(URI url) {
-            internalMap.put("xesam:url", new Variant<>(url.toString(), "s"));
+            slots[Key.URL.ordinal()] = new Variant<>(url.toString(), "s");
             return this;
         }
 
@@ -213,7 +363,7 @@ public class Metadata {
          * @param useCount Integer: The number of times the track has been played.
          */
         public Builder setUseCount(int useCount) {
-            internalMap.put("xesam:useCount", new Variant<>(useCount, "x"));
+            slots[Key.USE_COUNT.ordinal()] = new Variant<>(useCount, "x");
             return this;
         }
 
@@ -224,18 +374,49 @@ public class Metadata {
             if(userRating < 0.0 || userRating > 1.0) {
                 throw new IllegalArgumentException("userRating must be between 0.0f and 1.0f");
             }
-            internalMap.put("xesam:userRating", new Variant<>(userRating, "d"));
+            slots[Key.USER_RATING.ordinal()] = new Variant<>(userRating, "d");
             return this;
         }
 
+        /**
+         * Sets any key, e.g. one not covered by the guidelines. Keys of the guidelines use their fixed slot.
+         * @param value The value or null to remove the key
+         */
+        public Builder set(String key, Variant<?> value) {
+            Key slot = Key.fromName(key);
+            if(slot != null) {
+                slots[slot.ordinal()] = value;
+            }else if(value != null) {
+                custom.put(key, value);
+            }else{
+                custom.remove(key);
+            }
+            return this;
+        }
+
+        /**
+         * Builds an immutable copy, the builder can be changed and built again afterwards
+         */
         public Metadata build() throws IllegalArgumentException {
-            if(!internalMap.containsKey("mpris:trackid")) {
+            if(slots[Key.TRACK_ID.ordinal()] == null) {
                 throw new IllegalArgumentException("mpris:trackid not set");
             }
-            if(!internalMap.containsKey("mpris:length")) {
+            if(slots[Key.LENGTH.ordinal()] == null) {
                 throw new IllegalArgumentException("mpris:length not set");
             }
-            return new Metadata(internalMap);
+            return create();
+        }
+
+        private List<String> copy(List<String> values) {
+            if(pool != null) return pool.intern(values);
+            return Collections.unmodifiableList(new ArrayList<>(values));
+        }
+
+        private Metadata create() {
+            Map<String, Variant<?>> customCopy = custom.isEmpty()
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new LinkedHashMap<>(custom));
+            return new Metadata(slots.clone(), customCopy);
         }
     }
 }
@@ -0,0 +1,96 @@
+package org.mpris;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Deduplicates the strings and string lists of track metadata (artists, album, genres, ...).
+ * <p>Large tracklists repeat the same artist and album values for many tracks. A {@link Metadata.Builder} created
+ * with a pool stores one shared instance per distinct value instead of a copy per track. Entries are held weakly and
+ * disappear once no metadata uses them anymore.</p>
+ * <p>The pool is opt-in and can be shared by all builders of an application.</p>
+ */
+public class MetadataPool {
+    private final WeakHashMap<String, WeakReference<String>> strings = new WeakHashMap<>();
+    private final WeakHashMap<List<String>, WeakReference<List<String>>> lists = new WeakHashMap<>();
+    private long hits;
+    private long misses;
+    private long savedBytes;
+
+    /**
+     * @return The pooled instance equal to the value
+     */
+    public synchronized String intern(String value) {
+        if(value == null) return null;
+        WeakReference<String> reference = strings.get(value);
+        String pooled = reference == null ? null : reference.get();
+        if(pooled != null) {
+            hits++;
+            if(pooled != value) savedBytes += estimateString(value);
+            return pooled;
+        }
+        misses++;
+        strings.put(value, new WeakReference<>(value));
+        return value;
+    }
+
+    /**
+     * @return A pooled unmodifiable list of pooled strings equal to the values
+     */
+    public synchronized List<String> intern(List<String> values) {
+        if(values == null) return null;
+        List<String> candidate = new ArrayList<>(values.size());
+        for(String value : values) {
+            candidate.add(intern(value));
+        }
+        WeakReference<List<String>> reference = lists.get(candidate);
+        List<String> pooled = reference == null ? null : reference.get();
+        if(pooled != null) {
+            hits++;
+            savedBytes += estimateList(candidate);
+            return pooled;
+        }
+        misses++;
+        List<String> unmodifiable = Collections.unmodifiableList(candidate);
+        lists.put(unmodifiable, new WeakReference<>(unmodifiable));
+        return unmodifiable;
+    }
+
+    /**
+     * @return The number of distinct strings and lists which are still in use
+     */
+    public synchronized int size() {
+        return strings.size() + lists.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return The estimated number of bytes which did not have to be kept because an equal value was reused
+     */
+    public synchronized long getSavedBytes() {
+        return savedBytes;
+    }
+
+    public synchronized void clear() {
+        strings.clear();
+        lists.clear();
+    }
+
+    /**
+     * Same estimate as the metadata cache: object headers plus two bytes per character
+     */
+    private static long estimateString(String value) {
+        return 40 + value.length() * 2L;
+    }
+
+    private static long estimateList(List<String> values) {
+        return 32 + values.size() * 8L;
+    }
+}
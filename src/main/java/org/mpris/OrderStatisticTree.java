@@ -0,0 +1,259 @@
+package org.mpris;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sequence backed by an AVL tree whose nodes know the size of their subtree.
+ * <p>Inserting and removing at any position, and finding the position of a node, take O(log n). Nodes are stable
+ * handles: a node keeps its identity until it is removed, so callers can keep them in a hash map.</p>
+ */
+final class OrderStatisticTree<E> {
+    private Node<E> root;
+
+    static final class Node<E> {
+        private final E value;
+        private Node<E> left;
+        private Node<E> right;
+        private Node<E> parent;
+        private int height = 1;
+        private int size = 1;
+
+        private Node(E value) {
+            this.value = value;
+        }
+
+        E getValue() {
+            return value;
+        }
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @param index The position of the new element, between 0 and {@link #size()}
+     * @return The node holding the element
+     */
+    Node<E> insert(int index, E value) {
+        if(index < 0 || index > size()) throw new IndexOutOfBoundsException("Index " + index + ", size " + size());
+        Node<E> node = new Node<>(value);
+        root = insert(root, index, node);
+        root.parent = null;
+        return node;
+    }
+
+    /**
+     * Inserts the value into a sequence sorted by the comparator, after all elements comparing equal
+     * @return The node holding the element
+     */
+    Node<E> insertSorted(E value, Comparator<? super E> comparator) {
+        int index = 0;
+        Node<E> current = root;
+        while(current != null) {
+            if(comparator.compare(value, current.value) < 0) {
+                current = current.left;
+            }else{
+                index += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return insert(index, value);
+    }
+
+    void remove(Node<E> node) {
+        root = removeAt(root, indexOf(node));
+        if(root != null) root.parent = null;
+        node.left = node.right = node.parent = null;
+    }
+
+    /**
+     * @return The position of the node, found by walking up to the root
+     */
+    int indexOf(Node<E> node) {
+        int index = size(node.left);
+        for(Node<E> current = node; current.parent != null; current = current.parent) {
+            if(current == current.parent.right) index += size(current.parent.left) + 1;
+        }
+        return index;
+    }
+
+    E get(int index) {
+        if(index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index " + index + ", size " + size());
+        return nodeAt(index).value;
+    }
+
+    /**
+     * @return Up to count elements starting at index, counted from the end and walking backwards if reverse is
+     * set. Takes O(log n + count).
+     */
+    List<E> range(int index, int count, boolean reverse) {
+        List<E> values = new ArrayList<>();
+        if(index < 0 || index >= size() || count <= 0) return values;
+        Node<E> current = nodeAt(reverse ? size() - 1 - index : index);
+        while(current != null && values.size() < count) {
+            values.add(current.value);
+            current = reverse ? predecessor(current) : successor(current);
+        }
+        return values;
+    }
+
+    private Node<E> nodeAt(int index) {
+        Node<E> current = root;
+        while(true) {
+            int leftSize = size(current.left);
+            if(index < leftSize) {
+                current = current.left;
+            }else if(index == leftSize) {
+                return current;
+            }else{
+                index -= leftSize + 1;
+                current = current.right;
+            }
+        }
+    }
+
+    private static <E> Node<E> successor(Node<E> node) {
+        if(node.right != null) {
+            Node<E> current = node.right;
+            while(current.left != null) current = current.left;
+            return current;
+        }
+        Node<E> current = node;
+        while(current.parent != null && current == current.parent.right) current = current.parent;
+        return current.parent;
+    }
+
+    private static <E> Node<E> predecessor(Node<E> node) {
+        if(node.left != null) {
+            Node<E> current = node.left;
+            while(current.right != null) current = current.right;
+            return current;
+        }
+        Node<E> current = node;
+        while(current.parent != null && current == current.parent.left) current = current.parent;
+        return current.parent;
+    }
+
+    /**
+     * Replaces the content with a perfectly balanced tree in O(n)
+     * @return The nodes of the new elements in order
+     */
+    List<Node<E>> rebuild(List<E> values) {
+        List<Node<E>> nodes = new ArrayList<>(values.size());
+        for(E value : values) {
+            nodes.add(new Node<>(value));
+        }
+        root = build(nodes, 0, nodes.size());
+        if(root != null) root.parent = null;
+        return nodes;
+    }
+
+    List<E> toList() {
+        List<E> values = new ArrayList<>(size());
+        Node<E> current = root;
+        List<Node<E>> stack = new ArrayList<>();
+        while(current != null || !stack.isEmpty()) {
+            while(current != null) {
+                stack.add(current);
+                current = current.left;
+            }
+            current = stack.remove(stack.size() - 1);
+            values.add(current.value);
+            current = current.right;
+        }
+        return values;
+    }
+
+    private static <E> Node<E> build(List<Node<E>> nodes, int from, int to) {
+        if(from >= to) return null;
+        int middle = (from + to) >>> 1;
+        Node<E> node = nodes.get(middle);
+        node.left = build(nodes, from, middle);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private static <E> Node<E> insert(Node<E> subtree, int index, Node<E> node) {
+        if(subtree == null) return node;
+        int leftSize = size(subtree.left);
+        if(index <= leftSize) {
+            subtree.left = insert(subtree.left, index, node);
+        }else{
+            subtree.right = insert(subtree.right, index - leftSize - 1, node);
+        }
+        return balance(subtree);
+    }
+
+    private static <E> Node<E> removeAt(Node<E> subtree, int index) {
+        int leftSize = size(subtree.left);
+        if(index < leftSize) {
+            subtree.left = removeAt(subtree.left, index);
+        }else if(index > leftSize) {
+            subtree.right = removeAt(subtree.right, index - leftSize - 1);
+        }else{
+            if(subtree.left == null) return subtree.right;
+            if(subtree.right == null) return subtree.left;
+            // Move the successor node itself into this place, copying values would break the node handles
+            Node<E> successor = subtree.right;
+            while(successor.left != null) successor = successor.left;
+            successor.right = removeAt(subtree.right, 0);
+            successor.left = subtree.left;
+            return balance(successor);
+        }
+        return balance(subtree);
+    }
+
+    private static <E> Node<E> balance(Node<E> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if(balance > 1) {
+            if(height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if(balance < -1) {
+            if(height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <E> Node<E> rotateRight(Node<E> node) {
+        Node<E> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <E> Node<E> rotateLeft(Node<E> node) {
+        Node<E> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    /**
+     * Recomputes height and size and points the children back to the node
+     */
+    private static <E> void update(Node<E> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+        if(node.left != null) node.left.parent = node;
+        if(node.right != null) node.right.parent = node;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,70 @@
+package org.mpris;
+
+/**
+ * Immutable anchor from which the current playback position is extrapolated.
+ * <p>Stores the position at the last discontinuity (seek, play/pause, rate change) together with the rate and a
+ * {@link System#nanoTime()} timestamp. While playing the position advances by {@code elapsed * rate}, so the
+ * application only has to report discontinuities instead of pushing the position periodically.</p>
+ */
+final class PlaybackClock {
+    private final long positionUs;
+    private final double rate;
+    private final boolean playing;
+    private final long timestampNanos;
+
+    private PlaybackClock(long positionUs, double rate, boolean playing, long timestampNanos) {
+        this.positionUs = Math.max(0, positionUs);
+        this.rate = rate;
+        this.playing = playing;
+        this.timestampNanos = timestampNanos;
+    }
+
+    static PlaybackClock of(long positionUs, double rate, boolean playing) {
+        return new PlaybackClock(positionUs, rate, playing, System.nanoTime());
+    }
+
+    /**
+     * @param lengthUs The length of the current track in microseconds, or a value &lt;= 0 if unknown
+     * @return The extrapolated position in microseconds, clamped to the track length
+     */
+    long position(long lengthUs) {
+        return positionAt(System.nanoTime(), lengthUs);
+    }
+
+    long positionAt(long nowNanos, long lengthUs) {
+        long position = positionUs;
+        if(playing) {
+            position += (long) ((nowNanos - timestampNanos) / 1000L * rate);
+        }
+        if(position < 0) return 0;
+        if(lengthUs > 0 && position > lengthUs) return lengthUs;
+        return position;
+    }
+
+    boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * @return A clock anchored at the new position (seek)
+     */
+    PlaybackClock withPosition(long positionUs) {
+        return new PlaybackClock(positionUs, rate, playing, System.nanoTime());
+    }
+
+    /**
+     * @return A clock anchored at the current position which advances with the new rate
+     */
+    PlaybackClock withRate(double rate, long lengthUs) {
+        long now = System.nanoTime();
+        return new PlaybackClock(positionAt(now, lengthUs), rate, playing, now);
+    }
+
+    /**
+     * @return A clock anchored at the current position which is either running or frozen
+     */
+    PlaybackClock withPlaying(boolean playing, long lengthUs) {
+        long now = System.nanoTime();
+        return new PlaybackClock(positionAt(now, lengthUs), rate, playing, now);
+    }
+}
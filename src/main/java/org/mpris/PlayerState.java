@@ -0,0 +1,120 @@
+package org.mpris;
+
+import org.freedesktop.dbus.types.Variant;
+import org.mpris.mpris.LoopStatus;
+import org.mpris.mpris.PlaybackStatus;
+
+import java.util.List;
+
+/**
+ * Value of every MediaPlayer2 and Player property of a player at one point in time, together with the
+ * {@link PropertySnapshot} served by Get and GetAll and the {@link PlaybackClock}.
+ * <p>{@link MPRISMP2Base} holds the current state in an {@link java.util.concurrent.atomic.AtomicReference}.
+ * Readers load it once and see all values of the same version. Writers {@link #copy()} it, change the copy and
+ * swap it in with compareAndSet, retrying on a concurrent write. A state is never modified after it has been
+ * published.</p>
+ */
+final class PlayerState {
+    boolean canQuit;
+    boolean fullscreen;
+    boolean canSetFullscreen;
+    boolean canRaise;
+    boolean hasTracklist;
+    String identity;
+    String desktopEntry;
+    List<String> supportedUriSchemes;
+    List<String> supportedMimeTypes;
+    PlaybackStatus playbackStatus;
+    LoopStatus loopStatus;
+    double rate;
+    boolean shuffle;
+    Metadata metadata;
+    double volume;
+    PlaybackClock clock;
+    double minimumRate;
+    double maximumRate;
+    boolean canGoNext;
+    boolean canGoPrevious;
+    boolean canPlay;
+    boolean canPause;
+    boolean canSeek;
+    boolean canControl;
+    PropertySnapshot properties;
+
+    PlayerState() {
+    }
+
+    private PlayerState(PlayerState state) {
+        this.canQuit = state.canQuit;
+        this.fullscreen = state.fullscreen;
+        this.canSetFullscreen = state.canSetFullscreen;
+        this.canRaise = state.canRaise;
+        this.hasTracklist = state.hasTracklist;
+        this.identity = state.identity;
+        this.desktopEntry = state.desktopEntry;
+        this.supportedUriSchemes = state.supportedUriSchemes;
+        this.supportedMimeTypes = state.supportedMimeTypes;
+        this.playbackStatus = state.playbackStatus;
+        this.loopStatus = state.loopStatus;
+        this.rate = state.rate;
+        this.shuffle = state.shuffle;
+        this.metadata = state.metadata;
+        this.volume = state.volume;
+        this.clock = state.clock;
+        this.minimumRate = state.minimumRate;
+        this.maximumRate = state.maximumRate;
+        this.canGoNext = state.canGoNext;
+        this.canGoPrevious = state.canGoPrevious;
+        this.canPlay = state.canPlay;
+        this.canPause = state.canPause;
+        this.canSeek = state.canSeek;
+        this.canControl = state.canControl;
+        this.properties = state.properties;
+    }
+
+    /**
+     * @return An unpublished copy to apply a change to
+     */
+    PlayerState copy() {
+        return new PlayerState(this);
+    }
+
+    /**
+     * Replaces a single property in the snapshot of this copy
+     */
+    void put(MPRISObjectPaths objectPath, String propName, Variant<?> value) {
+        properties = properties.with(objectPath, propName, value);
+    }
+
+    /**
+     * Re-anchors the position after a discontinuity. The position is not part of PropertiesChanged,
+     * clients either read it or listen for Seeked.
+     */
+    void anchor(PlaybackClock clock) {
+        this.clock = clock;
+        put(MPRISObjectPaths.PLAYER, "Position", positionVariant());
+    }
+
+    /**
+     * @return The mpris:length of the current track in microseconds or 0 if it is unknown
+     */
+    long getLength() {
+        return metadata.getLength();
+    }
+
+    long position() {
+        return clock.position(getLength());
+    }
+
+    Variant<Long> positionVariant() {
+        return new Variant<>(position(), "x");
+    }
+
+    /**
+     * A change to apply to an unpublished copy. It may run more than once when writers race, so it must not
+     * have side effects besides modifying the copy.
+     */
+    interface Change {
+        void apply(PlayerState next);
+    }
+}
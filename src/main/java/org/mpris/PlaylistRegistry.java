@@ -0,0 +1,211 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.jetbrains.annotations.NotNull;
+import org.mpris.mpris.PlaylistOrdering;
+import org.mpris.mpris.Playlists;
+
+import java.util.*;
+
+/**
+ * Built-in store for the playlists of a player, answering Playlists.GetPlaylists without a callback.
+ * <p>The registry keeps one sorted index per offered {@link PlaylistOrdering}, so a page of k playlists takes
+ * O(log n + k) in either direction and adding, updating or removing a playlist takes O(log n) per ordering.
+ * Pass it to {@link MPRISMediaPlayer.PlaylistsBuilder#setRegistry(PlaylistRegistry)}; the player then publishes
+ * PlaylistCount on every change and offers exactly the orderings of the registry.</p>
+ * <p>Dates are in milliseconds since the epoch, the date orderings put the oldest playlist first. The user
+ * defined ordering is the order in which playlists were first added.</p>
+ */
+public class PlaylistRegistry {
+    private final EnumMap<PlaylistOrdering, OrderStatisticTree<Entry>> indexes = new EnumMap<>(PlaylistOrdering.class);
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final List<PlaylistOrdering> orderings;
+    private long sequence;
+    private Listener listener;
+
+    /**
+     * Called with the new number of playlists after it changed
+     */
+    interface Listener {
+        void countChanged(int count) throws DBusException;
+    }
+
+    private static final class Entry {
+        private final Playlists.Playlist playlist;
+        private final long created;
+        private final long modified;
+        private final long lastPlayed;
+        private final long sequence;
+        private final EnumMap<PlaylistOrdering, OrderStatisticTree.Node<Entry>> nodes = new EnumMap<>(PlaylistOrdering.class);
+
+        private Entry(Playlists.Playlist playlist, long created, long modified, long lastPlayed, long sequence) {
+            this.playlist = playlist;
+            this.created = created;
+            this.modified = modified;
+            this.lastPlayed = lastPlayed;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Offers all orderings
+     */
+    public PlaylistRegistry() {
+        this(PlaylistOrdering.values());
+    }
+
+    /**
+     * @param orderings The orderings to offer, an index is kept for each of them
+     */
+    public PlaylistRegistry(@NotNull PlaylistOrdering... orderings) {
+        if(orderings.length == 0) throw new IllegalArgumentException("At least one ordering must be offered");
+        for(PlaylistOrdering ordering : orderings) {
+            indexes.put(ordering, new OrderStatisticTree<>());
+        }
+        this.orderings = Collections.unmodifiableList(new ArrayList<>(indexes.keySet()));
+    }
+
+    /**
+     * Adds the playlist without dates, or replaces the name and icon of the playlist with the same id
+     */
+    public synchronized void put(@NotNull Playlists.Playlist playlist) throws DBusException {
+        Entry existing = entries.get(playlist.getId().getPath());
+        if(existing == null) {
+            put(playlist, 0, 0, 0);
+        }else{
+            put(playlist, existing.created, existing.modified, existing.lastPlayed);
+        }
+    }
+
+    /**
+     * Adds the playlist or replaces the playlist with the same id, which keeps its user defined position
+     */
+    public synchronized void put(@NotNull Playlists.Playlist playlist, long created, long modified, long lastPlayed) throws DBusException {
+        Entry existing = entries.remove(playlist.getId().getPath());
+        if(existing != null) unindex(existing);
+        Entry entry = new Entry(playlist, created, modified, lastPlayed, existing != null ? existing.sequence : sequence++);
+        entries.put(playlist.getId().getPath(), entry);
+        index(entry);
+        if(existing == null) countChanged();
+    }
+
+    /**
+     * @return false if no playlist has the id
+     */
+    public synchronized boolean remove(@NotNull DBusPath playlistId) throws DBusException {
+        Entry entry = entries.remove(playlistId.getPath());
+        if(entry == null) return false;
+        unindex(entry);
+        countChanged();
+        return true;
+    }
+
+    /**
+     * Moves the playlist to its new position in the last played ordering
+     * @return false if no playlist has the id
+     */
+    public synchronized boolean markPlayed(@NotNull DBusPath playlistId, long lastPlayed) {
+        Entry entry = entries.get(playlistId.getPath());
+        if(entry == null) return false;
+        unindex(entry);
+        Entry played = new Entry(entry.playlist, entry.created, entry.modified, lastPlayed, entry.sequence);
+        entries.put(playlistId.getPath(), played);
+        index(played);
+        return true;
+    }
+
+    public synchronized void clear() throws DBusException {
+        if(entries.isEmpty()) return;
+        entries.clear();
+        for(PlaylistOrdering ordering : orderings) {
+            indexes.put(ordering, new OrderStatisticTree<>());
+        }
+        countChanged();
+    }
+
+    /**
+     * @return The playlist or null if no playlist has the id
+     */
+    public synchronized Playlists.Playlist get(@NotNull DBusPath playlistId) {
+        Entry entry = entries.get(playlistId.getPath());
+        return entry == null ? null : entry.playlist;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The orderings this registry keeps an index for
+     */
+    public List<PlaylistOrdering> getOrderings() {
+        return orderings;
+    }
+
+    /**
+     * Answers GetPlaylists
+     * @param index The position of the first playlist in the (reversed) ordering
+     * @param maxCount The maximum number of playlists
+     * @param ordering One of {@link #getOrderings()}
+     */
+    public synchronized List<Playlists.Playlist> getPlaylists(int index, int maxCount, @NotNull PlaylistOrdering ordering, boolean reverseOrder) {
+        OrderStatisticTree<Entry> tree = indexes.get(ordering);
+        if(tree == null) throw new IllegalArgumentException("Ordering " + ordering + " is not offered");
+        List<Playlists.Playlist> playlists = new ArrayList<>();
+        for(Entry entry : tree.range(index, maxCount, reverseOrder)) {
+            playlists.add(entry.playlist);
+        }
+        return playlists;
+    }
+
+    synchronized void setListener(Listener listener) {
+        if(this.listener != null && listener != null) throw new IllegalStateException("Registry is already used by a player");
+        this.listener = listener;
+    }
+
+    /**
+     * Runs under the lock so PlaylistCount is published in the order of the changes
+     */
+    private void countChanged() throws DBusException {
+        if(listener != null) listener.countChanged(entries.size());
+    }
+
+    private void index(Entry entry) {
+        for(Map.Entry<PlaylistOrdering, OrderStatisticTree<Entry>> index : indexes.entrySet()) {
+            entry.nodes.put(index.getKey(), index.getValue().insertSorted(entry, comparator(index.getKey())));
+        }
+    }
+
+    private void unindex(Entry entry) {
+        for(Map.Entry<PlaylistOrdering, OrderStatisticTree.Node<Entry>> node : entry.nodes.entrySet()) {
+            indexes.get(node.getKey()).remove(node.getValue());
+        }
+        entry.nodes.clear();
+    }
+
+    private static final Comparator<Entry> BY_NAME = Comparator
+            .comparing((Entry entry) -> entry.playlist.getName(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(entry -> entry.playlist.getName())
+            .thenComparingLong(entry -> entry.sequence);
+    private static final Comparator<Entry> BY_CREATED = Comparator
+            .comparingLong((Entry entry) -> entry.created)
+            .thenComparingLong(entry -> entry.sequence);
+    private static final Comparator<Entry> BY_MODIFIED = Comparator
+            .comparingLong((Entry entry) -> entry.modified)
+            .thenComparingLong(entry -> entry.sequence);
+    private static final Comparator<Entry> BY_PLAYED = Comparator
+            .comparingLong((Entry entry) -> entry.lastPlayed)
+            .thenComparingLong(entry -> entry.sequence);
+    private static final Comparator<Entry> BY_SEQUENCE = Comparator.comparingLong(entry -> entry.sequence);
+
+    private static Comparator<Entry> comparator(PlaylistOrdering ordering) {
+        switch(ordering) {
+            case Alphabetical: return BY_NAME;
+            case CreationData: return BY_CREATED;
+            case ModifiedDate: return BY_MODIFIED;
+            case LastPlayDate: return BY_PLAYED;
+            default: return BY_SEQUENCE;
+        }
+    }
+}
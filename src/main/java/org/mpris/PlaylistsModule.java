@@ -0,0 +1,135 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.types.Variant;
+import org.mpris.mpris.PlaylistOrdering;
+import org.mpris.mpris.Playlists;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements org.mpris.MediaPlayer2.Playlists for {@link MPRISMP2All} and {@link MPRISMP2WPL}
+ */
+final class PlaylistsModule extends MPRISModule {
+    private volatile int playlistsCount;
+    private volatile List<PlaylistOrdering> orderings;
+    private volatile Playlists.Maybe_Playlist activePlaylist;
+    private final TypeRunnable<DBusPath> onActivatePlaylist;
+    private final ReturnableTypeRunnable<List<Playlists.Playlist>, List<Object>> onGetPlaylists;
+    private final TypeRunnable<Playlists.PlaylistChanged> onSignalPlaylistChanged;
+    private final PlaylistRegistry registry;
+
+    PlaylistsModule(MPRISMediaPlayer.PlaylistsBuilder playlistsBuilder) {
+        this.playlistsCount = playlistsBuilder.playlistsCount;
+        this.orderings = playlistsBuilder.orderings;
+        this.activePlaylist = playlistsBuilder.activePlaylist;
+        this.onActivatePlaylist = playlistsBuilder.onActivatePlaylist;
+        this.onGetPlaylists  = playlistsBuilder.onGetPlaylists;
+        this.onSignalPlaylistChanged = playlistsBuilder.onSignalPlaylistChanged;
+        this.registry = playlistsBuilder.registry;
+    }
+
+    @Override
+    void attach(MPRISMP2Base owner) {
+        super.attach(owner);
+        if(registry != null) registry.setListener(this::setPlaylistCount);
+    }
+
+    @Override
+    MPRISObjectPaths getInterface() {
+        return MPRISObjectPaths.PLAYLISTS;
+    }
+
+    @Override
+    void putProperties(PropertySnapshot.Builder snapshot) {
+        snapshot.put(MPRISObjectPaths.PLAYLISTS, "PlaylistCount", new Variant<>(playlistsCount, "u"))
+                .put(MPRISObjectPaths.PLAYLISTS, "Orderings", new Variant<>(orderingsAsStrings(orderings), "as"))
+                .put(MPRISObjectPaths.PLAYLISTS, "ActivePlaylist", new Variant<>(activePlaylist, "(b(oss))"));
+    }
+
+    private static List<String> orderingsAsStrings(List<PlaylistOrdering> orderings) {
+        List<String> stringOrderings = new ArrayList<>();
+        for(PlaylistOrdering ordering : orderings) {
+            stringOrderings.add(ordering.GetAsString());
+        }
+        return stringOrderings;
+    }
+
+    int getPlaylistCount() {
+        return playlistsCount;
+    }
+
+    void setPlaylistCount(int playlistsCount) throws DBusException, IllegalArgumentException {
+        if(playlistsCount < 0) throw new IllegalArgumentException("PlaylistsCount is less than 0");
+        if(registry != null && playlistsCount != registry.size()) {
+            throw new IllegalStateException("PlaylistCount is kept in sync with the registry");
+        }
+        this.playlistsCount = playlistsCount;
+        update("PlaylistCount", new Variant<>(playlistsCount, "u"));
+    }
+
+    List<PlaylistOrdering> getPlaylistOrderings() {
+        return orderings;
+    }
+
+    void setPlaylistOrderings(List<PlaylistOrdering> orderings) throws DBusException {
+        if(orderings.isEmpty()) {
+            throw new IllegalArgumentException("At least one ordering must be offered");
+        }
+        if(registry != null && !registry.getOrderings().containsAll(orderings)) {
+            throw new IllegalArgumentException("The registry keeps no index for some of the orderings");
+        }
+        this.orderings = orderings;
+        update("Orderings", new Variant<>(orderingsAsStrings(orderings), "as"));
+    }
+
+    Playlists.Maybe_Playlist getActivePlaylist() {
+        return activePlaylist;
+    }
+
+    void setActivePlaylist(Playlists.Maybe_Playlist maybePlaylist) throws DBusException {
+        this.activePlaylist = maybePlaylist;
+        update("ActivePlaylist", new Variant<>(maybePlaylist, "(b(oss))"));
+    }
+
+    void activatePlaylist(DBusPath playlistId) {
+        methodCalled("ActivatePlaylist");
+        dispatch("onActivatePlaylist", () -> onActivatePlaylist.run(playlistId));
+    }
+
+    List<Playlists.Playlist> getPlaylists(int index, int maxCount, String order, boolean reverseOrder) {
+        methodCalled("GetPlaylists");
+        if(registry != null) {
+            PlaylistOrdering ordering = PlaylistOrdering.fromString(order);
+            if(ordering == null || !orderings.contains(ordering)) ordering = orderings.get(0);
+            return registry.getPlaylists(index, maxCount, ordering, reverseOrder);
+        }
+        return getOwner().call("onGetPlaylists", onGetPlaylists, Arrays.asList(index, maxCount, order, reverseOrder));
+    }
+
+    @Override
+    void init(DBusConnection connection) throws DBusException {
+        connection.addSigHandler(Playlists.PlaylistChanged.class, new DBusSigHandler<Playlists.PlaylistChanged>() {
+            @Override
+            public void handle(Playlists.PlaylistChanged signal) {
+                getOwner().getMetrics().signalReceived("PlaylistChanged");
+                activePlaylist = new Playlists.Maybe_Playlist(
+                        true,
+                        signal.getPlaylist()
+                );
+                publish("ActivePlaylist", new Variant<>(activePlaylist, "(b(oss))"));
+                getOwner().call("onSignalPlaylistChanged", onSignalPlaylistChanged, signal);
+            }
+        });
+    }
+
+    @Override
+    void dispatch(String callbackName, Runnable handler) {
+        getOwner().getCallbackDispatcher().dispatch(CallbackDispatcher.Category.PLAYLISTS, callbackName, handler);
+    }
+}
@@ -0,0 +1,251 @@
+package org.mpris;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.types.Variant;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches property changes into as few {@link Properties.PropertiesChanged} signals as possible.
+ * <p>Changes made within the flush window, or inside a {@link #transaction(Transaction)}, are merged into one signal
+ * per interface. When the same property changes several times before a flush only the last value is sent.
+ * A flush window of 0 sends every change immediately unless a transaction is open.</p>
+ * <p>Properties whose value is too large to resend (e.g. Tracks) can be {@link #invalidate invalidated} instead,
+ * clients then read the new value when they need it.</p>
+ */
+public class PropertiesChangedEmitter {
+    private final DBusConnection connection;
+    private final String objectPath;
+    private final long flushWindowMillis;
+    private final MPRISMetrics metrics;
+    private final Map<MPRISObjectPaths, Map<String, Variant<?>>> pending = new EnumMap<>(MPRISObjectPaths.class);
+    private final Map<MPRISObjectPaths, Set<String>> pendingInvalidated = new EnumMap<>(MPRISObjectPaths.class);
+    private int transactionDepth;
+    private ScheduledFuture<?> scheduledFlush;
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong signalsSent = new AtomicLong();
+    private final AtomicLong propertiesSent = new AtomicLong();
+    private final AtomicLong propertiesCoalesced = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    /**
+     * A block of property changes which should be emitted together
+     */
+    public interface Transaction {
+        void run() throws DBusException;
+    }
+
+    /**
+     * @param connection The connection the signals are sent on
+     * @param objectPath The object path the signals are emitted from
+     * @param flushWindowMillis How long changes are collected before they are sent (0 = immediately)
+     * @param metrics Receives every sent signal
+     */
+    PropertiesChangedEmitter(DBusConnection connection, String objectPath, long flushWindowMillis, MPRISMetrics metrics) {
+        if(flushWindowMillis < 0) throw new IllegalArgumentException("Flush window is less than 0");
+        this.connection = connection;
+        this.objectPath = objectPath;
+        this.flushWindowMillis = flushWindowMillis;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queues a changed property. Depending on the flush window and open transactions the signal is sent
+     * immediately or merged with other changes of the same interface.
+     */
+    public void emit(String propName, Variant<?> value, MPRISObjectPaths objectPaths) throws DBusException {
+        synchronized (pending) {
+            if(canSendImmediately()) {
+                send(objectPaths, Collections.singletonMap(propName, value), Collections.emptySet());
+                flushes.incrementAndGet();
+                return;
+            }
+            Set<String> invalidated = pendingInvalidated.get(objectPaths);
+            if(invalidated != null && invalidated.remove(propName)) propertiesCoalesced.incrementAndGet();
+            Map<String, Variant<?>> changedProps = pending.computeIfAbsent(objectPaths, k -> new LinkedHashMap<>());
+            if(changedProps.put(propName, value) != null) propertiesCoalesced.incrementAndGet();
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Applies the change and queues the property under one lock, so changes of a property are queued in the order
+     * they were applied and the last signal carries the last published value
+     */
+    void emit(String propName, Variant<?> value, MPRISObjectPaths objectPaths, Runnable apply) throws DBusException {
+        synchronized (pending) {
+            apply.run();
+            emit(propName, value, objectPaths);
+        }
+    }
+
+    /**
+     * Queues a property which changed without sending its value. It is listed in the invalidated properties of
+     * the signal and clients have to Get it again.
+     */
+    public void invalidate(String propName, MPRISObjectPaths objectPaths) throws DBusException {
+        synchronized (pending) {
+            if(canSendImmediately()) {
+                send(objectPaths, Collections.emptyMap(), Collections.singleton(propName));
+                flushes.incrementAndGet();
+                return;
+            }
+            Map<String, Variant<?>> changedProps = pending.get(objectPaths);
+            if(changedProps != null && changedProps.remove(propName) != null) propertiesCoalesced.incrementAndGet();
+            Set<String> invalidated = pendingInvalidated.computeIfAbsent(objectPaths, k -> new LinkedHashSet<>());
+            if(!invalidated.add(propName)) propertiesCoalesced.incrementAndGet();
+            scheduleFlush();
+        }
+    }
+
+    private boolean canSendImmediately() {
+        return transactionDepth == 0 && flushWindowMillis == 0 && pending.isEmpty() && pendingInvalidated.isEmpty();
+    }
+
+    private void scheduleFlush() {
+        if(transactionDepth == 0 && scheduledFlush == null) {
+            scheduledFlush = Scheduler.INSTANCE.schedule(this::flushQuietly, flushWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs the block and emits all changes it made as one signal per interface.
+     * <p>Changes made before the block failed are still sent, they are already visible to readers. A failure to
+     * send them is then added to the failure of the block as suppressed.</p>
+     */
+    public void transaction(@NotNull Transaction transaction) throws DBusException {
+        beginTransaction();
+        try {
+            transaction.run();
+        } catch (Throwable failure) {
+            try {
+                commitTransaction();
+            } catch (DBusException | RuntimeException flushFailure) {
+                failure.addSuppressed(flushFailure);
+            }
+            throw failure;
+        }
+        commitTransaction();
+    }
+
+    /**
+     * Starts collecting changes until the matching {@link #commitTransaction()}. Transactions can be nested.
+     */
+    public void beginTransaction() {
+        synchronized (pending) {
+            transactionDepth++;
+        }
+    }
+
+    /**
+     * Ends a transaction. When the outermost transaction ends all collected changes are sent.
+     */
+    public void commitTransaction() throws DBusException {
+        synchronized (pending) {
+            if(transactionDepth == 0) throw new IllegalStateException("No transaction is open");
+            transactionDepth--;
+            if(transactionDepth == 0) flush();
+        }
+    }
+
+    /**
+     * Sends all pending changes now
+     */
+    public void flush() throws DBusException {
+        synchronized (pending) {
+            if(scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            if(pending.isEmpty() && pendingInvalidated.isEmpty()) return;
+            try {
+                for(MPRISObjectPaths objectPaths : MPRISObjectPaths.values()) {
+                    Map<String, Variant<?>> changedProps = pending.getOrDefault(objectPaths, Collections.emptyMap());
+                    Set<String> invalidated = pendingInvalidated.getOrDefault(objectPaths, Collections.emptySet());
+                    if(changedProps.isEmpty() && invalidated.isEmpty()) continue;
+                    send(objectPaths, changedProps, invalidated);
+                }
+            } finally {
+                pending.clear();
+                pendingInvalidated.clear();
+            }
+            flushes.incrementAndGet();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DBusException e) {
+            failedFlushes.incrementAndGet();
+        }
+    }
+
+    private void send(MPRISObjectPaths objectPaths, Map<String, Variant<?>> changedProps, Set<String> invalidated) throws DBusException {
+        Properties.PropertiesChanged changed = new Properties.PropertiesChanged(
+                objectPath,
+                objectPaths.getPath(),
+                changedProps,
+                new ArrayList<>(invalidated)
+        );
+        connection.sendMessage(changed);
+        metrics.signalEmitted("PropertiesChanged");
+        signalsSent.incrementAndGet();
+        propertiesSent.addAndGet(changedProps.size() + invalidated.size());
+    }
+
+    public long getFlushWindowMillis() {
+        return flushWindowMillis;
+    }
+
+    /**
+     * @return How often pending changes have been sent
+     */
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    /**
+     * @return The number of PropertiesChanged signals sent
+     */
+    public long getSignalsSent() {
+        return signalsSent.get();
+    }
+
+    /**
+     * @return The number of changed and invalidated properties carried by all sent signals
+     */
+    public long getPropertiesSent() {
+        return propertiesSent.get();
+    }
+
+    /**
+     * @return The number of changes that were replaced by a newer value or invalidation before being sent
+     */
+    public long getPropertiesCoalesced() {
+        return propertiesCoalesced.get();
+    }
+
+    /**
+     * @return The number of delayed flushes that failed to build a signal
+     */
+    public long getFailedFlushes() {
+        return failedFlushes.get();
+    }
+
+    private static final class Scheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mpris-properties-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
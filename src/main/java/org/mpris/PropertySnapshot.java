@@ -0,0 +1,115 @@
+package org.mpris;
+
+import org.freedesktop.dbus.types.Variant;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of every exported property, grouped by interface and pre-wrapped in {@link Variant}s.
+ * <p>Readers ({@code Get}/{@code GetAll}) only load the current instance and never allocate. Get reads a slot of
+ * the {@link MPRISProperties} index, GetAll returns the prebuilt map of the interface.
+ * Writers derive a new instance with {@link #with(MPRISObjectPaths, String, Variant)}, which copies only the
+ * interface that changed.</p>
+ */
+final class PropertySnapshot {
+    private static final MPRISObjectPaths[] INTERFACES = MPRISObjectPaths.values();
+
+    private final Variant<?>[][] values;
+    private final Map<String, Variant<?>>[] properties;
+    private final long version;
+
+    private PropertySnapshot(Variant<?>[][] values, Map<String, Variant<?>>[] properties, long version) {
+        this.values = values;
+        this.properties = properties;
+        this.version = version;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The version of this snapshot, incremented on every change
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param index The {@link MPRISProperties} index of the property
+     * @return The property value or null if the interface is not exported
+     */
+    Variant<?> get(MPRISObjectPaths objectPath, int index) {
+        return values[objectPath.ordinal()][index];
+    }
+
+    /**
+     * @return An unmodifiable map of all properties of the interface (empty if the interface is not exported)
+     */
+    Map<String, Variant<?>> getAll(MPRISObjectPaths objectPath) {
+        return properties[objectPath.ordinal()];
+    }
+
+    /**
+     * @return true if the interface has properties in this snapshot
+     */
+    boolean isExported(MPRISObjectPaths objectPath) {
+        return !properties[objectPath.ordinal()].isEmpty();
+    }
+
+    /**
+     * Derives a new snapshot where a single property has been replaced.
+     * Only the slots and the map of the affected interface are copied, all others are shared.
+     */
+    PropertySnapshot with(MPRISObjectPaths objectPath, String propertyName, Variant<?> value) {
+        int index = indexOf(objectPath, propertyName);
+        Variant<?>[][] valuesCopy = values.clone();
+        valuesCopy[objectPath.ordinal()] = values[objectPath.ordinal()].clone();
+        valuesCopy[objectPath.ordinal()][index] = value;
+        Map<String, Variant<?>>[] copy = properties.clone();
+        Map<String, Variant<?>> changed = new LinkedHashMap<>(properties[objectPath.ordinal()]);
+        changed.put(propertyName, value);
+        copy[objectPath.ordinal()] = Collections.unmodifiableMap(changed);
+        return new PropertySnapshot(valuesCopy, copy, version + 1);
+    }
+
+    private static int indexOf(MPRISObjectPaths objectPath, String propertyName) {
+        int index = MPRISProperties.index(objectPath, propertyName);
+        if(index < 0) throw new IllegalArgumentException(objectPath.getPath() + " has no property " + propertyName);
+        return index;
+    }
+
+    static class Builder {
+        private final Map<MPRISObjectPaths, Map<String, Variant<?>>> properties = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        Builder put(MPRISObjectPaths objectPath, String propertyName, Variant<?> value) {
+            indexOf(objectPath, propertyName);
+            properties.computeIfAbsent(objectPath, k -> new LinkedHashMap<>()).put(propertyName, value);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        PropertySnapshot build() {
+            Variant<?>[][] values = new Variant<?>[INTERFACES.length][];
+            Map<String, Variant<?>>[] built = new Map[INTERFACES.length];
+            for(MPRISObjectPaths objectPath : INTERFACES) {
+                values[objectPath.ordinal()] = new Variant<?>[MPRISProperties.count(objectPath)];
+                Map<String, Variant<?>> interfaceProperties = properties.get(objectPath);
+                if(interfaceProperties == null) {
+                    built[objectPath.ordinal()] = Collections.emptyMap();
+                    continue;
+                }
+                for(Map.Entry<String, Variant<?>> entry : interfaceProperties.entrySet()) {
+                    values[objectPath.ordinal()][MPRISProperties.index(objectPath, entry.getKey())] = entry.getValue();
+                }
+                built[objectPath.ordinal()] = Collections.unmodifiableMap(new LinkedHashMap<>(interfaceProperties));
+            }
+            return new PropertySnapshot(values, built, 0);
+        }
+    }
+}
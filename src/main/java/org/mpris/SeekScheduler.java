@@ -0,0 +1,151 @@
+package org.mpris;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.mpris.mpris.Player;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends {@link Player.Seeked} when the position jumps, at most at a configured rate.
+ * <p>A position which differs from the extrapolated one by less than {@link #DISCONTINUITY_US} is not a jump and
+ * sends nothing, so players may report their position as often as they like. The first jump is sent immediately
+ * (leading edge). Jumps within the minimum interval after it, e.g. while the user drags a slider, are merged into
+ * one signal sent when the interval ends (trailing edge). Every signal carries the absolute position at the time it
+ * is sent.</p>
+ */
+public class SeekScheduler {
+    /**
+     * The smallest difference between the reported and the extrapolated position, in microseconds, which counts as
+     * a jump
+     */
+    public static final long DISCONTINUITY_US = 250_000;
+
+    private final DBusConnection connection;
+    private final String objectPath;
+    private final long minIntervalNanos;
+    private final LongSupplier position;
+    private final MPRISMetrics metrics;
+    private final Object lock = new Object();
+    private long lastSentNanos;
+    private boolean sentBefore;
+    private int pendingJumps;
+    private ScheduledFuture<?> trailing;
+    private final AtomicLong signalsSent = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong ignored = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * @param maxRate The maximum number of Seeked signals per second, {@link Double#POSITIVE_INFINITY} to send
+     *                every jump
+     * @param position Supplies the current absolute position in microseconds
+     */
+    SeekScheduler(DBusConnection connection, String objectPath, double maxRate, LongSupplier position, MPRISMetrics metrics) {
+        if(!(maxRate > 0)) throw new IllegalArgumentException("Maximum Seeked rate must be greater than 0");
+        this.connection = connection;
+        this.objectPath = objectPath;
+        this.minIntervalNanos = Double.isInfinite(maxRate) ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / maxRate);
+        this.position = position;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reports that the position was set
+     * @param expected The position extrapolated before it was set, in microseconds
+     * @param actual The position it was set to, in microseconds
+     */
+    void positionSet(long expected, long actual) {
+        if(Math.abs(actual - expected) < DISCONTINUITY_US) {
+            ignored.incrementAndGet();
+            return;
+        }
+        synchronized (lock) {
+            long now = System.nanoTime();
+            if(trailing != null) {
+                pendingJumps++;
+                return;
+            }
+            long wait = sentBefore ? lastSentNanos + minIntervalNanos - now : 0;
+            if(wait <= 0) {
+                sendQuietly(now);
+                return;
+            }
+            pendingJumps = 1;
+            trailing = Timer.INSTANCE.schedule(this::sendTrailing, wait, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void sendTrailing() {
+        synchronized (lock) {
+            suppressed.addAndGet(pendingJumps - 1);
+            pendingJumps = 0;
+            trailing = null;
+            sendQuietly(System.nanoTime());
+        }
+    }
+
+    private void sendQuietly(long now) {
+        try {
+            send(now);
+        } catch (DBusException e) {
+            failed.incrementAndGet();
+        }
+    }
+
+    private void send(long now) throws DBusException {
+        lastSentNanos = now;
+        sentBefore = true;
+        connection.sendMessage(new Player.Seeked(objectPath, position.getAsLong()));
+        metrics.signalEmitted("Seeked");
+        signalsSent.incrementAndGet();
+    }
+
+    /**
+     * @return The minimum time between two Seeked signals in nanoseconds
+     */
+    public long getMinIntervalNanos() {
+        return minIntervalNanos;
+    }
+
+    /**
+     * @return The number of Seeked signals sent
+     */
+    public long getSignalsSent() {
+        return signalsSent.get();
+    }
+
+    /**
+     * @return The number of jumps merged into a later signal because they came too fast
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    /**
+     * @return The number of reported positions which were close enough to the extrapolated one to not be a jump
+     */
+    public long getIgnoredCount() {
+        return ignored.get();
+    }
+
+    /**
+     * @return The number of signals that failed to build
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    private static final class Timer {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mpris-seeked");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,564 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.jetbrains.annotations.NotNull;
+import org.mpris.mpris.LoopStatus;
+import org.mpris.mpris.PlaybackStatus;
+import org.mpris.mpris.Playlists;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of a player's state in a memory-mapped file, so a restarted player can be put on the bus
+ * with its last metadata, tracklist, active playlist, position, rate and volume before the application has loaded
+ * its library.
+ * <p>The file holds two slots. A write fills the slot which does not hold the newest snapshot and stamps it with a
+ * higher sequence number last, so a crash in the middle of a write leaves the previous snapshot readable. Every
+ * slot carries a CRC32 of its data; {@link #read()} takes the valid slot with the highest sequence number. The
+ * slots grow when a snapshot does not fit, growing is the only write which may lose the previous snapshot.</p>
+ * <p>Metadata values of the types s, o, b, i, u, x, d and as are stored, other values are left out. Only the
+ * metadata of tracks in the {@link TrackMetadataCache} is stored with the tracklist.</p>
+ * @see MPRISMediaPlayer#restoreState(StateFile)
+ * @see MPRISMediaPlayer#persistState(StateFile, long)
+ */
+public class StateFile implements Closeable {
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+    private static final int MAGIC = 0x4D505253;
+    private static final int FORMAT_VERSION = 1;
+    /**
+     * magic, format version, slot size
+     */
+    private static final int HEADER_SIZE = 16;
+    /**
+     * sequence, data length, CRC32 of the data
+     */
+    private static final int SLOT_HEADER_SIZE = 16;
+    private static final int MIN_SLOT_SIZE = 16 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slotSize;
+    private int newestSlot = -1;
+    private long sequence;
+    private byte[] lastWritten;
+    private MPRISMP2Base player;
+    private ScheduledFuture<?> writer;
+    private long writes;
+    private boolean closed;
+
+    /**
+     * Uses {@code $XDG_STATE_HOME/mpris-java/<playerName>.state} (or {@code ~/.local/state/mpris-java/...})
+     */
+    public StateFile(@NotNull String playerName) throws IOException {
+        this(defaultDirectory().resolve(playerName + ".state"));
+    }
+
+    /**
+     * @param path The file, created with its directory if it does not exist
+     */
+    public StateFile(@NotNull Path path) throws IOException {
+        this.path = path;
+        Path directory = path.toAbsolutePath().getParent();
+        if(directory != null) Files.createDirectories(directory);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map();
+    }
+
+    /**
+     * @return {@code $XDG_STATE_HOME/mpris-java}, or {@code ~/.local/state/mpris-java} if it is not set
+     */
+    public static Path defaultDirectory() {
+        String stateHome = System.getenv("XDG_STATE_HOME");
+        Path base = stateHome != null && !stateHome.isEmpty() && Paths.get(stateHome).isAbsolute()
+                ? Paths.get(stateHome)
+                : Paths.get(System.getProperty("user.home"), ".local", "state");
+        return base.resolve("mpris-java");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Maps an existing file and finds its newest snapshot. Files which are empty or have another format are
+     * left alone until the first write.
+     */
+    private void map() throws IOException {
+        long size = channel.size();
+        if(size < HEADER_SIZE) return;
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        int slots = header.getInt(8);
+        if(header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION) return;
+        if(slots < MIN_SLOT_SIZE || size < HEADER_SIZE + 2L * slots) return;
+        slotSize = slots;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2L * slotSize);
+        for(int slot = 0; slot < 2; slot++) {
+            if(readSlot(slot) != null && (newestSlot == -1 || sequenceOf(slot) > sequence)) {
+                newestSlot = slot;
+                sequence = sequenceOf(slot);
+            }
+        }
+    }
+
+    private long sequenceOf(int slot) {
+        return buffer.getLong(HEADER_SIZE + slot * slotSize);
+    }
+
+    /**
+     * @return The data of the slot or null if it is empty or torn
+     */
+    private byte[] readSlot(int slot) {
+        int offset = HEADER_SIZE + slot * slotSize;
+        int length = buffer.getInt(offset + 8);
+        if(buffer.getLong(offset) <= 0 || length < 0 || length > slotSize - SLOT_HEADER_SIZE) return null;
+        byte[] data = new byte[length];
+        buffer.get(offset + SLOT_HEADER_SIZE, data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue() == buffer.getInt(offset + 12) ? data : null;
+    }
+
+    /**
+     * @return The newest snapshot or null if the file holds none
+     */
+    public synchronized Snapshot read() throws IOException {
+        if(buffer == null || newestSlot == -1) return null;
+        byte[] data = readSlot(newestSlot);
+        if(data == null) return null;
+        return Snapshot.decode(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    /**
+     * Writes the current state of the player, unless it equals the last written one
+     */
+    synchronized void write(MPRISMP2Base player) throws IOException {
+        if(closed) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Snapshot.encode(player, new DataOutputStream(bytes));
+        byte[] data = bytes.toByteArray();
+        if(Arrays.equals(data, lastWritten)) return;
+        if(buffer == null || data.length > slotSize - SLOT_HEADER_SIZE) grow(data.length);
+        int slot = newestSlot == 0 ? 1 : 0;
+        int offset = HEADER_SIZE + slot * slotSize;
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        buffer.put(offset + SLOT_HEADER_SIZE, data);
+        buffer.putInt(offset + 8, data.length);
+        buffer.putInt(offset + 12, (int) crc.getValue());
+        buffer.force();
+        // The snapshot counts once its sequence number is the highest
+        buffer.putLong(offset, sequence + 1);
+        buffer.force();
+        sequence++;
+        newestSlot = slot;
+        lastWritten = data;
+        writes++;
+    }
+
+    /**
+     * Lays the file out again with slots large enough for the data. Both slots start empty.
+     */
+    private void grow(int length) throws IOException {
+        int size = MIN_SLOT_SIZE;
+        while(size - SLOT_HEADER_SIZE < length) {
+            if(size > Integer.MAX_VALUE / 4) throw new IOException("Snapshot of " + length + " bytes is too large");
+            size *= 2;
+        }
+        slotSize = size;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2L * slotSize);
+        buffer.putLong(HEADER_SIZE, 0);
+        buffer.putLong(HEADER_SIZE + slotSize, 0);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, slotSize);
+        newestSlot = -1;
+    }
+
+    /**
+     * Writes the state of the player every intervalMillis until the file is closed
+     */
+    synchronized void persist(MPRISMP2Base player, long intervalMillis) {
+        if(intervalMillis <= 0) throw new IllegalArgumentException("Interval must be greater than 0");
+        if(closed) throw new IllegalStateException("State file is closed");
+        if(writer != null) throw new IllegalStateException("State file is already written by a player");
+        writer = Timer.INSTANCE.scheduleWithFixedDelay(() -> {
+            try {
+                write(player);
+            } catch (IOException | RuntimeException e) {
+                // The previous snapshot stays readable, the next interval tries again
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        this.player = player;
+    }
+
+    /**
+     * @return How many snapshots have been written since the file was opened
+     */
+    public synchronized long getWriteCount() {
+        return writes;
+    }
+
+    /**
+     * Stops the periodic writes after writing the state a last time
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledFuture<?> stopped;
+        synchronized (this) {
+            if(closed) return;
+            stopped = writer;
+            writer = null;
+        }
+        if(stopped != null) stopped.cancel(false);
+        synchronized (this) {
+            try {
+                if(player != null) write(player);
+            } finally {
+                closed = true;
+                player = null;
+                buffer = null;
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * The state read from a {@link StateFile}
+     */
+    public static final class Snapshot {
+        private final long savedAtMillis;
+        private final PlaybackStatus playbackStatus;
+        private final LoopStatus loopStatus;
+        private final double rate;
+        private final boolean shuffle;
+        private final double volume;
+        private final long position;
+        private final Metadata metadata;
+        private final List<DBusPath> tracks;
+        private final Map<String, Map<String, Variant<?>>> tracksMetadata;
+        private final Playlists.Maybe_Playlist activePlaylist;
+
+        private Snapshot(long savedAtMillis, PlaybackStatus playbackStatus, LoopStatus loopStatus, double rate, boolean shuffle,
+                         double volume, long position, Metadata metadata, List<DBusPath> tracks,
+                         Map<String, Map<String, Variant<?>>> tracksMetadata, Playlists.Maybe_Playlist activePlaylist) {
+            this.savedAtMillis = savedAtMillis;
+            this.playbackStatus = playbackStatus;
+            this.loopStatus = loopStatus;
+            this.rate = rate;
+            this.shuffle = shuffle;
+            this.volume = volume;
+            this.position = position;
+            this.metadata = metadata;
+            this.tracks = tracks;
+            this.tracksMetadata = tracksMetadata;
+            this.activePlaylist = activePlaylist;
+        }
+
+        /**
+         * @return When the snapshot was written, in milliseconds since the epoch
+         */
+        public long getSavedAtMillis() {
+            return savedAtMillis;
+        }
+
+        public PlaybackStatus getPlaybackStatus() {
+            return playbackStatus;
+        }
+
+        public LoopStatus getLoopStatus() {
+            return loopStatus;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public boolean getShuffle() {
+            return shuffle;
+        }
+
+        public double getVolume() {
+            return volume;
+        }
+
+        /**
+         * @return The position in microseconds at the time the snapshot was written
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        public Metadata getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * @return The track ids or null if the player had no TrackList
+         */
+        public List<DBusPath> getTracks() {
+            return tracks;
+        }
+
+        /**
+         * @return The stored metadata of the track or null if it was not cached when the snapshot was written
+         */
+        public Map<String, Variant<?>> getTrackMetadata(@NotNull DBusPath trackId) {
+            return tracksMetadata.get(trackId.getPath());
+        }
+
+        /**
+         * @return The active playlist or null if the player had no Playlists interface
+         */
+        public Playlists.Maybe_Playlist getActivePlaylist() {
+            return activePlaylist;
+        }
+
+        /**
+         * Replaces the values of the builder. Playing is restored as Paused, the application has not started
+         * playing yet. The rate is clamped to the range the builder allows.
+         */
+        void restore(MPRISMediaPlayer.PlayerBuilder playerBuilder) {
+            playerBuilder.playbackStatus = playbackStatus == PlaybackStatus.PLAYING ? PlaybackStatus.PAUSED : playbackStatus;
+            playerBuilder.loopStatus = loopStatus;
+            playerBuilder.shuffle = shuffle;
+            playerBuilder.metadata = metadata;
+            playerBuilder.volume = volume;
+            playerBuilder.position = (int) Math.min(position, Math.max(0, Math.min(Integer.MAX_VALUE, metadata.getLength())));
+            boolean ranged = playerBuilder.minimumRate != -1 && playerBuilder.maximumRate != -1;
+            double minimumRate = ranged ? playerBuilder.minimumRate : 0.1;
+            double maximumRate = ranged ? playerBuilder.maximumRate : 1.0;
+            playerBuilder.rate = Math.max(minimumRate, Math.min(maximumRate, rate));
+        }
+
+        void restore(MPRISMediaPlayer.TrackListBuilder trackListBuilder) {
+            if(tracks != null) trackListBuilder.tracks = new ArrayList<>(tracks);
+        }
+
+        void restore(MPRISMediaPlayer.PlaylistsBuilder playlistsBuilder) {
+            if(activePlaylist != null) playlistsBuilder.activePlaylist = activePlaylist;
+        }
+
+        /**
+         * Caches the stored track metadata, so GetTracksMetadata is answered before onGetTracksMetadata can be
+         */
+        void restore(MPRISMP2Base player) {
+            TrackListModule trackList = (TrackListModule) player.getModule(MPRISObjectPaths.TRACKLIST);
+            if(trackList != null) trackList.getMetadataCache().prime(tracksMetadata);
+        }
+
+        static void encode(MPRISMP2Base player, DataOutputStream out) throws IOException {
+            PlayerState state = player.getState();
+            out.writeLong(System.currentTimeMillis());
+            writeString(out, state.playbackStatus.GetAsString());
+            writeString(out, state.loopStatus.GetAsString());
+            out.writeDouble(state.rate);
+            out.writeBoolean(state.shuffle);
+            out.writeDouble(state.volume);
+            out.writeLong(state.position());
+            writeMetadata(out, state.metadata.getInternalMap());
+            TrackListModule trackList = (TrackListModule) player.getModule(MPRISObjectPaths.TRACKLIST);
+            out.writeBoolean(trackList != null);
+            if(trackList != null) {
+                List<DBusPath> tracks = trackList.getTracks();
+                Map<String, Map<String, Variant<?>>> cached = trackList.getMetadataCache().peek(tracks);
+                out.writeInt(tracks.size());
+                for(DBusPath track : tracks) {
+                    writeString(out, track.getPath());
+                    Map<String, Variant<?>> metadata = cached.get(track.getPath());
+                    out.writeBoolean(metadata != null);
+                    if(metadata != null) writeMetadata(out, metadata);
+                }
+            }
+            PlaylistsModule playlists = (PlaylistsModule) player.getModule(MPRISObjectPaths.PLAYLISTS);
+            out.writeBoolean(playlists != null);
+            if(playlists != null) {
+                Playlists.Maybe_Playlist active = playlists.getActivePlaylist();
+                out.writeBoolean(active.hasPlaylist());
+                writeString(out, active.getPlaylist().getId().getPath());
+                writeString(out, active.getPlaylist().getName());
+                writeString(out, active.getPlaylist().getIcon());
+            }
+            out.flush();
+        }
+
+        static Snapshot decode(DataInputStream in) throws IOException {
+            long savedAtMillis = in.readLong();
+            PlaybackStatus playbackStatus = valueOf(PlaybackStatus.values(), readString(in));
+            LoopStatus loopStatus = valueOf(LoopStatus.values(), readString(in));
+            double rate = in.readDouble();
+            boolean shuffle = in.readBoolean();
+            double volume = in.readDouble();
+            long position = in.readLong();
+            Metadata metadata = Metadata.of(readMetadata(in));
+            List<DBusPath> tracks = null;
+            Map<String, Map<String, Variant<?>>> tracksMetadata = new HashMap<>();
+            if(in.readBoolean()) {
+                int count = in.readInt();
+                tracks = new ArrayList<>(count);
+                for(int i = 0; i < count; i++) {
+                    DBusPath track = new DBusPath(readString(in));
+                    tracks.add(track);
+                    if(in.readBoolean()) tracksMetadata.put(track.getPath(), readMetadata(in));
+                }
+                tracks = Collections.unmodifiableList(tracks);
+            }
+            Playlists.Maybe_Playlist activePlaylist = null;
+            if(in.readBoolean()) {
+                boolean hasPlaylist = in.readBoolean();
+                activePlaylist = new Playlists.Maybe_Playlist(hasPlaylist,
+                        new Playlists.Playlist(new DBusPath(readString(in)), readString(in), readString(in)));
+            }
+            return new Snapshot(savedAtMillis, playbackStatus, loopStatus, rate, shuffle, volume, position, metadata,
+                    tracks, tracksMetadata, activePlaylist);
+        }
+
+        private static <E extends Enum<E>> E valueOf(E[] values, String name) throws IOException {
+            for(E value : values) {
+                if(value.toString().equals(name)) return value;
+            }
+            throw new IOException("Unknown value " + name);
+        }
+
+        private static void writeMetadata(DataOutputStream out, Map<String, Variant<?>> metadata) throws IOException {
+            List<Map.Entry<String, Variant<?>>> stored = new ArrayList<>();
+            for(Map.Entry<String, Variant<?>> entry : metadata.entrySet()) {
+                if(isStored(entry.getValue())) stored.add(entry);
+            }
+            out.writeInt(stored.size());
+            for(Map.Entry<String, Variant<?>> entry : stored) {
+                writeString(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        }
+
+        private static boolean isStored(Variant<?> value) {
+            switch(value.getSig()) {
+                case "s":
+                case "o":
+                    return true;
+                case "b":
+                    return value.getValue() instanceof Boolean;
+                case "i":
+                case "u":
+                case "x":
+                case "d":
+                    return value.getValue() instanceof Number;
+                case "as":
+                    return value.getValue() instanceof List || value.getValue() instanceof String[];
+                default:
+                    return false;
+            }
+        }
+
+        private static void writeValue(DataOutputStream out, Variant<?> value) throws IOException {
+            String signature = value.getSig();
+            writeString(out, signature);
+            Object object = value.getValue();
+            switch(signature) {
+                case "s":
+                    writeString(out, object.toString());
+                    break;
+                case "o":
+                    writeString(out, MPRISMP2Base.toTrackId(object).getPath());
+                    break;
+                case "b":
+                    out.writeBoolean((Boolean) object);
+                    break;
+                case "i":
+                    out.writeInt(((Number) object).intValue());
+                    break;
+                case "u":
+                case "x":
+                    out.writeLong(((Number) object).longValue());
+                    break;
+                case "d":
+                    out.writeDouble(((Number) object).doubleValue());
+                    break;
+                default:
+                    List<?> strings = object instanceof String[] ? Arrays.asList((String[]) object) : (List<?>) object;
+                    out.writeInt(strings.size());
+                    for(Object string : strings) {
+                        writeString(out, String.valueOf(string));
+                    }
+            }
+        }
+
+        private static Map<String, Variant<?>> readMetadata(DataInputStream in) throws IOException {
+            int count = in.readInt();
+            Map<String, Variant<?>> metadata = new LinkedHashMap<>();
+            for(int i = 0; i < count; i++) {
+                String key = readString(in);
+                metadata.put(key, readValue(in));
+            }
+            return metadata;
+        }
+
+        private static Variant<?> readValue(DataInputStream in) throws IOException {
+            String signature = readString(in);
+            switch(signature) {
+                case "s":
+                    return new Variant<>(readString(in), "s");
+                case "o":
+                    return new Variant<>(new DBusPath(readString(in)), "o");
+                case "b":
+                    return new Variant<>(in.readBoolean(), "b");
+                case "i":
+                    return new Variant<>(in.readInt(), "i");
+                case "u":
+                    return new Variant<>(new UInt32(in.readLong()), "u");
+                case "x":
+                    return new Variant<>(in.readLong(), "x");
+                case "d":
+                    return new Variant<>(in.readDouble(), "d");
+                case "as":
+                    int count = in.readInt();
+                    List<String> strings = new ArrayList<>(count);
+                    for(int i = 0; i < count; i++) {
+                        strings.add(readString(in));
+                    }
+                    return new Variant<>(Collections.unmodifiableList(strings), "as");
+                default:
+                    throw new IOException("Unknown signature " + signature);
+            }
+        }
+
+        /**
+         * Unlike writeUTF, strings are not limited to 64 KiB (e.g. xesam:asText)
+         */
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Timer {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mpris-state");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.types.Variant;
+import org.jetbrains.annotations.NotNull;
+import org.mpris.mpris.TrackList;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The TrackList methods of {@link MPRISMP2All} and {@link MPRISMP2WTL}, forwarded to their {@link TrackListModule}.
+ * <p>dbus-java only exports interfaces which extend DBusInterface directly, so this one is not seen on the bus.</p>
+ */
+interface TrackListDelegate extends TrackList {
+    TrackListModule trackListModule();
+
+    default List<DBusPath> getTracks() {
+        return trackListModule().getTracks();
+    }
+
+    /**
+     * Replaces all tracks. Small changes are emitted as TrackRemoved and TrackAdded, larger ones as
+     * TrackListReplaced.
+     */
+    default void setTracks(@NotNull List<DBusPath> tracks) throws DBusException {
+        trackListModule().setTracks(tracks);
+    }
+
+    default boolean getCanEditTracks() {
+        return trackListModule().getCanEditTracks();
+    }
+
+    default void setCanEditTracks(boolean canEditTracks) throws DBusException {
+        trackListModule().setCanEditTracks(canEditTracks);
+    }
+
+    /**
+     * @return The number of tracks in the tracklist
+     */
+    default int getTrackCount() {
+        return trackListModule().getTrackCount();
+    }
+
+    /**
+     * @return The position of the track in the tracklist or -1 if it is not part of it
+     */
+    default int indexOfTrack(@NotNull DBusPath trackId) {
+        return trackListModule().indexOfTrack(trackId);
+    }
+
+    /**
+     * Inserts a track and emits TrackAdded
+     * @param afterTrack The track after which the new track is inserted, NoTrack inserts at the start
+     * @throws IllegalArgumentException If the track is already part of the tracklist or afterTrack is not
+     */
+    default void addTrack(@NotNull Metadata metadata, @NotNull DBusPath afterTrack) throws DBusException, IllegalArgumentException {
+        trackListModule().addTrack(metadata.getInternalMap(), afterTrack);
+    }
+
+    /**
+     * Removes a track and emits TrackRemoved
+     * @return false if the track is not part of the tracklist
+     */
+    default boolean removeTrack(@NotNull DBusPath trackId) throws DBusException {
+        return trackListModule().removeTrack(trackId);
+    }
+
+    /**
+     * Drops the cached metadata of the track and emits TrackMetadataChanged.
+     * If the metadata carries a new mpris:trackid the track keeps its position under the new id.
+     */
+    default void trackMetadataChanged(@NotNull DBusPath trackId, @NotNull Metadata metadata) throws DBusException {
+        trackListModule().trackMetadataChanged(trackId, metadata.getInternalMap());
+    }
+
+    /**
+     * @return The cache in front of onGetTracksMetadata
+     */
+    default TrackMetadataCache getTrackMetadataCache() {
+        return trackListModule().getMetadataCache();
+    }
+
+    /**
+     * @return The loader calling onGetTracksMetadata or onGetTracksMetadataAsync for uncached tracks
+     */
+    default TrackMetadataLoader getTrackMetadataLoader() {
+        return trackListModule().getMetadataLoader();
+    }
+
+    /**
+     * Replaces all tracks and emits TrackListReplaced
+     * @param currentTrack The track to be considered as current, NoTrack if there is none
+     */
+    default void replaceTracks(@NotNull List<DBusPath> tracks, @NotNull DBusPath currentTrack) throws DBusException {
+        trackListModule().replaceTracks(tracks, currentTrack);
+    }
+
+    @Override
+    default List<Map<String, Variant<?>>> GetTracksMetadata(List<DBusPath> TrackIds) {
+        return trackListModule().getTracksMetadata(TrackIds);
+    }
+
+    @Override
+    default void AddTrack(String Uri, DBusPath AfterTrack, boolean SetAsCurrent) {
+        trackListModule().addTrackRequested(Uri, AfterTrack, SetAsCurrent);
+    }
+
+    @Override
+    default void RemoveTrack(DBusPath TrackId) {
+        trackListModule().removeTrackRequested(TrackId);
+    }
+
+    @Override
+    default void GoTo(DBusPath TrackId) {
+        trackListModule().goToRequested(TrackId);
+    }
+}
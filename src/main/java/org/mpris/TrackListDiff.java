@@ -0,0 +1,194 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shortest edit script between two tracklists, computed with Myers' algorithm.
+ * <p>The common prefix and suffix are skipped first, and the search gives up after a maximum number of edits, so
+ * small changes to long lists are cheap and large changes cost no more than sending the whole list. A track that
+ * moved shows up as removed and added.</p>
+ * <p>Replaying the edits as signals keeps every AfterTrack valid: all removals are sent first, which leaves the
+ * tracks both lists share in order, then the additions are sent in their new order, each after its predecessor in
+ * the new list.</p>
+ */
+final class TrackListDiff {
+    /**
+     * Rough size of a signal header (path, interface, member, sender, signature) in bytes
+     */
+    static final int SIGNAL_BYTES = 160;
+    /**
+     * Rough size of the metadata sent with TrackAdded in bytes
+     */
+    static final int METADATA_BYTES = 256;
+    /**
+     * Rough number of bytes a client fetches per track after TrackListReplaced, since it does not know which
+     * tracks changed
+     */
+    static final int REFETCH_BYTES = 64;
+
+    private final List<DBusPath> removed;
+    private final List<DBusPath> added;
+    private final List<DBusPath> addedAfter;
+
+    private TrackListDiff(List<DBusPath> removed, List<DBusPath> added, List<DBusPath> addedAfter) {
+        this.removed = removed;
+        this.added = added;
+        this.addedAfter = addedAfter;
+    }
+
+    /**
+     * @param maxEdits The maximum number of removed plus added tracks
+     * @return The edits or null if more than maxEdits are needed
+     */
+    static TrackListDiff compute(List<DBusPath> oldTracks, List<DBusPath> newTracks, int maxEdits) {
+        String[] a = paths(oldTracks);
+        String[] b = paths(newTracks);
+        int start = 0;
+        while(start < a.length && start < b.length && a[start].equals(b[start])) start++;
+        int endA = a.length;
+        int endB = b.length;
+        while(endA > start && endB > start && a[endA - 1].equals(b[endB - 1])) {
+            endA--;
+            endB--;
+        }
+        if((endA - start) + (endB - start) > maxEdits && (endA == start || endB == start)) return null;
+
+        boolean[] removedA = new boolean[a.length];
+        boolean[] addedB = new boolean[b.length];
+        if(!myers(a, start, endA, b, start, endB, maxEdits, removedA, addedB)) return null;
+
+        List<DBusPath> removed = new ArrayList<>();
+        for(int i = start; i < endA; i++) {
+            if(removedA[i]) removed.add(oldTracks.get(i));
+        }
+        List<DBusPath> added = new ArrayList<>();
+        List<DBusPath> addedAfter = new ArrayList<>();
+        for(int j = start; j < endB; j++) {
+            if(!addedB[j]) continue;
+            added.add(newTracks.get(j));
+            addedAfter.add(j == 0 ? TrackListStore.NO_TRACK : newTracks.get(j - 1));
+        }
+        return new TrackListDiff(removed, added, addedAfter);
+    }
+
+    /**
+     * Marks the removed elements of a[fromA, toA) and the added elements of b[fromB, toB)
+     * @return false if more than maxEdits are needed
+     */
+    private static boolean myers(String[] a, int fromA, int toA, String[] b, int fromB, int toB, int maxEdits, boolean[] removedA, boolean[] addedB) {
+        int n = toA - fromA;
+        int m = toB - fromB;
+        int max = Math.min(n + m, maxEdits);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        for(int d = 0; d <= max; d++) {
+            trace.add(v.clone());
+            for(int k = -d; k <= d; k += 2) {
+                int x;
+                if(k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                }else{
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while(x < n && y < m && a[fromA + x].equals(b[fromB + y])) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if(x >= n && y >= m) {
+                    backtrack(trace, offset, n, m, fromA, fromB, removedA, addedB);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void backtrack(List<int[]> trace, int offset, int n, int m, int fromA, int fromB, boolean[] removedA, boolean[] addedB) {
+        int x = n;
+        int y = m;
+        for(int d = trace.size() - 1; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            boolean down = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]);
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = v[offset + previousK];
+            int previousY = previousX - previousK;
+            while(x > previousX && y > previousY) {
+                x--;
+                y--;
+            }
+            if(down) {
+                addedB[fromB + previousY] = true;
+            }else{
+                removedA[fromA + previousX] = true;
+            }
+            x = previousX;
+            y = previousY;
+        }
+    }
+
+    private static String[] paths(List<DBusPath> tracks) {
+        String[] paths = new String[tracks.size()];
+        for(int i = 0; i < paths.length; i++) {
+            paths[i] = tracks.get(i).getPath();
+        }
+        return paths;
+    }
+
+    /**
+     * @return The removed tracks in their old order
+     */
+    List<DBusPath> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * @return The added tracks in their new order
+     */
+    List<DBusPath> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * @return The AfterTrack of each added track, NoTrack for the start of the list
+     */
+    List<DBusPath> getAddedAfter() {
+        return Collections.unmodifiableList(addedAfter);
+    }
+
+    boolean isEmpty() {
+        return removed.isEmpty() && added.isEmpty();
+    }
+
+    /**
+     * @return The estimated bytes of sending the edits as TrackRemoved and TrackAdded signals
+     */
+    long editCost() {
+        long cost = 0;
+        for(DBusPath track : removed) {
+            cost += SIGNAL_BYTES + track.getPath().length();
+        }
+        for(DBusPath track : added) {
+            cost += SIGNAL_BYTES + track.getPath().length() * 2L + METADATA_BYTES;
+        }
+        return cost;
+    }
+
+    /**
+     * @return The estimated bytes of sending the new list as TrackListReplaced and clients fetching it again
+     */
+    static long replaceCost(List<DBusPath> newTracks) {
+        long cost = SIGNAL_BYTES;
+        for(DBusPath track : newTracks) {
+            cost += 8 + track.getPath().length() + REFETCH_BYTES;
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,302 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.types.Variant;
+import org.mpris.mpris.TrackList;
+
+import java.util.*;
+
+/**
+ * Implements org.mpris.MediaPlayer2.TrackList for {@link MPRISMP2All} and {@link MPRISMP2WTL}
+ * <p>The track ids are kept in a {@link TrackListStore}. Edits emit TrackAdded, TrackRemoved or
+ * TrackListReplaced and only invalidate the Tracks property, the array itself is built again when a client
+ * reads it.</p>
+ * <p>Edits are serialized on a lock of their own and hold the monitor of the module only while they change the
+ * store, so readers are not blocked while setTracks fetches the metadata of the added tracks, and the signals
+ * still reach clients in the order of the edits.</p>
+ */
+final class TrackListModule extends MPRISModule {
+    /**
+     * setTracks sends TrackListReplaced instead when more tracks than this were added or removed
+     */
+    static final int MAX_EDIT_SIGNALS = 64;
+
+    private final TrackListStore tracks;
+    private final Object edits = new Object();
+    private volatile boolean tracksStale;
+    private final TrackMetadataCache metadataCache;
+    private volatile boolean canEditTracks;
+    private final TrackMetadataLoader metadataLoader;
+    private final TypeRunnable<List<Object>> onAddTrack;
+    private final TypeRunnable<DBusPath> onRemoveTrack;
+    private final TypeRunnable<DBusPath> onGoTo;
+    private final TypeRunnable<TrackList.TrackListReplaced> onSignalTrackListReplaced;
+    private final ReturnableTypeRunnable<TrackList.TrackAdded, TrackList.TrackAdded> onSignalTrackAdded;
+    private final TypeRunnable<TrackList.TrackRemoved> onSignalTrackRemoved;
+    private final TypeRunnable<TrackList.TrackMetadataChanged> onSignalTrackMetadataChanged;
+
+    TrackListModule(MPRISMediaPlayer.TrackListBuilder trackListBuilder) {
+        this.tracks = new TrackListStore(trackListBuilder.tracks);
+        this.metadataCache = new TrackMetadataCache(trackListBuilder.metadataCacheEntries, trackListBuilder.metadataCacheWeight);
+        this.canEditTracks = trackListBuilder.canEditTracks;
+        this.metadataLoader = new TrackMetadataLoader(trackListBuilder.onGetTracksMetadata, trackListBuilder.onGetTracksMetadataAsync,
+                trackListBuilder.metadataPartitionSize, trackListBuilder.metadataTimeoutMillis);
+        this.onAddTrack = trackListBuilder.onAddTrack;
+        this.onRemoveTrack = trackListBuilder.onRemoveTrack;
+        this.onGoTo = trackListBuilder.onGoTo;
+        this.onSignalTrackAdded = trackListBuilder.onSignalTrackAdded;
+        this.onSignalTrackRemoved = trackListBuilder.onSignalTrackRemoved;
+        this.onSignalTrackMetadataChanged = trackListBuilder.onSignalTrackMetadataChanged;
+        this.onSignalTrackListReplaced = trackListBuilder.onSignalTrackListReplaced;
+    }
+
+    @Override
+    MPRISObjectPaths getInterface() {
+        return MPRISObjectPaths.TRACKLIST;
+    }
+
+    @Override
+    void putProperties(PropertySnapshot.Builder snapshot) {
+        snapshot.put(MPRISObjectPaths.TRACKLIST, "Tracks", new Variant<>(tracks.toList(), "ao"))
+                .put(MPRISObjectPaths.TRACKLIST, "CanEditTracks", new Variant<>(canEditTracks, "b"));
+    }
+
+    @Override
+    synchronized void refresh() {
+        if(!tracksStale) return;
+        publish("Tracks", new Variant<>(tracks.toList(), "ao"));
+        tracksStale = false;
+    }
+
+    synchronized List<DBusPath> getTracks() {
+        return tracks.toList();
+    }
+
+    /**
+     * Replaces all tracks, emitting the differences as TrackRemoved and TrackAdded signals when that is cheaper
+     * than one TrackListReplaced. The metadata of the added tracks is fetched in one batch, after the store was
+     * swapped and outside its monitor.
+     */
+    void setTracks(List<DBusPath> tracks) throws DBusException {
+        synchronized (edits) {
+            List<DBusPath> newTracks = new ArrayList<>(tracks);
+            TrackListDiff diff;
+            synchronized (this) {
+                diff = TrackListDiff.compute(this.tracks.toList(), newTracks, MAX_EDIT_SIGNALS);
+                if(diff != null && diff.editCost() >= TrackListDiff.replaceCost(newTracks)) diff = null;
+                if(diff != null && diff.isEmpty()) return;
+                if(diff != null) this.tracks.replace(newTracks);
+            }
+            if(diff == null) {
+                replaceTracks(newTracks, getOwner().getCurrentTrackId());
+                return;
+            }
+            Set<String> moved = new HashSet<>();
+            for(DBusPath track : diff.getAdded()) {
+                moved.add(track.getPath());
+            }
+            for(DBusPath track : diff.getRemoved()) {
+                if(!moved.contains(track.getPath())) metadataCache.invalidate(track);
+                getOwner().sendSignal(new TrackList.TrackRemoved(getOwner().getObjectPath(), track));
+            }
+            Map<String, Map<String, Variant<?>>> metadata = new HashMap<>();
+            if(!diff.getAdded().isEmpty()) {
+                for(Map<String, Variant<?>> trackMetadata : getTracksMetadata(diff.getAdded(), false)) {
+                    Variant<?> trackId = trackMetadata.get("mpris:trackid");
+                    if(trackId != null) metadata.put(MPRISMP2Base.toTrackId(trackId.getValue()).getPath(), trackMetadata);
+                }
+            }
+            for(int i = 0; i < diff.getAdded().size(); i++) {
+                DBusPath track = diff.getAdded().get(i);
+                Map<String, Variant<?>> trackMetadata = metadata.get(track.getPath());
+                if(trackMetadata == null) trackMetadata = Collections.singletonMap("mpris:trackid", new Variant<>(track, "o"));
+                getOwner().sendSignal(new TrackList.TrackAdded(getOwner().getObjectPath(), trackMetadata, diff.getAddedAfter().get(i)));
+            }
+            tracksChanged();
+        }
+    }
+
+    synchronized int getTrackCount() {
+        return tracks.size();
+    }
+
+    synchronized int indexOfTrack(DBusPath trackId) {
+        return tracks.indexOf(trackId);
+    }
+
+    /**
+     * Inserts the track after afterTrack and emits TrackAdded
+     */
+    void addTrack(Map<String, Variant<?>> metadata, DBusPath afterTrack) throws DBusException {
+        Variant<?> trackId = metadata.get("mpris:trackid");
+        if(trackId == null) throw new IllegalArgumentException("mpris:trackid not set");
+        if(afterTrack == null) afterTrack = TrackListStore.NO_TRACK;
+        synchronized (edits) {
+            synchronized (this) {
+                tracks.insertAfter(afterTrack, MPRISMP2Base.toTrackId(trackId.getValue()));
+            }
+            getOwner().sendSignal(new TrackList.TrackAdded(getOwner().getObjectPath(), metadata, afterTrack));
+            tracksChanged();
+        }
+    }
+
+    /**
+     * Removes the track and emits TrackRemoved
+     * @return false if the track is not part of the tracklist
+     */
+    boolean removeTrack(DBusPath trackId) throws DBusException {
+        synchronized (edits) {
+            synchronized (this) {
+                if(tracks.remove(trackId) == null) return false;
+            }
+            metadataCache.invalidate(trackId);
+            getOwner().sendSignal(new TrackList.TrackRemoved(getOwner().getObjectPath(), trackId));
+            tracksChanged();
+            return true;
+        }
+    }
+
+    /**
+     * Replaces all tracks and emits TrackListReplaced
+     */
+    void replaceTracks(List<DBusPath> tracks, DBusPath currentTrack) throws DBusException {
+        synchronized (edits) {
+            List<DBusPath> replaced;
+            synchronized (this) {
+                this.tracks.replace(tracks);
+                replaced = this.tracks.toList();
+            }
+            metadataCache.invalidateAll();
+            getOwner().sendSignal(new TrackList.TrackListReplaced(getOwner().getObjectPath(), replaced, currentTrack));
+            tracksChanged();
+        }
+    }
+
+    private void tracksChanged() throws DBusException {
+        tracksStale = true;
+        invalidate("Tracks");
+    }
+
+    boolean getCanEditTracks() {
+        return canEditTracks;
+    }
+
+    void setCanEditTracks(boolean canEditTracks) throws DBusException {
+        this.canEditTracks = canEditTracks;
+        update("CanEditTracks", new Variant<>(canEditTracks, "b"));
+    }
+
+    List<Map<String, Variant<?>>> getTracksMetadata(List<DBusPath> trackIds) {
+        return getTracksMetadata(trackIds, true);
+    }
+
+    private List<Map<String, Variant<?>>> getTracksMetadata(List<DBusPath> trackIds, boolean called) {
+        if(called) methodCalled("GetTracksMetadata");
+        return metadataCache.get(trackIds, ids -> metadataLoader.load(ids, getOwner()));
+    }
+
+    TrackMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    TrackMetadataLoader getMetadataLoader() {
+        return metadataLoader;
+    }
+
+    /**
+     * Drops the cached metadata of the track and emits TrackMetadataChanged. If the metadata carries a new
+     * mpris:trackid the track is renamed in place.
+     */
+    void trackMetadataChanged(DBusPath trackId, Map<String, Variant<?>> metadata) throws DBusException {
+        Variant<?> newTrackId = metadata.get("mpris:trackid");
+        if(newTrackId == null) throw new IllegalArgumentException("mpris:trackid not set");
+        DBusPath renamed = MPRISMP2Base.toTrackId(newTrackId.getValue());
+        synchronized (edits) {
+            metadataCache.invalidate(trackId);
+            metadataCache.invalidate(renamed);
+            boolean changedId;
+            synchronized (this) {
+                changedId = !renamed.getPath().equals(trackId.getPath()) && tracks.rename(trackId, renamed);
+            }
+            getOwner().sendSignal(new TrackList.TrackMetadataChanged(getOwner().getObjectPath(), trackId, metadata));
+            if(changedId) tracksChanged();
+        }
+    }
+
+    void addTrackRequested(String uri, DBusPath afterTrack, boolean setAsCurrent) {
+        methodCalled("AddTrack");
+        if(!canEditTracks) return;
+        dispatch("onAddTrack", () -> onAddTrack.run(Arrays.asList(uri, afterTrack, setAsCurrent)));
+    }
+
+    void removeTrackRequested(DBusPath trackId) {
+        methodCalled("RemoveTrack");
+        synchronized (this) {
+            if(!canEditTracks || !tracks.contains(trackId)) return;
+        }
+        dispatch("onRemoveTrack", () -> onRemoveTrack.run(trackId));
+    }
+
+    void goToRequested(DBusPath trackId) {
+        methodCalled("GoTo");
+        synchronized (this) {
+            if(!tracks.contains(trackId)) return;
+        }
+        dispatch("onGoTo", () -> onGoTo.run(trackId));
+    }
+
+    @Override
+    void onUriOpened(String uri) throws DBusException {
+        TrackList.TrackAdded added = getOwner().call("onSignalTrackAdded", onSignalTrackAdded, null);
+        if(added != null) addTrack(added.getMetadata(), added.getAfterTrack());
+    }
+
+    @Override
+    void init(DBusConnection connection) throws DBusException {
+        connection.addSigHandler(TrackList.TrackListReplaced.class, new DBusSigHandler<TrackList.TrackListReplaced>() {
+            @Override
+            public void handle(TrackList.TrackListReplaced s) {
+                if(!getOwner().isForeignSignal(s)) return;
+                getOwner().getMetrics().signalReceived("TrackListReplaced");
+                if(canEditTracks) return;
+                getOwner().call("onSignalTrackListReplaced", onSignalTrackListReplaced, s);
+            }
+        });
+        connection.addSigHandler(TrackList.TrackAdded.class, new DBusSigHandler<TrackList.TrackAdded>() {
+            @Override
+            public void handle(TrackList.TrackAdded s) {
+                if(!getOwner().isForeignSignal(s)) return;
+                getOwner().getMetrics().signalReceived("TrackAdded");
+                if(canEditTracks) return;
+                getOwner().call("onSignalTrackAdded", onSignalTrackAdded, s);
+            }
+        });
+        connection.addSigHandler(TrackList.TrackRemoved.class, new DBusSigHandler<TrackList.TrackRemoved>() {
+            @Override
+            public void handle(TrackList.TrackRemoved s) {
+                if(!getOwner().isForeignSignal(s)) return;
+                getOwner().getMetrics().signalReceived("TrackRemoved");
+                if(canEditTracks) return;
+                getOwner().call("onSignalTrackRemoved", onSignalTrackRemoved, s);
+            }
+        });
+        connection.addSigHandler(TrackList.TrackMetadataChanged.class, new DBusSigHandler<TrackList.TrackMetadataChanged>() {
+            @Override
+            public void handle(TrackList.TrackMetadataChanged s) {
+                if(!getOwner().isForeignSignal(s)) return;
+                getOwner().getMetrics().signalReceived("TrackMetadataChanged");
+                metadataCache.invalidate(s.getTrackId());
+                if(canEditTracks) return;
+                getOwner().call("onSignalTrackMetadataChanged", onSignalTrackMetadataChanged, s);
+            }
+        });
+    }
+
+    @Override
+    void dispatch(String callbackName, Runnable handler) {
+        getOwner().getCallbackDispatcher().dispatch(CallbackDispatcher.Category.TRACKLIST, callbackName, handler);
+    }
+}
@@ -0,0 +1,118 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+
+import java.util.*;
+
+/**
+ * The ordered track ids of a tracklist.
+ * <p>Track ids are hashed to their node in an {@link OrderStatisticTree}, so looking up a track is O(1) and
+ * inserting after a track, removing a track or finding its position is O(log n).
+ * Track ids must be unique within the tracklist.</p>
+ */
+final class TrackListStore {
+    /**
+     * Used as AfterTrack to insert at the start of the tracklist
+     */
+    static final DBusPath NO_TRACK = new DBusPath("/org/mpris/MediaPlayer2/TrackList/NoTrack");
+
+    private final OrderStatisticTree<DBusPath> order = new OrderStatisticTree<>();
+    private final Map<String, OrderStatisticTree.Node<DBusPath>> nodes = new HashMap<>();
+    private List<DBusPath> materialized;
+
+    TrackListStore(List<DBusPath> tracks) {
+        replace(tracks);
+    }
+
+    int size() {
+        return order.size();
+    }
+
+    boolean contains(DBusPath trackId) {
+        return nodes.containsKey(trackId.getPath());
+    }
+
+    /**
+     * @return The position of the track or -1 if it is not part of the tracklist
+     */
+    int indexOf(DBusPath trackId) {
+        OrderStatisticTree.Node<DBusPath> node = nodes.get(trackId.getPath());
+        return node == null ? -1 : order.indexOf(node);
+    }
+
+    DBusPath get(int index) {
+        return order.get(index);
+    }
+
+    /**
+     * @param afterTrack The track after which the new track is inserted, {@link #NO_TRACK} or null for the start
+     * @throws IllegalArgumentException If the track is already part of the tracklist or afterTrack is not
+     */
+    void insertAfter(DBusPath afterTrack, DBusPath trackId) throws IllegalArgumentException {
+        if(NO_TRACK.getPath().equals(trackId.getPath())) throw new IllegalArgumentException("NoTrack can not be added");
+        if(contains(trackId)) throw new IllegalArgumentException("Track " + trackId + " is already part of the tracklist");
+        int index = 0;
+        if(afterTrack != null && !NO_TRACK.getPath().equals(afterTrack.getPath())) {
+            int afterIndex = indexOf(afterTrack);
+            if(afterIndex == -1) throw new IllegalArgumentException("Track " + afterTrack + " is not part of the tracklist");
+            index = afterIndex + 1;
+        }
+        nodes.put(trackId.getPath(), order.insert(index, trackId));
+        materialized = null;
+    }
+
+    /**
+     * @return The track before the removed one ({@link #NO_TRACK} if it was the first) or null if the track is
+     * not part of the tracklist
+     */
+    DBusPath remove(DBusPath trackId) {
+        OrderStatisticTree.Node<DBusPath> node = nodes.remove(trackId.getPath());
+        if(node == null) return null;
+        int index = order.indexOf(node);
+        order.remove(node);
+        materialized = null;
+        return index == 0 ? NO_TRACK : order.get(index - 1);
+    }
+
+    /**
+     * Gives a track a new id at the same position
+     * @return false if the old track is not part of the tracklist
+     * @throws IllegalArgumentException If the new id is already part of the tracklist
+     */
+    boolean rename(DBusPath oldTrackId, DBusPath newTrackId) throws IllegalArgumentException {
+        if(oldTrackId.getPath().equals(newTrackId.getPath())) return contains(oldTrackId);
+        if(contains(newTrackId)) throw new IllegalArgumentException("Track " + newTrackId + " is already part of the tracklist");
+        OrderStatisticTree.Node<DBusPath> node = nodes.remove(oldTrackId.getPath());
+        if(node == null) return false;
+        int index = order.indexOf(node);
+        order.remove(node);
+        nodes.put(newTrackId.getPath(), order.insert(index, newTrackId));
+        materialized = null;
+        return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException If a track id appears twice
+     */
+    void replace(List<DBusPath> tracks) throws IllegalArgumentException {
+        Set<String> unique = new HashSet<>();
+        for(DBusPath track : tracks) {
+            if(!unique.add(track.getPath())) {
+                throw new IllegalArgumentException("Track " + track + " is part of the tracklist twice");
+            }
+        }
+        nodes.clear();
+        for(OrderStatisticTree.Node<DBusPath> node : order.rebuild(tracks)) {
+            nodes.put(node.getValue().getPath(), node);
+        }
+        materialized = null;
+    }
+
+    /**
+     * @return An unmodifiable copy of the track ids in order, cached until the next change
+     */
+    List<DBusPath> toList() {
+        if(materialized == null) materialized = Collections.unmodifiableList(order.toList());
+        return materialized;
+    }
+}
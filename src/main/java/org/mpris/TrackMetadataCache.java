@@ -0,0 +1,213 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.types.Variant;
+
+import java.util.*;
+
+/**
+ * Least recently used cache of track metadata in front of onGetTracksMetadata.
+ * <p>The cache is bounded by the number of tracks and by an estimate of their size in bytes. Requests only pass
+ * the tracks which are not cached to the loader, in one batch. Entries are dropped when the track changes
+ * (TrackMetadataChanged) or leaves the tracklist. Loads which overlap an invalidation are returned but not
+ * cached, so a load started before a change cannot bring the old metadata back.</p>
+ */
+public class TrackMetadataCache {
+    private final int maxEntries;
+    private final long maxWeight;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long loads;
+    private long evictions;
+
+    private static final class Entry {
+        private final Map<String, Variant<?>> metadata;
+        private final long weight;
+
+        private Entry(Map<String, Variant<?>> metadata, long weight) {
+            this.metadata = metadata;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * @param maxEntries The maximum number of cached tracks (0 disables the cache)
+     * @param maxWeight The maximum estimated size of all cached metadata in bytes
+     */
+    TrackMetadataCache(int maxEntries, long maxWeight) {
+        if(maxEntries < 0) throw new IllegalArgumentException("Max entries is less than 0");
+        if(maxWeight < 0) throw new IllegalArgumentException("Max weight is less than 0");
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * @return The metadata of the requested tracks in request order. Loaded metadata is matched to the tracks by
+     * its mpris:trackid, tracks the loader knows nothing about and results without an id are left out.
+     */
+    List<Map<String, Variant<?>>> get(List<DBusPath> trackIds, ReturnableTypeRunnable<List<Map<String, Variant<?>>>, List<DBusPath>> loader) {
+        if(maxEntries == 0) return loader.run(trackIds);
+        Map<String, Map<String, Variant<?>>> found = new HashMap<>();
+        List<DBusPath> missing = new ArrayList<>();
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+            for(DBusPath trackId : trackIds) {
+                Entry entry = entries.get(trackId.getPath());
+                if(entry != null) {
+                    hits++;
+                    found.put(trackId.getPath(), entry.metadata);
+                }else if(!found.containsKey(trackId.getPath())) {
+                    misses++;
+                    found.put(trackId.getPath(), null);
+                    missing.add(trackId);
+                }
+            }
+        }
+        if(!missing.isEmpty()) {
+            List<Map<String, Variant<?>>> loaded = loader.run(missing);
+            synchronized (this) {
+                loads++;
+                // An invalidation during the load may have been for a track of this batch, its result is stale
+                boolean cacheable = loadGeneration == generation;
+                if(loaded != null) {
+                    for(Map<String, Variant<?>> metadata : loaded) {
+                        String trackId = trackIdOf(metadata);
+                        if(trackId == null || !found.containsKey(trackId)) continue;
+                        found.put(trackId, metadata);
+                        if(cacheable && TrackMetadataLoader.isCacheable(metadata)) put(trackId, metadata);
+                    }
+                }
+            }
+        }
+        List<Map<String, Variant<?>>> result = new ArrayList<>(trackIds.size());
+        for(DBusPath trackId : trackIds) {
+            Map<String, Variant<?>> metadata = found.get(trackId.getPath());
+            if(metadata != null) result.add(metadata);
+        }
+        return result;
+    }
+
+    /**
+     * Drops the cached metadata of the track
+     */
+    public synchronized void invalidate(DBusPath trackId) {
+        generation++;
+        Entry entry = entries.remove(trackId.getPath());
+        if(entry != null) weight -= entry.weight;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Reads the cached metadata of the tracks without counting hits or changing their order
+     * @return The cached metadata by track id, tracks which are not cached are left out
+     */
+    synchronized Map<String, Map<String, Variant<?>>> peek(List<DBusPath> trackIds) {
+        Map<String, Map<String, Variant<?>>> cached = new HashMap<>();
+        if(entries.isEmpty()) return cached;
+        Set<String> requested = new HashSet<>();
+        for(DBusPath trackId : trackIds) {
+            requested.add(trackId.getPath());
+        }
+        for(Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if(requested.contains(entry.getKey())) cached.put(entry.getKey(), entry.getValue().metadata);
+        }
+        return cached;
+    }
+
+    /**
+     * Caches metadata which was not loaded through the loader, e.g. restored from a {@link StateFile}
+     */
+    synchronized void prime(Map<String, Map<String, Variant<?>>> metadata) {
+        if(maxEntries == 0) return;
+        for(Map.Entry<String, Map<String, Variant<?>>> entry : metadata.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The estimated size of all cached metadata in bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return How often the loader has been called for missing tracks
+     */
+    public synchronized long getLoadCount() {
+        return loads;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private void put(String trackId, Map<String, Variant<?>> metadata) {
+        long entryWeight = estimateWeight(trackId, metadata);
+        if(entryWeight > maxWeight) return;
+        Entry previous = entries.put(trackId, new Entry(metadata, entryWeight));
+        if(previous != null) weight -= previous.weight;
+        weight += entryWeight;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while(entries.size() > maxEntries || weight > maxWeight) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            weight -= evicted.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * @return The mpris:trackid of the metadata or null if it has none
+     */
+    private static String trackIdOf(Map<String, Variant<?>> metadata) {
+        if(metadata == null) return null;
+        Variant<?> trackId = metadata.get("mpris:trackid");
+        return trackId == null ? null : MPRISMP2Base.toTrackId(trackId.getValue()).getPath();
+    }
+
+    /**
+     * Rough size of the metadata on the heap, strings count two bytes per character
+     */
+    static long estimateWeight(String trackId, Map<String, Variant<?>> metadata) {
+        long estimate = 64 + trackId.length() * 2L;
+        for(Map.Entry<String, Variant<?>> entry : metadata.entrySet()) {
+            estimate += 48 + entry.getKey().length() * 2L + estimateValue(entry.getValue().getValue());
+        }
+        return estimate;
+    }
+
+    private static long estimateValue(Object value) {
+        if(value instanceof CharSequence) return 40 + ((CharSequence) value).length() * 2L;
+        if(value instanceof DBusPath) return 56 + ((DBusPath) value).getPath().length() * 2L;
+        if(value instanceof Collection) {
+            long estimate = 32;
+            for(Object element : (Collection<?>) value) {
+                estimate += 8 + estimateValue(element);
+            }
+            return estimate;
+        }
+        return 16;
+    }
+}
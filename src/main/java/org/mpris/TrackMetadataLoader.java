@@ -0,0 +1,153 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.types.Variant;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads the metadata of uncached tracks for GetTracksMetadata.
+ * <p>With a synchronous onGetTracksMetadata the whole batch is passed to it on the calling thread. With
+ * onGetTracksMetadataAsync the batch is split into partitions which are all requested at once, so a backend can
+ * fetch them in parallel. The caller waits for them at most the configured timeout per request. Partitions which
+ * failed or did not complete in time are answered with entries holding only {@code mpris:trackid}; these are not
+ * cached, the next request asks the backend again.</p>
+ */
+public class TrackMetadataLoader {
+    private final ReturnableTypeRunnable<List<Map<String, Variant<?>>>, List<DBusPath>> onGetTracksMetadata;
+    private final ReturnableTypeRunnable<CompletableFuture<List<Map<String, Variant<?>>>>, List<DBusPath>> onGetTracksMetadataAsync;
+    private final int partitionSize;
+    private final long timeoutNanos;
+    private final AtomicLong partitionsRequested = new AtomicLong();
+    private final AtomicLong partitionsFailed = new AtomicLong();
+    private final AtomicLong partitionsTimedOut = new AtomicLong();
+    private final AtomicLong fallbackTracks = new AtomicLong();
+
+    /**
+     * Metadata made up for a track the backend did not answer in time. It only holds the track id.
+     */
+    private static final class Fallback extends AbstractMap<String, Variant<?>> {
+        private final Set<Map.Entry<String, Variant<?>>> entries;
+
+        private Fallback(DBusPath trackId) {
+            this.entries = Collections.singleton(new SimpleImmutableEntry<>("mpris:trackid", new Variant<>(trackId, "o")));
+        }
+
+        @Override
+        public Set<Map.Entry<String, Variant<?>>> entrySet() {
+            return entries;
+        }
+    }
+
+    /**
+     * @param onGetTracksMetadataAsync Used instead of onGetTracksMetadata when set
+     * @param partitionSize The maximum number of tracks passed to one call of onGetTracksMetadataAsync
+     * @param timeoutMillis The time a request waits for all partitions
+     */
+    TrackMetadataLoader(ReturnableTypeRunnable<List<Map<String, Variant<?>>>, List<DBusPath>> onGetTracksMetadata,
+                        ReturnableTypeRunnable<CompletableFuture<List<Map<String, Variant<?>>>>, List<DBusPath>> onGetTracksMetadataAsync,
+                        int partitionSize, long timeoutMillis) {
+        if(partitionSize <= 0) throw new IllegalArgumentException("Partition size must be greater than 0");
+        if(timeoutMillis <= 0) throw new IllegalArgumentException("Timeout must be greater than 0");
+        this.onGetTracksMetadata = onGetTracksMetadata;
+        this.onGetTracksMetadataAsync = onGetTracksMetadataAsync;
+        this.partitionSize = partitionSize;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * @return The metadata of the tracks known to the backend, in the order of the partitions
+     */
+    List<Map<String, Variant<?>>> load(List<DBusPath> trackIds, MPRISMP2Base owner) {
+        if(onGetTracksMetadataAsync == null) return owner.call("onGetTracksMetadata", onGetTracksMetadata, trackIds);
+        long deadline = System.nanoTime() + timeoutNanos;
+        List<List<DBusPath>> partitions = new ArrayList<>();
+        List<CompletableFuture<List<Map<String, Variant<?>>>>> futures = new ArrayList<>();
+        for(int from = 0; from < trackIds.size(); from += partitionSize) {
+            List<DBusPath> partition = trackIds.subList(from, Math.min(from + partitionSize, trackIds.size()));
+            partitions.add(partition);
+            futures.add(request(partition, owner.getMetrics()));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Handled per partition below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Map<String, Variant<?>>> result = new ArrayList<>(trackIds.size());
+        for(int i = 0; i < futures.size(); i++) {
+            CompletableFuture<List<Map<String, Variant<?>>>> future = futures.get(i);
+            if(!future.isDone() && future.completeExceptionally(new TimeoutException("onGetTracksMetadataAsync timed out"))) {
+                partitionsTimedOut.incrementAndGet();
+            }
+            List<Map<String, Variant<?>>> loaded = future.isCompletedExceptionally() ? null : future.join();
+            if(loaded == null) {
+                for(DBusPath trackId : partitions.get(i)) {
+                    result.add(new Fallback(trackId));
+                }
+                fallbackTracks.addAndGet(partitions.get(i).size());
+            }else{
+                result.addAll(loaded);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return A copy of the future of the backend, completing it on timeout leaves the backend's own future alone
+     */
+    private CompletableFuture<List<Map<String, Variant<?>>>> request(List<DBusPath> partition, MPRISMetrics metrics) {
+        partitionsRequested.incrementAndGet();
+        long start = System.nanoTime();
+        CompletableFuture<List<Map<String, Variant<?>>>> future;
+        try {
+            CompletableFuture<List<Map<String, Variant<?>>>> backend = onGetTracksMetadataAsync.run(partition);
+            future = backend == null ? CompletableFuture.completedFuture(null) : backend.copy();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((loaded, error) -> {
+            if(loaded == null && !(error instanceof TimeoutException)) partitionsFailed.incrementAndGet();
+            metrics.callbackCompleted("onGetTracksMetadataAsync", System.nanoTime() - start, error);
+        });
+        return future;
+    }
+
+    /**
+     * @return false if the metadata was made up because the backend did not answer and must not be cached
+     */
+    static boolean isCacheable(Map<String, Variant<?>> metadata) {
+        return !(metadata instanceof Fallback);
+    }
+
+    /**
+     * @return The number of partitions passed to onGetTracksMetadataAsync
+     */
+    public long getPartitionsRequested() {
+        return partitionsRequested.get();
+    }
+
+    /**
+     * @return The number of partitions whose future failed, returned null or threw
+     */
+    public long getPartitionsFailed() {
+        return partitionsFailed.get();
+    }
+
+    /**
+     * @return The number of partitions which did not complete within the timeout
+     */
+    public long getPartitionsTimedOut() {
+        return partitionsTimedOut.get();
+    }
+
+    /**
+     * @return The number of tracks answered with only their mpris:trackid
+     */
+    public long getFallbackCount() {
+        return fallbackTracks.get();
+    }
+}
@@ -3,8 +3,10 @@ package org.mpris.mpris;
 import org.freedesktop.dbus.annotations.DBusInterfaceName;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.interfaces.Properties;
 import org.freedesktop.dbus.types.Variant;
 
+import java.util.List;
 import java.util.Map;
 
 @DBusInterfaceName("org.freedesktop.DBus.Properties")
@@ -12,4 +14,15 @@ public interface DBusProperties extends DBusInterface {
     Variant<?> Get(String interface_name, String property_name) throws DBusException;
     Map<String, Variant<?>> GetAll(String interface_name) throws DBusException;
     void Set(String interface_name, String property_name, Variant<?> value) throws DBusException;
+
+    /**
+     * Exporting this interface maps org.freedesktop.DBus.Properties to this class for the whole JVM, so dbus-java
+     * looks up incoming PropertiesChanged signals here. Extending {@link Properties.PropertiesChanged} keeps them
+     * deliverable to handlers of the standard signal when a client runs in the same JVM as the player.
+     */
+    class PropertiesChanged extends Properties.PropertiesChanged {
+        public PropertiesChanged(String path, String interfaceName, Map<String, Variant<?>> propertiesChanged, List<String> propertiesRemoved) throws DBusException {
+            super(path, interfaceName, propertiesChanged, propertiesRemoved);
+        }
+    }
 }
@@ -14,6 +14,17 @@ public enum LoopStatus {
         return asString;
     }
 
+    /**
+     * @param asString The value sent over D-Bus (e.g. "Track")
+     * @return The status or null if it is unknown
+     */
+    public static LoopStatus fromString(String asString) {
+        for(LoopStatus status : values()) {
+            if(status.asString.equals(asString)) return status;
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return asString;
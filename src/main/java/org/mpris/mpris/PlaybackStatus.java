@@ -14,6 +14,17 @@ public enum PlaybackStatus {
         return asString;
     }
 
+    /**
+     * @param asString The value sent over D-Bus (e.g. "Playing")
+     * @return The status or null if it is unknown
+     */
+    public static PlaybackStatus fromString(String asString) {
+        for(PlaybackStatus status : values()) {
+            if(status.asString.equals(asString)) return status;
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return asString;
@@ -138,7 +138,7 @@ public interface Player extends DBusInterface {
          * @throws DBusException
          */
         public Seeked(String _path, long _timeInUs) throws DBusException {
-            super(_path);
+            super(_path, _timeInUs);
             timeInUs = _timeInUs;
         }
 
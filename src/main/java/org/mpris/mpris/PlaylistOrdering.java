@@ -4,6 +4,7 @@ package org.mpris.mpris;
  * Specifies the ordering of returned playlists.
  */
 public enum PlaylistOrdering {
+    Alphabetical("Alphabetical"),
     CreationData("Created"),
     ModifiedDate("Modified"),
     LastPlayDate("Played"),
@@ -18,6 +19,17 @@ public enum PlaylistOrdering {
         return asString;
     }
 
+    /**
+     * @param asString The value sent over D-Bus (e.g. "Created")
+     * @return The ordering or null if it is unknown
+     */
+    public static PlaylistOrdering fromString(String asString) {
+        for(PlaylistOrdering ordering : values()) {
+            if(ordering.asString.equals(asString)) return ordering;
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return asString;
@@ -12,8 +12,7 @@ import org.mpris.mpris.PlaybackStatus
  */
 fun MPRISMediaPlayer.setPlaybackStatus(status: PlaybackStatus) {
     try {
-        // Currently only NONE mode is supported via public API
-        getMPRISMediaPlayer2None()?.setPlaybackStatus(status)
+        getMPRISMediaPlayer2()?.setPlaybackStatus(status)
     } catch (e: DBusException) {
         throw RuntimeException("Failed to update playback status", e)
     }
@@ -24,8 +23,7 @@ fun MPRISMediaPlayer.setPlaybackStatus(status: PlaybackStatus) {
  */
 fun MPRISMediaPlayer.setMetadata(metadata: Metadata) {
     try {
-        // Currently only NONE mode is supported via public API
-        getMPRISMediaPlayer2None()?.setMetadata(metadata)
+        getMPRISMediaPlayer2()?.setMetadata(metadata)
     } catch (e: DBusException) {
         throw RuntimeException("Failed to update metadata", e)
     }
@@ -43,46 +41,40 @@ fun MPRISMediaPlayer.setMetadata(block: MetadataBuilder.() -> Unit) {
  * Play the media
  */
 fun MPRISMediaPlayer.play() {
-    // Currently only NONE mode is supported via public API
-    getMPRISMediaPlayer2None()?.Play()
+    getMPRISMediaPlayer2()?.Play()
 }
 
 /**
  * Pause the media
  */
 fun MPRISMediaPlayer.pause() {
-    // Currently only NONE mode is supported via public API
-    getMPRISMediaPlayer2None()?.Pause()
+    getMPRISMediaPlayer2()?.Pause()
 }
 
 /**
  * Toggle play/pause
  */
 fun MPRISMediaPlayer.playPause() {
-    // Currently only NONE mode is supported via public API
-    getMPRISMediaPlayer2None()?.PlayPause()
+    getMPRISMediaPlayer2()?.PlayPause()
 }
 
 /**
  * Stop the media
  */
 fun MPRISMediaPlayer.stop() {
-    // Currently only NONE mode is supported via public API
-    getMPRISMediaPlayer2None()?.Stop()
+    getMPRISMediaPlayer2()?.Stop()
 }
 
 /**
  * Go to the next track
  */
 fun MPRISMediaPlayer.next() {
-    // Currently only NONE mode is supported via public API
-    getMPRISMediaPlayer2None()?.Next()
+    getMPRISMediaPlayer2()?.Next()
 }
 
 /**
  * Go to the previous track
  */
 fun MPRISMediaPlayer.previous() {
-    // Currently only NONE mode is supported via public API
-    getMPRISMediaPlayer2None()?.Previous()
+    getMPRISMediaPlayer2()?.Previous()
 }
\ No newline at end of file
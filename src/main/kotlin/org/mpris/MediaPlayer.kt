@@ -15,35 +15,61 @@ fun createMediaPlayer(
     connection: DBusConnection = DBusConnection.newConnection(DBusConnection.DBusBusType.SESSION),
     block: MediaPlayerConfig.() -> Unit
 ): MPRISMediaPlayer {
-    val config = MediaPlayerConfig().apply(block)
     val mediaPlayer = MPRISMediaPlayer(connection, playerName)
+    val config = MediaPlayerConfig().apply(block)
+    mediaPlayer.build(config)
+
+    // Create the media player on the D-Bus
+    mediaPlayer.create()
+    config.stateFile?.let { mediaPlayer.persistState(it, config.stateIntervalMillis) }
+
+    return mediaPlayer
+}
+
+/**
+ * Creates a player named "<name>.instanceN" on its own connection of the host and puts it on the bus.
+ *
+ * @param name The base name of the player
+ * @param block Configuration block for the media player
+ * @return The created MPRISMediaPlayer instance
+ */
+fun MPRISHost.createMediaPlayer(
+    name: String,
+    block: MediaPlayerConfig.() -> Unit
+): MPRISMediaPlayer {
+    val mediaPlayer = createPlayer(name)
+    val config = MediaPlayerConfig().apply(block)
+    mediaPlayer.build(config)
+    mediaPlayer.create()
+    config.stateFile?.let { mediaPlayer.persistState(it, config.stateIntervalMillis) }
+    return mediaPlayer
+}
+
+private fun MPRISMediaPlayer.build(config: MediaPlayerConfig) {
+    // Restore the last state before the builders are validated
+    val restored = config.stateFile?.let { restoreState(it) } != null
 
     // Build the media player with the configuration
-    val mediaPlayer2Builder = config.mediaPlayer2Config.toBuilder()
-    val playerBuilder = config.playerConfig.toBuilder()
+    val mediaPlayer2Builder = config.mediaPlayer2Config.toBuilder(config.commands)
+    val playerBuilder = config.playerConfig.toBuilder(config.commands, restored)
 
     // Build the appropriate type based on the configuration
     when {
         config.trackListConfig != null && config.playlistsConfig != null -> {
             val trackListBuilder = config.trackListConfig!!.toBuilder()
             val playlistsBuilder = config.playlistsConfig!!.toBuilder()
-            mediaPlayer.buildMPRISMediaPlayer2All(mediaPlayer2Builder, playerBuilder, trackListBuilder, playlistsBuilder)
+            buildMPRISMediaPlayer2All(mediaPlayer2Builder, playerBuilder, trackListBuilder, playlistsBuilder)
         }
         config.trackListConfig != null -> {
             val trackListBuilder = config.trackListConfig!!.toBuilder()
-            mediaPlayer.buildMPRISMediaPlayer2WTL(mediaPlayer2Builder, playerBuilder, trackListBuilder)
+            buildMPRISMediaPlayer2WTL(mediaPlayer2Builder, playerBuilder, trackListBuilder)
         }
         config.playlistsConfig != null -> {
             val playlistsBuilder = config.playlistsConfig!!.toBuilder()
-            mediaPlayer.buildMPRISMediaPlayer2WPL(mediaPlayer2Builder, playerBuilder, playlistsBuilder)
+            buildMPRISMediaPlayer2WPL(mediaPlayer2Builder, playerBuilder, playlistsBuilder)
         }
         else -> {
-            mediaPlayer.buildMPRISMediaPlayer2None(mediaPlayer2Builder, playerBuilder)
+            buildMPRISMediaPlayer2None(mediaPlayer2Builder, playerBuilder)
         }
     }
-
-    // Create the media player on the D-Bus
-    mediaPlayer.create()
-
-    return mediaPlayer
 }
\ No newline at end of file
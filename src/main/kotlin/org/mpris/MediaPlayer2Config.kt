@@ -1,5 +1,8 @@
 package org.mpris
 
+import kotlinx.coroutines.flow.MutableSharedFlow
+import java.util.concurrent.Executor
+
 /**
  * Configuration for the MediaPlayer2 interface
  */
@@ -14,11 +17,14 @@ class MediaPlayer2Config {
     var supportedMimeTypes: List<String> = emptyList()
     var onRaise: () -> Unit = {}
     var onQuit: () -> Unit = {}
+    var propertiesFlushWindowMillis: Long = 0
+    var callbackExecutor: Executor? = null
+    var metrics: MPRISMetrics? = null
 
     /**
      * Convert to a Java builder
      */
-    internal fun toBuilder(): MPRISMediaPlayer.MediaPlayer2Builder {
+    internal fun toBuilder(commands: MutableSharedFlow<PlayerCommand>? = null): MPRISMediaPlayer.MediaPlayer2Builder {
         return MPRISMediaPlayer.MediaPlayer2Builder()
             .setCanQuit(canQuit)
             .setFullscreen(fullscreen)
@@ -28,7 +34,16 @@ class MediaPlayer2Config {
             .setDesktopEntry(desktopEntry)
             .setSupportedUriSchemes(*supportedUriSchemes.toTypedArray())
             .setSupportedMimeTypes(*supportedMimeTypes.toTypedArray())
-            .setOnRaise { onRaise() }
-            .setOnQuit { onQuit() }
+            .setOnRaise {
+                onRaise()
+                commands?.tryEmit(PlayerCommand.Raise)
+            }
+            .setOnQuit {
+                onQuit()
+                commands?.tryEmit(PlayerCommand.Quit)
+            }
+            .setPropertiesFlushWindow(propertiesFlushWindowMillis)
+            .setCallbackExecutor(callbackExecutor)
+            .setMetrics(metrics)
     }
 }
\ No newline at end of file
@@ -1,5 +1,10 @@
 package org.mpris
 
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
+
 /**
  * Configuration class for the media player
  */
@@ -8,6 +13,9 @@ class MediaPlayerConfig {
     var playerConfig = PlayerConfig()
     var trackListConfig: TrackListConfig? = null
     var playlistsConfig: PlaylistsConfig? = null
+    internal var commands: MutableSharedFlow<PlayerCommand>? = null
+    internal var stateFile: StateFile? = null
+    internal var stateIntervalMillis: Long = StateFile.DEFAULT_INTERVAL_MILLIS
 
     /**
      * Configure the MediaPlayer2 interface
@@ -36,4 +44,31 @@ class MediaPlayerConfig {
     fun playlists(block: PlaylistsConfig.() -> Unit) {
         playlistsConfig = PlaylistsConfig().apply(block)
     }
+
+    /**
+     * Restore the player from the snapshot in [file] before it is put on the bus, then write its state there every
+     * [intervalMillis]. With a snapshot the player needs no metadata.
+     */
+    fun persistState(file: StateFile, intervalMillis: Long = StateFile.DEFAULT_INTERVAL_MILLIS) {
+        require(intervalMillis > 0) { "Interval must be greater than 0" }
+        stateFile = file
+        stateIntervalMillis = intervalMillis
+    }
+
+    /**
+     * Deliver the commands of clients (Next, Seek, OpenUri, ...) as a flow, after their callback ran.
+     * Commands are emitted without suspending; when collectors fall behind by more than [bufferCapacity]
+     * commands, [onBufferOverflow] decides which ones are dropped.
+     *
+     * @return The flow of commands, without replay
+     */
+    fun commands(
+        bufferCapacity: Int = 64,
+        onBufferOverflow: BufferOverflow = BufferOverflow.DROP_OLDEST
+    ): SharedFlow<PlayerCommand> {
+        require(onBufferOverflow != BufferOverflow.SUSPEND) { "Commands are emitted without suspending" }
+        val flow = MutableSharedFlow<PlayerCommand>(extraBufferCapacity = bufferCapacity, onBufferOverflow = onBufferOverflow)
+        commands = flow
+        return flow.asSharedFlow()
+    }
 }
\ No newline at end of file
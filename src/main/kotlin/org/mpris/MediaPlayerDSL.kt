@@ -63,6 +63,7 @@ fun simpleMediaPlayer(
  * @param trackNumber The track number
  * @param length The track length in microseconds
  * @param artUrl The track art URL
+ * @param pool Optional pool sharing equal artist and album values between tracks
  * @param block Optional additional configuration
  * @return The created Metadata
  */
@@ -74,9 +75,10 @@ fun track(
     trackNumber: Int = 1,
     length: Int = 180000000, // 3 minutes in microseconds
     artUrl: String? = null,
+    pool: MetadataPool? = null,
     block: (MetadataBuilder.() -> Unit)? = null
 ): Metadata {
-    return MetadataBuilder().apply {
+    return MetadataBuilder(pool).apply {
         trackId(DBusPath(id))
         this.title(title)
         artists(artist)
@@ -108,7 +110,7 @@ fun MPRISMediaPlayer.updateTrack(
     artUrl: String? = null,
     block: (MetadataBuilder.() -> Unit)? = null
 ) {
-    val metadata = track(id, title, artist, album, trackNumber, length, artUrl, block)
+    val metadata = track(id, title, artist, album, trackNumber, length, artUrl, block = block)
     setMetadata(metadata)
 }
 
@@ -0,0 +1,142 @@
+package org.mpris
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.launch
+import org.freedesktop.dbus.DBusPath
+import org.mpris.mpris.LoopStatus
+import org.mpris.mpris.PlaybackStatus
+
+/**
+ * Coroutine API: player state as a [StateFlow] and client commands as a flow
+ */
+
+/**
+ * The Player properties an application changes while playing.
+ *
+ * Position is not part of the state since it advances on its own, report seeks with
+ * [MPRISMP2Base.setPosition].
+ */
+data class MediaPlayerState(
+    val playbackStatus: PlaybackStatus,
+    val loopStatus: LoopStatus,
+    val rate: Double,
+    val shuffle: Boolean,
+    val metadata: Metadata,
+    val volume: Double,
+    val canGoNext: Boolean,
+    val canGoPrevious: Boolean,
+    val canPlay: Boolean,
+    val canPause: Boolean,
+    val canSeek: Boolean
+)
+
+/**
+ * A method called by a client, see [MediaPlayerConfig.commands]
+ */
+sealed interface PlayerCommand {
+    data object Raise : PlayerCommand
+    data object Quit : PlayerCommand
+    data object Next : PlayerCommand
+    data object Previous : PlayerCommand
+    data object Pause : PlayerCommand
+    data object PlayPause : PlayerCommand
+    data object Stop : PlayerCommand
+    data object Play : PlayerCommand
+
+    /**
+     * @param offset The offset in microseconds
+     */
+    data class Seek(val offset: Long) : PlayerCommand
+
+    /**
+     * @param position The position in microseconds
+     */
+    data class SetPosition(val trackId: DBusPath, val position: Long) : PlayerCommand
+
+    data class OpenUri(val uri: String) : PlayerCommand
+}
+
+/**
+ * @return The current state of the player
+ */
+fun MPRISMediaPlayer.currentState(): MediaPlayerState = requirePlayer().currentState()
+
+/**
+ * Creates a state flow holding the current state and publishes every value assigned to it, see [bindState]
+ *
+ * @param scope The scope the publishing runs in, cancel it to stop
+ * @param dispatcher The dispatcher doing the D-Bus I/O
+ */
+fun MPRISMediaPlayer.stateFlow(
+    scope: CoroutineScope,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO
+): MutableStateFlow<MediaPlayerState> {
+    val state = MutableStateFlow(currentState())
+    bindState(scope, state, dispatcher)
+    return state
+}
+
+/**
+ * Publishes the values of the state flow on the bus.
+ *
+ * Only properties which differ from the last published value are set, all in one transaction, so each
+ * published value is one PropertiesChanged signal. Values assigned while a signal is being sent are conflated,
+ * only the latest one is published next. The collector never runs on the caller's dispatcher.
+ *
+ * @param scope The scope the publishing runs in, cancel it or the returned job to stop
+ * @param dispatcher The dispatcher doing the D-Bus I/O
+ */
+fun MPRISMediaPlayer.bindState(
+    scope: CoroutineScope,
+    state: StateFlow<MediaPlayerState>,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO
+): Job {
+    val player = requirePlayer()
+    return scope.launch(dispatcher) {
+        var published = player.currentState()
+        state.collect { next ->
+            if (next != published) {
+                player.publish(published, next)
+                published = next
+            }
+        }
+    }
+}
+
+private fun MPRISMediaPlayer.requirePlayer(): MPRISMP2Base =
+    getMPRISMediaPlayer2() ?: throw IllegalStateException("No media player has been built")
+
+private fun MPRISMP2Base.currentState() = MediaPlayerState(
+    playbackStatus = playbackStatus,
+    loopStatus = loopStatus,
+    rate = rate,
+    shuffle = shuffle,
+    metadata = metadata,
+    volume = volume,
+    canGoNext = canGoNext,
+    canGoPrevious = canGoPrevious,
+    canPlay = canPlay,
+    canPause = canPause,
+    canSeek = canSeek
+)
+
+private fun MPRISMP2Base.publish(previous: MediaPlayerState, next: MediaPlayerState) {
+    transaction {
+        if (next.metadata != previous.metadata) setMetadata(next.metadata)
+        if (next.playbackStatus != previous.playbackStatus) setPlaybackStatus(next.playbackStatus)
+        if (next.loopStatus != previous.loopStatus) setLoopStatus(next.loopStatus)
+        if (next.rate != previous.rate) setRate(next.rate)
+        if (next.shuffle != previous.shuffle) setShuffle(next.shuffle)
+        if (next.volume != previous.volume) setVolume(next.volume)
+        if (next.canGoNext != previous.canGoNext) setCanGoNext(next.canGoNext)
+        if (next.canGoPrevious != previous.canGoPrevious) setCanGoPrevious(next.canGoPrevious)
+        if (next.canPlay != previous.canPlay) setCanPlay(next.canPlay)
+        if (next.canPause != previous.canPause) setCanPause(next.canPause)
+        if (next.canSeek != previous.canSeek) setCanSeek(next.canSeek)
+    }
+}
@@ -5,9 +5,11 @@ import java.net.URI
 
 /**
  * Builder for creating metadata
+ *
+ * @param pool Optional pool sharing equal artist, album and genre values between tracks
  */
-class MetadataBuilder {
-    private val builder = Metadata.Builder()
+class MetadataBuilder(pool: MetadataPool? = null) {
+    private val builder = Metadata.Builder(pool)
 
     /**
      * Set the track ID
@@ -30,6 +32,13 @@ class MetadataBuilder {
         builder.setArtURL(artUrl)
     }
 
+    /**
+     * Store the image in the art cache and set the art URL to the cached file
+     */
+    fun artUrl(artCache: ArtCache, image: ByteArray) {
+        builder.setArtURL(artCache.store(image))
+    }
+
     /**
      * Set the album name
      */
@@ -1,5 +1,6 @@
 package org.mpris
 
+import kotlinx.coroutines.flow.MutableSharedFlow
 import org.freedesktop.dbus.DBusPath
 import org.mpris.mpris.LoopStatus
 import org.mpris.mpris.PlaybackStatus
@@ -33,6 +34,7 @@ class PlayerConfig {
     var onSetPosition: (Map<DBusPath, Int>) -> Unit = {}
     var onOpenURI: (String) -> Unit = {}
     var onSignalSeeked: (Long) -> Unit = {}
+    var seekedMaxRate: Double = 10.0
 
     /**
      * Create metadata for the player
@@ -43,18 +45,24 @@ class PlayerConfig {
 
     /**
      * Convert to a Java builder
+     *
+     * @param restoring The metadata is restored from a [StateFile] and may be left unset
      */
-    internal fun toBuilder(): MPRISMediaPlayer.PlayerBuilder {
-        if (metadata == null) {
+    internal fun toBuilder(
+        commands: MutableSharedFlow<PlayerCommand>? = null,
+        restoring: Boolean = false
+    ): MPRISMediaPlayer.PlayerBuilder {
+        if (metadata == null && !restoring) {
             throw IllegalStateException("Metadata must be set")
         }
 
-        return MPRISMediaPlayer.PlayerBuilder()
+        val builder = MPRISMediaPlayer.PlayerBuilder()
+        metadata?.let { builder.setMetadata(it) }
+        return builder
             .setPlaybackStatus(playbackStatus)
             .setLoopStatus(loopStatus)
             .setRate(rate)
             .setShuffle(shuffle)
-            .setMetadata(metadata!!)
             .setVolume(volume)
             .setPosition(position)
             .setMinimumRate(minimumRate)
@@ -65,15 +73,45 @@ class PlayerConfig {
             .setCanPause(canPause)
             .setCanSeek(canSeek)
             .setCanControl(canControl)
-            .setOnNext { onNext() }
-            .setOnPrevious { onPrevious() }
-            .setOnPause { onPause() }
-            .setOnPlayPause { onPlayPause() }
-            .setOnStop { onStop() }
-            .setOnPlay { onPlay() }
-            .setOnSeek { onSeek(it) }
-            .setOnSetPosition { onSetPosition(it) }
-            .setOnOpenURI { onOpenURI(it) }
+            .setSeekedMaxRate(seekedMaxRate)
+            .setOnNext {
+                onNext()
+                commands?.tryEmit(PlayerCommand.Next)
+            }
+            .setOnPrevious {
+                onPrevious()
+                commands?.tryEmit(PlayerCommand.Previous)
+            }
+            .setOnPause {
+                onPause()
+                commands?.tryEmit(PlayerCommand.Pause)
+            }
+            .setOnPlayPause {
+                onPlayPause()
+                commands?.tryEmit(PlayerCommand.PlayPause)
+            }
+            .setOnStop {
+                onStop()
+                commands?.tryEmit(PlayerCommand.Stop)
+            }
+            .setOnPlay {
+                onPlay()
+                commands?.tryEmit(PlayerCommand.Play)
+            }
+            .setOnSeek {
+                onSeek(it)
+                commands?.tryEmit(PlayerCommand.Seek(it.toLong()))
+            }
+            .setOnSetPosition {
+                onSetPosition(it)
+                for ((trackId, position) in it) {
+                    commands?.tryEmit(PlayerCommand.SetPosition(trackId, position.toLong()))
+                }
+            }
+            .setOnOpenURI {
+                onOpenURI(it)
+                commands?.tryEmit(PlayerCommand.OpenUri(it))
+            }
             .setOnSignalSeeked { onSignalSeeked(it) }
     }
 }
\ No newline at end of file
@@ -14,6 +14,11 @@ class PlaylistsConfig {
     var onGetPlaylists: (List<Any>) -> List<org.mpris.mpris.Playlists.Playlist> = { emptyList() }
     var onSignalPlaylistChanged: (org.mpris.mpris.Playlists.PlaylistChanged) -> Unit = {}
 
+    /**
+     * Answers GetPlaylists and keeps playlistsCount and orderings in sync, see [PlaylistRegistry]
+     */
+    var registry: PlaylistRegistry? = null
+
     /**
      * Convert to a Java builder
      */
@@ -22,12 +27,14 @@ class PlaylistsConfig {
             throw IllegalStateException("activePlaylist must be set")
         }
 
-        return MPRISMediaPlayer.PlaylistsBuilder()
+        val builder = MPRISMediaPlayer.PlaylistsBuilder()
             .setPlaylistsCount(playlistsCount)
             .setOrderings(orderings)
             .setActivePlaylist(activePlaylist!!)
             .setOnActivatePlaylist { onActivatePlaylist(it) }
             .setOnGetPlaylists { onGetPlaylists(it) }
             .setOnSignalPlaylistChanged { onSignalPlaylistChanged(it) }
+        registry?.let { builder.setRegistry(it) }
+        return builder
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package org.mpris
 
 import org.freedesktop.dbus.DBusPath
 import org.freedesktop.dbus.types.Variant
+import java.util.concurrent.CompletableFuture
 
 /**
  * Configuration for the TrackList interface
@@ -10,6 +11,10 @@ class TrackListConfig {
     var tracks: List<DBusPath> = emptyList()
     var canEditTracks: Boolean = false
     var onGetTracksMetadata: (List<DBusPath>) -> List<Map<String, Variant<*>>> = { emptyList() }
+    /**
+     * Used instead of [onGetTracksMetadata] when set, see [MPRISMediaPlayer.TrackListBuilder.setOnGetTracksMetadataAsync]
+     */
+    var onGetTracksMetadataAsync: ((List<DBusPath>) -> CompletableFuture<List<Map<String, Variant<*>>>>)? = null
     var onAddTrack: (List<Any>) -> Unit = {}
     var onRemoveTrack: (DBusPath) -> Unit = {}
     var onGoTo: (DBusPath) -> Unit = {}
@@ -17,12 +22,18 @@ class TrackListConfig {
     var onSignalTrackAdded: (org.mpris.mpris.TrackList.TrackAdded) -> org.mpris.mpris.TrackList.TrackAdded = { it }
     var onSignalTrackRemoved: (org.mpris.mpris.TrackList.TrackRemoved) -> Unit = {}
     var onSignalTrackMetadataChanged: (org.mpris.mpris.TrackList.TrackMetadataChanged) -> Unit = {}
+    var metadataCacheEntries: Int = 1000
+    var metadataCacheBytes: Long = 8L * 1024 * 1024
+    var metadataPartitionSize: Int = 100
+    var metadataTimeoutMillis: Long = 2000
 
     /**
      * Convert to a Java builder
      */
     internal fun toBuilder(): MPRISMediaPlayer.TrackListBuilder {
-        return MPRISMediaPlayer.TrackListBuilder()
+        val builder = MPRISMediaPlayer.TrackListBuilder()
+        onGetTracksMetadataAsync?.let { handler -> builder.setOnGetTracksMetadataAsync { handler(it) } }
+        return builder
             .setTracks(*tracks.toTypedArray())
             .setCanEditTracks(canEditTracks)
             .setOnGetTracksMetadata { onGetTracksMetadata(it) }
@@ -33,5 +44,7 @@ class TrackListConfig {
             .setOnSignalTrackAdded { onSignalTrackAdded(it) }
             .setOnSignalTrackRemoved { onSignalTrackRemoved(it) }
             .setOnSignalTrackMetadataChanged { onSignalTrackMetadataChanged(it) }
+            .setMetadataCache(metadataCacheEntries, metadataCacheBytes)
+            .setMetadataBatching(metadataPartitionSize, metadataTimeoutMillis)
     }
 }
\ No newline at end of file
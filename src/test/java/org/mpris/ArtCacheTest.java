@@ -0,0 +1,122 @@
+package org.mpris;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Size limits of {@link ArtCache}: stored and downloaded images never exceed the cache
+ */
+class ArtCacheTest {
+    private static final long MAX_BYTES = 1024;
+
+    @TempDir
+    Path directory;
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // Chunked, so the client only learns the size by reading
+        server.createContext("/large", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try(OutputStream body = exchange.getResponseBody()) {
+                byte[] chunk = new byte[256];
+                for(int i = 0; i < 64; i++) {
+                    body.write(chunk);
+                }
+            } catch (IOException e) {
+                // The client stopped reading
+            }
+        });
+        server.createContext("/small", exchange -> {
+            byte[] image = image(512, (byte) 1);
+            exchange.sendResponseHeaders(200, image.length);
+            try(OutputStream body = exchange.getResponseBody()) {
+                body.write(image);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void imagesFittingTheCacheAreStoredAndEvicted() throws IOException {
+        ArtCache cache = new ArtCache(directory, MAX_BYTES);
+
+        URI first = cache.store(image(600, (byte) 1));
+        URI second = cache.store(new ByteArrayInputStream(image(600, (byte) 2)));
+
+        assertFalse(Files.exists(Paths.get(first)));
+        assertTrue(Files.exists(Paths.get(second)));
+        assertEquals(600, cache.getTotalBytes());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void imagesLargerThanTheCacheAreRejected() throws IOException {
+        ArtCache cache = new ArtCache(directory, MAX_BYTES);
+        cache.store(image(512, (byte) 1));
+
+        assertThrows(IOException.class, () -> cache.store(image((int) MAX_BYTES + 1, (byte) 2)));
+        assertThrows(IOException.class, () -> cache.store(new ByteArrayInputStream(image((int) MAX_BYTES + 1, (byte) 3))));
+
+        assertEquals(1, cache.size());
+        assertEquals(512, cache.getTotalBytes());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(1, files());
+    }
+
+    @Test
+    void downloadsStopAtTheSizeOfTheCache() throws IOException {
+        ArtCache cache = new ArtCache(directory, MAX_BYTES);
+
+        assertThrows(IOException.class, () -> cache.fetch(url("/large")));
+        assertEquals(0, cache.size());
+        assertEquals(0, files());
+
+        URI small = cache.fetch(url("/small"));
+        assertEquals(512, Files.size(Paths.get(small)));
+        assertEquals(small, cache.fetch(url("/small")));
+    }
+
+    private URI url(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private long files() throws IOException {
+        try(Stream<Path> listing = Files.list(directory)) {
+            return listing.count();
+        }
+    }
+
+    /**
+     * @return Bytes starting with the PNG signature, not a decodable image
+     */
+    private static byte[] image(int size, byte fill) {
+        byte[] image = new byte[size];
+        Arrays.fill(image, fill);
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+        System.arraycopy(signature, 0, image, 0, signature.length);
+        return image;
+    }
+}
@@ -0,0 +1,41 @@
+package org.mpris;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lanes of {@link CallbackDispatcher} keep running whatever their handlers throw
+ */
+class CallbackDispatcherTest {
+    @Test
+    void handlersBehindAnErrorStillRun() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setUncaughtExceptionHandler((t, e) -> {});
+            return thread;
+        });
+        try {
+            CallbackDispatcher dispatcher = new CallbackDispatcher(executor, MPRISMetrics.NOOP);
+            BlockingQueue<String> ran = new LinkedBlockingQueue<>();
+
+            dispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, () -> {
+                throw new AssertionError("handler failed");
+            });
+            dispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, () -> ran.add("after"));
+            assertEquals("after", ran.poll(5, TimeUnit.SECONDS));
+
+            dispatcher.dispatch(CallbackDispatcher.Category.PLAYBACK, () -> ran.add("later"));
+            assertEquals("later", ran.poll(5, TimeUnit.SECONDS));
+            assertEquals(1, dispatcher.getFailedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.mpris;
+
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mpris.mpris.PlaybackStatus;
+import org.mpris.testing.MPRISTestHarness;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Players of one {@link MPRISHost} are separate on the bus: own name, own connection, own signals
+ */
+class MPRISHostTest {
+    private MPRISTestHarness harness;
+    private MPRISHost host;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        harness = MPRISTestHarness.start();
+        host = new MPRISHost(harness.getBus()::connect, null);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        host.close();
+        harness.close();
+    }
+
+    @Test
+    void startPutsEveryPlayerOnTheBusWithItsOwnConnection() throws Exception {
+        MPRISMediaPlayer kitchen = build("Kitchen");
+        MPRISMediaPlayer garden = build("Garden");
+        host.start();
+
+        assertEquals("zones.instance1", kitchen.getPlayerName());
+        assertEquals("zones.instance2", garden.getPlayerName());
+        assertNotEquals(kitchen.getConnection().getUniqueName(), garden.getConnection().getUniqueName());
+        assertEquals("Kitchen", identity(kitchen));
+        assertEquals("Garden", identity(garden));
+        assertEquals(2, host.getPlayers().size());
+    }
+
+    @Test
+    void signalsAreSentFromTheUniqueNameOfThePlayer() throws Exception {
+        MPRISMediaPlayer kitchen = build("Kitchen");
+        MPRISMediaPlayer garden = build("Garden");
+        host.start();
+        BlockingQueue<Properties.PropertiesChanged> changes = new LinkedBlockingQueue<>();
+        harness.client(garden.getPlayerName()).getConnection().addSigHandler(Properties.PropertiesChanged.class, changes::add);
+
+        kitchen.getMPRISMediaPlayer2().setPlaybackStatus(PlaybackStatus.PLAYING);
+        garden.getMPRISMediaPlayer2().setPlaybackStatus(PlaybackStatus.PAUSED);
+
+        Properties.PropertiesChanged first = changes.poll(5, TimeUnit.SECONDS);
+        Properties.PropertiesChanged second = changes.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertNotNull(second);
+        for(Properties.PropertiesChanged changed : new Properties.PropertiesChanged[]{first, second}) {
+            String expected = "Playing".equals(changed.getPropertiesChanged().get("PlaybackStatus").getValue())
+                    ? kitchen.getConnection().getUniqueName()
+                    : garden.getConnection().getUniqueName();
+            assertEquals(expected, changed.getSource());
+        }
+    }
+
+    @Test
+    void removedAndClosedPlayersLeaveTheBus() throws Exception {
+        MPRISMediaPlayer kitchen = build("Kitchen");
+        MPRISMediaPlayer garden = build("Garden");
+        host.start();
+        MPRISTestHarness.Client kitchenClient = harness.client(kitchen.getPlayerName());
+        MPRISTestHarness.Client gardenClient = harness.client(garden.getPlayerName());
+
+        host.removePlayer(kitchen);
+        assertThrows(DBusExecutionException.class,
+                () -> kitchenClient.properties().Get(MPRISObjectPaths.MEDIAPLAYER2.getPath(), "Identity"));
+        assertEquals("Garden", gardenClient.properties().Get(MPRISObjectPaths.MEDIAPLAYER2.getPath(), "Identity").getValue());
+
+        host.close();
+        assertThrows(DBusExecutionException.class,
+                () -> gardenClient.properties().Get(MPRISObjectPaths.MEDIAPLAYER2.getPath(), "Identity"));
+        assertThrows(IllegalStateException.class, () -> host.createPlayer("zones"));
+    }
+
+    @Test
+    void playersShareTheCallbackExecutorOfTheHost() throws Exception {
+        host.close();
+        BlockingQueue<Runnable> executed = new LinkedBlockingQueue<>();
+        host = new MPRISHost(harness.getBus()::connect, task -> {
+            executed.add(task);
+            task.run();
+        });
+        MPRISMediaPlayer kitchen = build("Kitchen");
+        MPRISMediaPlayer garden = build("Garden");
+        kitchen.create();
+        assertEquals(1, host.getPlayers().size());
+        executed.clear();
+        host.start();
+        assertEquals(2, host.getPlayers().size());
+        // The round trips of start run on the host's bus threads, only callbacks use the executor
+        assertTrue(executed.isEmpty());
+
+        harness.client(kitchen.getPlayerName()).player().Next();
+        harness.client(garden.getPlayerName()).player().Next();
+
+        assertNotNull(executed.poll(5, TimeUnit.SECONDS));
+        assertNotNull(executed.poll(5, TimeUnit.SECONDS));
+    }
+
+    private MPRISMediaPlayer build(String identity) throws Exception {
+        MPRISMediaPlayer player = host.createPlayer("zones");
+        player.buildMPRISMediaPlayer2None(MPRISTestHarness.defaultMediaPlayer2().setIdentity(identity), MPRISTestHarness.defaultPlayer());
+        return player;
+    }
+
+    private String identity(MPRISMediaPlayer player) throws Exception {
+        return (String) harness.client(player.getPlayerName()).properties()
+                .Get(MPRISObjectPaths.MEDIAPLAYER2.getPath(), "Identity").getValue();
+    }
+}
@@ -0,0 +1,421 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.errors.PropertyReadOnly;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mpris.mpris.*;
+import org.mpris.testing.MPRISTestHarness;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Get, Set, GetAll and signals of a player in every build mode, seen by a client on the {@link MPRISTestHarness}
+ */
+class MPRISMediaPlayerTest {
+    private static final long SIGNAL_TIMEOUT_MILLIS = 5000;
+    private static final String PLAYER_NAME = "test";
+
+    private MPRISTestHarness harness;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        harness = MPRISTestHarness.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        harness.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void getAllReturnsTheInterfacesOfTheMode(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        harness.createPlayer(PLAYER_NAME, mode);
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+
+        Map<String, Variant<?>> mediaPlayer2 = properties.GetAll(MPRISObjectPaths.MEDIAPLAYER2.getPath());
+        assertEquals("Test Player", mediaPlayer2.get("Identity").getValue());
+        assertEquals(hasTrackList(mode), mediaPlayer2.get("HasTrackList").getValue());
+        Map<String, Variant<?>> player = properties.GetAll(MPRISObjectPaths.PLAYER.getPath());
+        assertEquals("Stopped", player.get("PlaybackStatus").getValue());
+        assertEquals(1.0, player.get("Volume").getValue());
+        assertTrue(player.containsKey("Position"));
+
+        if(hasTrackList(mode)) {
+            assertEquals(true, properties.GetAll(MPRISObjectPaths.TRACKLIST.getPath()).get("CanEditTracks").getValue());
+        }else{
+            assertThrows(DBusExecutionException.class, () -> properties.GetAll(MPRISObjectPaths.TRACKLIST.getPath()));
+        }
+        if(hasPlaylists(mode)) {
+            assertEquals(new UInt32(0), properties.GetAll(MPRISObjectPaths.PLAYLISTS.getPath()).get("PlaylistCount").getValue());
+        }else{
+            assertThrows(DBusExecutionException.class, () -> properties.GetAll(MPRISObjectPaths.PLAYLISTS.getPath()));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void getReturnsSingleProperties(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        harness.createPlayer(PLAYER_NAME, mode);
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+
+        assertEquals("Test Player", properties.Get(MPRISObjectPaths.MEDIAPLAYER2.getPath(), "Identity").getValue());
+        assertEquals("None", properties.Get(MPRISObjectPaths.PLAYER.getPath(), "LoopStatus").getValue());
+        assertEquals(0L, properties.Get(MPRISObjectPaths.PLAYER.getPath(), "Position").getValue());
+        assertThrows(DBusExecutionException.class, () -> properties.Get(MPRISObjectPaths.PLAYER.getPath(), "NoSuchProperty"));
+        assertThrows(DBusExecutionException.class, () -> properties.Get("org.example.NoSuchInterface", "Identity"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void setChangesThePlayerAndIsReadBack(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+
+        properties.Set(MPRISObjectPaths.PLAYER.getPath(), "Volume", new Variant<>(0.25));
+        properties.Set(MPRISObjectPaths.PLAYER.getPath(), "Shuffle", new Variant<>(true));
+
+        assertEquals(0.25, mediaPlayer.getMPRISMediaPlayer2().getVolume());
+        assertTrue(mediaPlayer.getMPRISMediaPlayer2().getShuffle());
+        assertEquals(0.25, properties.Get(MPRISObjectPaths.PLAYER.getPath(), "Volume").getValue());
+        assertEquals(true, properties.GetAll(MPRISObjectPaths.PLAYER.getPath()).get("Shuffle").getValue());
+        assertThrows(DBusExecutionException.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYER.getPath(), "NoSuchProperty", new Variant<>(true)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void setLoopStatusTakesTheWireValue(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+
+        for(LoopStatus loopStatus : new LoopStatus[]{LoopStatus.TRACK, LoopStatus.PLAYLIST, LoopStatus.NONE}) {
+            properties.Set(MPRISObjectPaths.PLAYER.getPath(), "LoopStatus", new Variant<>(loopStatus.GetAsString()));
+
+            assertEquals(loopStatus, mediaPlayer.getMPRISMediaPlayer2().getLoopStatus());
+            assertEquals(loopStatus.GetAsString(), properties.Get(MPRISObjectPaths.PLAYER.getPath(), "LoopStatus").getValue());
+        }
+        assertThrows(DBusExecutionException.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYER.getPath(), "LoopStatus", new Variant<>("TRACK")));
+        assertEquals(LoopStatus.NONE, mediaPlayer.getMPRISMediaPlayer2().getLoopStatus());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void setOnReadOnlyPropertiesIsRejected(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+
+        DBusExecutionException rejected = assertThrows(DBusExecutionException.class,
+                () -> properties.Set(MPRISObjectPaths.MEDIAPLAYER2.getPath(), "Identity", new Variant<>("Other")));
+        assertEquals(PropertyReadOnly.class, rejected.getClass());
+        assertThrows(PropertyReadOnly.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYER.getPath(), "PlaybackStatus", new Variant<>("Playing")));
+        assertThrows(PropertyReadOnly.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYER.getPath(), "CanControl", new Variant<>(false)));
+        assertThrows(PropertyReadOnly.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYER.getPath(), "MaximumRate", new Variant<>(8.0)));
+
+        MPRISMP2Base player = mediaPlayer.getMPRISMediaPlayer2();
+        assertEquals("Test Player", player.getIdentity());
+        assertEquals(PlaybackStatus.STOPPED, player.getPlaybackStatus());
+        assertTrue(player.getCanControl());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void setIsCheckedLikeTheJavaSetters(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode, MPRISTestHarness.defaultMediaPlayer2(),
+                MPRISTestHarness.defaultPlayer().setMinimumRate(0.5).setMaximumRate(2.0).setRate(1.0), MPRISTestHarness.defaultTrackList(),
+                MPRISTestHarness.defaultPlaylists());
+        MPRISMP2Base player = mediaPlayer.getMPRISMediaPlayer2();
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+
+        properties.Set(MPRISObjectPaths.PLAYER.getPath(), "Volume", new Variant<>(-0.5));
+        assertEquals(0.0, player.getVolume());
+        assertThrows(DBusExecutionException.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYER.getPath(), "Rate", new Variant<>(4.0)));
+        assertEquals(1.0, player.getRate());
+        properties.Set(MPRISObjectPaths.PLAYER.getPath(), "Rate", new Variant<>(1.5));
+        assertEquals(1.5, player.getRate());
+        player.setPlaybackStatus(PlaybackStatus.PLAYING);
+        properties.Set(MPRISObjectPaths.PLAYER.getPath(), "Rate", new Variant<>(0.0));
+        assertEquals(PlaybackStatus.PAUSED, player.getPlaybackStatus());
+        assertEquals(1.5, player.getRate());
+        assertThrows(DBusExecutionException.class,
+                () -> properties.Set(MPRISObjectPaths.MEDIAPLAYER2.getPath(), "Fullscreen", new Variant<>(true)));
+        assertFalse(player.getFullscreen());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void setNeedsCanControl(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode, MPRISTestHarness.defaultMediaPlayer2(),
+                MPRISTestHarness.defaultPlayer().setCanControl(false).setMinimumRate(0.5).setMaximumRate(2.0).setRate(1.0),
+                MPRISTestHarness.defaultTrackList(), MPRISTestHarness.defaultPlaylists());
+        MPRISMP2Base player = mediaPlayer.getMPRISMediaPlayer2();
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+
+        for(String property : new String[]{"Volume", "Rate", "Shuffle", "LoopStatus"}) {
+            Variant<?> value = property.equals("Shuffle") ? new Variant<>(true)
+                    : property.equals("LoopStatus") ? new Variant<>("Track") : new Variant<>(1.0);
+            assertThrows(DBusExecutionException.class, () -> properties.Set(MPRISObjectPaths.PLAYER.getPath(), property, value), property);
+        }
+        assertEquals(1.0, player.getVolume());
+        assertEquals(1.0, player.getRate());
+        assertFalse(player.getShuffle());
+        assertEquals(LoopStatus.NONE, player.getLoopStatus());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void propertyChangesAreSignalled(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        MPRISTestHarness.Client client = harness.client(PLAYER_NAME);
+        BlockingQueue<Properties.PropertiesChanged> changes = collect(client, Properties.PropertiesChanged.class);
+
+        mediaPlayer.getMPRISMediaPlayer2().setPlaybackStatus(PlaybackStatus.PLAYING);
+
+        Properties.PropertiesChanged changed = await(changes, signal -> signal.getPropertiesChanged().containsKey("PlaybackStatus"));
+        assertEquals(MPRISObjectPaths.PLAYER.getPath(), changed.getInterfaceName());
+        assertEquals("Playing", changed.getPropertiesChanged().get("PlaybackStatus").getValue());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void failedTransactionSendsItsChangesAndCloses(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        MPRISMP2Base player = mediaPlayer.getMPRISMediaPlayer2();
+        BlockingQueue<Properties.PropertiesChanged> changes = collect(harness.client(PLAYER_NAME), Properties.PropertiesChanged.class);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> mediaPlayer.transaction(() -> {
+            player.setPlaybackStatus(PlaybackStatus.PLAYING);
+            throw new IllegalStateException("Block failed");
+        }));
+        assertEquals("Block failed", failure.getMessage());
+        assertEquals(0, failure.getSuppressed().length);
+        assertEquals("Playing", await(changes, signal -> signal.getPropertiesChanged().containsKey("PlaybackStatus"))
+                .getPropertiesChanged().get("PlaybackStatus").getValue());
+
+        player.setPlaybackStatus(PlaybackStatus.PAUSED);
+        assertEquals("Paused", await(changes, signal -> signal.getPropertiesChanged().containsKey("PlaybackStatus"))
+                .getPropertiesChanged().get("PlaybackStatus").getValue());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void jumpsAreSignalledAsSeeked(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        BlockingQueue<Player.Seeked> seeked = collect(harness.client(PLAYER_NAME), Player.Seeked.class);
+
+        mediaPlayer.getMPRISMediaPlayer2().setPosition(60_000_000);
+
+        assertEquals(60_000_000, await(seeked, signal -> true).getTimeInUs());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MPRISMediaPlayer.MediaPlayer2Mode.class)
+    void onlySeekedOfOtherPlayersReachTheCallback(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        BlockingQueue<Long> received = new LinkedBlockingQueue<>();
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode, MPRISTestHarness.defaultMediaPlayer2(),
+                MPRISTestHarness.defaultPlayer().setOnSignalSeeked(received::add), MPRISTestHarness.defaultTrackList(),
+                MPRISTestHarness.defaultPlaylists());
+        MPRISTestHarness.Client client = harness.client(PLAYER_NAME);
+        BlockingQueue<Player.Seeked> seeked = collect(client, Player.Seeked.class);
+
+        mediaPlayer.getMPRISMediaPlayer2().setPosition(60_000_000);
+        await(seeked, signal -> signal.getTimeInUs() == 60_000_000);
+        client.getConnection().sendMessage(new Player.Seeked("/org/example/NotAPlayer", 10_000_000));
+        client.getConnection().sendMessage(new Player.Seeked(mediaPlayer.getMPRISMediaPlayer2().getObjectPath(), 20_000_000));
+
+        assertEquals(20_000_000L, received.poll(SIGNAL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MPRISMediaPlayer.MediaPlayer2Mode.class, names = {"ALL", "WTL"})
+    void addedTracksAreSignalled(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        BlockingQueue<TrackList.TrackAdded> added = collect(harness.client(PLAYER_NAME), TrackList.TrackAdded.class);
+        DBusPath trackId = new DBusPath("/org/mpris/test/track/1");
+        Metadata metadata = new Metadata.Builder().setTrackID(trackId).setLength(1_000_000).setTitle("Added").build();
+
+        ((TrackListDelegate) mediaPlayer.getMPRISMediaPlayer2()).addTrack(metadata, new DBusPath("/org/mpris/test/track/0"));
+
+        TrackList.TrackAdded signal = await(added, s -> true);
+        assertEquals("Added", signal.getMetadata().get("xesam:title").getValue());
+        assertEquals("/org/mpris/test/track/0", signal.getAfterTrack().getPath());
+        Object tracks = harness.client(PLAYER_NAME).properties().Get(MPRISObjectPaths.TRACKLIST.getPath(), "Tracks").getValue();
+        assertEquals(2, ((List<?>) tracks).size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MPRISMediaPlayer.MediaPlayer2Mode.class, names = {"ALL", "WTL"})
+    void tracksCanBeReadWhileSetTracksLoadsMetadata(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        // Long enough that one TrackAdded is cheaper than TrackListReplaced
+        List<DBusPath> tracks = new ArrayList<>();
+        for(int i = 0; i < 20; i++) {
+            tracks.add(new DBusPath("/org/mpris/test/track/" + i));
+        }
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MPRISMediaPlayer.TrackListBuilder trackListBuilder = MPRISTestHarness.defaultTrackList()
+                .setTracks(tracks.toArray(new DBusPath[0]))
+                .setOnGetTracksMetadata(trackIds -> {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Collections.emptyList();
+                });
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode, MPRISTestHarness.defaultMediaPlayer2(),
+                MPRISTestHarness.defaultPlayer(), trackListBuilder, MPRISTestHarness.defaultPlaylists());
+        BlockingQueue<TrackList.TrackAdded> added = collect(harness.client(PLAYER_NAME), TrackList.TrackAdded.class);
+        TrackListDelegate player = (TrackListDelegate) mediaPlayer.getMPRISMediaPlayer2();
+        tracks.add(new DBusPath("/org/mpris/test/track/20"));
+
+        CompletableFuture<Void> setTracks = CompletableFuture.runAsync(() -> {
+            try {
+                player.setTracks(tracks);
+            } catch (DBusException e) {
+                throw new CompletionException(e);
+            }
+        });
+        try {
+            assertTrue(loading.await(SIGNAL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            List<DBusPath> read = CompletableFuture.supplyAsync(player::getTracks).get(SIGNAL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertEquals(21, read.size());
+        } finally {
+            release.countDown();
+        }
+        setTracks.get(SIGNAL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals("/org/mpris/test/track/19", await(added, signal -> true).getAfterTrack().getPath());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MPRISMediaPlayer.MediaPlayer2Mode.class, names = {"ALL", "WTL"})
+    void onlyTrackSignalsOfOtherPlayersReachTheCallbacks(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        BlockingQueue<TrackList.TrackAdded> received = new LinkedBlockingQueue<>();
+        MPRISMediaPlayer.TrackListBuilder trackListBuilder = MPRISTestHarness.defaultTrackList()
+                .setCanEditTracks(false)
+                .setOnSignalTrackAdded(signal -> {
+                    received.add(signal);
+                    return signal;
+                });
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode, MPRISTestHarness.defaultMediaPlayer2(),
+                MPRISTestHarness.defaultPlayer(), trackListBuilder, MPRISTestHarness.defaultPlaylists());
+        MPRISTestHarness.Client client = harness.client(PLAYER_NAME);
+        BlockingQueue<TrackList.TrackAdded> added = collect(client, TrackList.TrackAdded.class);
+        DBusPath trackId = new DBusPath("/org/mpris/test/track/1");
+        Metadata metadata = new Metadata.Builder().setTrackID(trackId).setLength(1_000_000).setTitle("Added").build();
+
+        ((TrackListDelegate) mediaPlayer.getMPRISMediaPlayer2()).addTrack(metadata, new DBusPath("/org/mpris/test/track/0"));
+        await(added, signal -> true);
+        client.getConnection().sendMessage(new TrackList.TrackAdded(mediaPlayer.getMPRISMediaPlayer2().getObjectPath(),
+                metadata.getInternalMap(), new DBusPath("/org/mpris/test/track/0")));
+
+        TrackList.TrackAdded first = received.poll(SIGNAL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertNotNull(first);
+        assertEquals(client.getConnection().getUniqueName(), first.getSource());
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MPRISMediaPlayer.MediaPlayer2Mode.class, names = {"ALL", "WTL"})
+    void trackListPropertiesAreReadOnly(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+        BlockingQueue<TrackList.TrackListReplaced> replaced = collect(harness.client(PLAYER_NAME), TrackList.TrackListReplaced.class);
+
+        assertThrows(PropertyReadOnly.class, () -> properties.Set(MPRISObjectPaths.TRACKLIST.getPath(), "Tracks",
+                new Variant<>(List.of(new DBusPath("/org/mpris/test/track/9")), "ao")));
+        assertThrows(PropertyReadOnly.class,
+                () -> properties.Set(MPRISObjectPaths.TRACKLIST.getPath(), "CanEditTracks", new Variant<>(false)));
+
+        TrackListDelegate trackList = (TrackListDelegate) mediaPlayer.getMPRISMediaPlayer2();
+        assertEquals(List.of(new DBusPath("/org/mpris/test/track/0")), trackList.getTracks());
+        assertTrue(trackList.getCanEditTracks());
+        assertNull(replaced.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MPRISMediaPlayer.MediaPlayer2Mode.class, names = {"ALL", "WPL"})
+    void activePlaylistChangesAreSignalled(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        MPRISMediaPlayer mediaPlayer = harness.createPlayer(PLAYER_NAME, mode);
+        BlockingQueue<Properties.PropertiesChanged> changes = collect(harness.client(PLAYER_NAME), Properties.PropertiesChanged.class);
+        Playlists.Maybe_Playlist active = new Playlists.Maybe_Playlist(true, new Playlists.Playlist(new DBusPath("/playlists/1"), "Road trip", ""));
+
+        if(mediaPlayer.getMPRISMediaPlayer2() instanceof MPRISMP2All) {
+            ((MPRISMP2All) mediaPlayer.getMPRISMediaPlayer2()).setActivePlaylist(active);
+        }else{
+            ((MPRISMP2WPL) mediaPlayer.getMPRISMediaPlayer2()).setActivePlaylist(active);
+        }
+
+        Properties.PropertiesChanged changed = await(changes, signal -> signal.getPropertiesChanged().containsKey("ActivePlaylist"));
+        assertEquals(MPRISObjectPaths.PLAYLISTS.getPath(), changed.getInterfaceName());
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+        assertNotNull(properties.Get(MPRISObjectPaths.PLAYLISTS.getPath(), "ActivePlaylist"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MPRISMediaPlayer.MediaPlayer2Mode.class, names = {"ALL", "WPL"})
+    void playlistPropertiesAreReadOnly(MPRISMediaPlayer.MediaPlayer2Mode mode) throws Exception {
+        harness.createPlayer(PLAYER_NAME, mode);
+        DBusProperties properties = harness.client(PLAYER_NAME).properties();
+        Playlists.Maybe_Playlist active = new Playlists.Maybe_Playlist(true, new Playlists.Playlist(new DBusPath("/playlists/1"), "Road trip", ""));
+
+        assertThrows(PropertyReadOnly.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYLISTS.getPath(), "PlaylistCount", new Variant<>(new UInt32(5))));
+        assertThrows(PropertyReadOnly.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYLISTS.getPath(), "Orderings", new Variant<>(List.of("Unknown"), "as")));
+        assertThrows(PropertyReadOnly.class,
+                () -> properties.Set(MPRISObjectPaths.PLAYLISTS.getPath(), "ActivePlaylist", new Variant<>(active, "(b(oss))")));
+        Map<String, Variant<?>> playlists = properties.GetAll(MPRISObjectPaths.PLAYLISTS.getPath());
+        assertEquals(new UInt32(0), playlists.get("PlaylistCount").getValue());
+        assertEquals(List.of("User"), playlists.get("Orderings").getValue());
+    }
+
+    private static boolean hasTrackList(MPRISMediaPlayer.MediaPlayer2Mode mode) {
+        return mode == MPRISMediaPlayer.MediaPlayer2Mode.ALL || mode == MPRISMediaPlayer.MediaPlayer2Mode.WTL;
+    }
+
+    private static boolean hasPlaylists(MPRISMediaPlayer.MediaPlayer2Mode mode) {
+        return mode == MPRISMediaPlayer.MediaPlayer2Mode.ALL || mode == MPRISMediaPlayer.MediaPlayer2Mode.WPL;
+    }
+
+    private static <S extends DBusSignal> BlockingQueue<S> collect(MPRISTestHarness.Client client, Class<S> signalType) throws DBusException {
+        BlockingQueue<S> signals = new LinkedBlockingQueue<>();
+        client.getConnection().addSigHandler(signalType, signals::add);
+        return signals;
+    }
+
+    /**
+     * @return The first signal matching the filter
+     */
+    private static <S extends DBusSignal> S await(BlockingQueue<S> signals, Predicate<S> filter) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SIGNAL_TIMEOUT_MILLIS;
+        while(true) {
+            S signal = signals.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            if(signal == null) return fail("No matching signal within " + SIGNAL_TIMEOUT_MILLIS + "ms");
+            if(filter.test(signal)) return signal;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.mpris;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Random inserts, removals, rank and range queries on {@link OrderStatisticTree}, checked against an
+ * {@link ArrayList} holding the same nodes
+ */
+class OrderStatisticTreeTest {
+    private static final int OPERATIONS = 20_000;
+
+    @Test
+    void positionalOperationsMatchAList() {
+        Random random = new Random(42);
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        List<OrderStatisticTree.Node<Integer>> oracle = new ArrayList<>();
+
+        for(int i = 0; i < OPERATIONS; i++) {
+            int operation = random.nextInt(10);
+            if(operation < 5 || oracle.isEmpty()) {
+                int index = random.nextInt(oracle.size() + 1);
+                oracle.add(index, tree.insert(index, i));
+            }else if(operation < 8) {
+                tree.remove(oracle.remove(random.nextInt(oracle.size())));
+            }else{
+                int index = random.nextInt(oracle.size());
+                assertEquals(oracle.get(index).getValue(), tree.get(index));
+                assertEquals(index, tree.indexOf(oracle.get(index)));
+                assertRange(tree, values(oracle), random);
+            }
+            assertEquals(oracle.size(), tree.size());
+        }
+        assertEquals(values(oracle), tree.toList());
+        for(int i = 0; i < oracle.size(); i++) {
+            assertEquals(i, tree.indexOf(oracle.get(i)));
+        }
+    }
+
+    @Test
+    void sortedInsertsKeepEqualElementsInInsertionOrder() {
+        Random random = new Random(7);
+        Comparator<int[]> byKey = Comparator.comparingInt(element -> element[0]);
+        OrderStatisticTree<int[]> tree = new OrderStatisticTree<>();
+        List<OrderStatisticTree.Node<int[]>> oracle = new ArrayList<>();
+
+        for(int i = 0; i < OPERATIONS; i++) {
+            if(random.nextInt(3) > 0 || oracle.isEmpty()) {
+                int[] element = {random.nextInt(100), i};
+                int index = 0;
+                while(index < oracle.size() && byKey.compare(oracle.get(index).getValue(), element) <= 0) index++;
+                OrderStatisticTree.Node<int[]> node = tree.insertSorted(element, byKey);
+                assertEquals(index, tree.indexOf(node));
+                oracle.add(index, node);
+            }else{
+                tree.remove(oracle.remove(random.nextInt(oracle.size())));
+            }
+        }
+        List<int[]> expected = values(oracle);
+        List<int[]> actual = tree.toList();
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void rebuildReturnsTheNodesInOrder() {
+        List<Integer> values = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) {
+            values.add(i);
+        }
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        tree.insert(0, -1);
+        List<OrderStatisticTree.Node<Integer>> nodes = tree.rebuild(values);
+
+        assertEquals(values, tree.toList());
+        for(int i = 0; i < nodes.size(); i++) {
+            assertEquals(i, tree.indexOf(nodes.get(i)));
+        }
+        tree.remove(nodes.get(500));
+        tree.insert(0, 1000);
+        assertEquals(1000, tree.get(0));
+        assertEquals(501, tree.get(501));
+        assertEquals(999, tree.indexOf(nodes.get(999)));
+
+        assertTrue(tree.rebuild(Collections.emptyList()).isEmpty());
+        assertEquals(0, tree.size());
+        assertTrue(tree.range(0, 10, false).isEmpty());
+    }
+
+    @Test
+    void rangeOutsideTheTreeIsEmpty() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>();
+        for(int i = 0; i < 10; i++) {
+            tree.insert(i, i);
+        }
+        assertTrue(tree.range(10, 5, false).isEmpty());
+        assertTrue(tree.range(-1, 5, true).isEmpty());
+        assertTrue(tree.range(0, 0, false).isEmpty());
+        assertEquals(List.of(8, 9), tree.range(8, 5, false));
+        assertEquals(List.of(1, 0), tree.range(8, 5, true));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.get(10));
+    }
+
+    private static void assertRange(OrderStatisticTree<Integer> tree, List<Integer> expected, Random random) {
+        int index = random.nextInt(expected.size());
+        int count = random.nextInt(20);
+        boolean reverse = random.nextBoolean();
+        List<Integer> ordered = new ArrayList<>(expected);
+        if(reverse) Collections.reverse(ordered);
+        assertEquals(ordered.subList(index, Math.min(ordered.size(), index + count)), tree.range(index, count, reverse));
+    }
+
+    private static <E> List<E> values(List<OrderStatisticTree.Node<E>> nodes) {
+        List<E> values = new ArrayList<>(nodes.size());
+        for(OrderStatisticTree.Node<E> node : nodes) {
+            values.add(node.getValue());
+        }
+        return values;
+    }
+}
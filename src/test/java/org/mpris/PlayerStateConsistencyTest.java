@@ -0,0 +1,119 @@
+package org.mpris;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mpris.testing.MPRISTestHarness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent writers and readers of one player: GetAll never mixes two versions of the state and the last
+ * PropertiesChanged of a property carries its published value
+ */
+class PlayerStateConsistencyTest {
+    private static final String PLAYER_NAME = "test";
+    private static final String PLAYER = MPRISObjectPaths.PLAYER.getPath();
+    private static final int WRITES = 2000;
+    private static final int READERS = 3;
+
+    private MPRISTestHarness harness;
+    private ExecutorService threads;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        harness = MPRISTestHarness.start();
+        threads = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        threads.shutdownNow();
+        harness.close();
+    }
+
+    /**
+     * The writer sets Volume and then MaximumRate to the same value, so a consistent GetAll sees MaximumRate equal
+     * to Volume or one step behind it
+     */
+    @Test
+    void getAllSeesPropertiesWrittenTogether() throws Exception {
+        MPRISMP2Base player = harness.createPlayer(PLAYER_NAME, MPRISMediaPlayer.MediaPlayer2Mode.NONE).getMPRISMediaPlayer2();
+        player.setVolume(1);
+        player.setMaximumRate(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<String>> readers = new ArrayList<>();
+        for(int i = 0; i < READERS; i++) {
+            readers.add(threads.submit(() -> {
+                while(writing.get()) {
+                    Map<String, Variant<?>> all = player.GetAll(PLAYER);
+                    double volume = (Double) all.get("Volume").getValue();
+                    double maximumRate = (Double) all.get("MaximumRate").getValue();
+                    if(volume - maximumRate != 0 && volume - maximumRate != 1) {
+                        return "GetAll returned Volume " + volume + " with MaximumRate " + maximumRate;
+                    }
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for(int i = 2; i <= WRITES; i++) {
+                player.setVolume(i);
+                player.setMaximumRate(i);
+            }
+        } finally {
+            writing.set(false);
+        }
+        for(Future<String> reader : readers) {
+            assertNull(reader.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void lastSignalCarriesThePublishedValue() throws Exception {
+        MPRISMP2Base player = harness.createPlayer(PLAYER_NAME, MPRISMediaPlayer.MediaPlayer2Mode.NONE).getMPRISMediaPlayer2();
+        BlockingQueue<Double> signalled = new LinkedBlockingQueue<>();
+        DBusConnection client = harness.client(PLAYER_NAME).getConnection();
+        // Received signals are handled on a pool of 4 threads by default, which may reorder them
+        client.changeThreadCount((byte) 1);
+        client.addSigHandler(Properties.PropertiesChanged.class, signal -> {
+            Variant<?> volume = signal.getPropertiesChanged().get("Volume");
+            if(volume != null) signalled.add((Double) volume.getValue());
+        });
+        int writesPerThread = WRITES / 10;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for(int writer = 0; writer < 2; writer++) {
+            int offset = writer * writesPerThread;
+            writers.add(threads.submit(() -> {
+                start.await();
+                for(int i = 1; i <= writesPerThread; i++) {
+                    player.setVolume(offset + i);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for(Future<?> writer : writers) {
+            writer.get(10, TimeUnit.SECONDS);
+        }
+        double last = Double.NaN;
+        for(int i = 0; i < 2 * writesPerThread; i++) {
+            Double volume = signalled.poll(5, TimeUnit.SECONDS);
+            assertNotNull(volume, "Only " + i + " of " + 2 * writesPerThread + " signals arrived");
+            last = volume;
+        }
+        assertEquals(player.getVolume(), last);
+    }
+}
@@ -0,0 +1,167 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.junit.jupiter.api.Test;
+import org.mpris.mpris.PlaylistOrdering;
+import org.mpris.mpris.Playlists;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pages of {@link PlaylistRegistry} in every ordering, checked against a list sorted on each query
+ */
+class PlaylistRegistryTest {
+    private static final String[] NAMES = {"Road trip", "road trip", "Focus", "Chill", "chill", "Workout", "Zen", "a"};
+
+    /**
+     * A playlist as the registry should see it, sequence is the order in which it was first added
+     */
+    private static final class Expected {
+        private final Playlists.Playlist playlist;
+        private final long created;
+        private final long modified;
+        private final long lastPlayed;
+        private final long sequence;
+
+        private Expected(Playlists.Playlist playlist, long created, long modified, long lastPlayed, long sequence) {
+            this.playlist = playlist;
+            this.created = created;
+            this.modified = modified;
+            this.lastPlayed = lastPlayed;
+            this.sequence = sequence;
+        }
+    }
+
+    @Test
+    void pagesMatchASortedList() throws Exception {
+        Random random = new Random(11);
+        PlaylistRegistry registry = new PlaylistRegistry();
+        Map<String, Expected> expected = new HashMap<>();
+        long sequence = 0;
+
+        for(int i = 0; i < 5000; i++) {
+            String id = "/org/mpris/test/playlist/" + random.nextInt(200);
+            Expected existing = expected.get(id);
+            int operation = random.nextInt(10);
+            if(operation < 5) {
+                Playlists.Playlist playlist = new Playlists.Playlist(new DBusPath(id), NAMES[random.nextInt(NAMES.length)], "");
+                long created = random.nextInt(50);
+                long modified = random.nextInt(50);
+                long lastPlayed = random.nextInt(50);
+                registry.put(playlist, created, modified, lastPlayed);
+                expected.put(id, new Expected(playlist, created, modified, lastPlayed, existing != null ? existing.sequence : sequence++));
+            }else if(operation < 7) {
+                assertEquals(existing != null, registry.remove(new DBusPath(id)));
+                expected.remove(id);
+            }else if(operation < 8) {
+                long lastPlayed = random.nextInt(50);
+                assertEquals(existing != null, registry.markPlayed(new DBusPath(id), lastPlayed));
+                if(existing != null) {
+                    expected.put(id, new Expected(existing.playlist, existing.created, existing.modified, lastPlayed, existing.sequence));
+                }
+            }else{
+                PlaylistOrdering ordering = PlaylistOrdering.values()[random.nextInt(PlaylistOrdering.values().length)];
+                boolean reverse = random.nextBoolean();
+                int index = random.nextInt(expected.size() + 2);
+                int maxCount = random.nextInt(30);
+                assertEquals(ids(page(expected.values(), ordering, index, maxCount, reverse)),
+                        ids(registry.getPlaylists(index, maxCount, ordering, reverse)));
+            }
+            assertEquals(expected.size(), registry.size());
+        }
+        for(PlaylistOrdering ordering : PlaylistOrdering.values()) {
+            assertEquals(ids(page(expected.values(), ordering, 0, Integer.MAX_VALUE, false)),
+                    ids(registry.getPlaylists(0, Integer.MAX_VALUE, ordering, false)));
+        }
+    }
+
+    @Test
+    void putWithoutDatesKeepsTheDatesAndPosition() throws Exception {
+        PlaylistRegistry registry = new PlaylistRegistry();
+        registry.put(playlist(1, "B"), 30, 0, 0);
+        registry.put(playlist(2, "A"), 20, 0, 0);
+        registry.put(playlist(3, "C"), 10, 0, 0);
+        registry.put(playlist(1, "D"));
+
+        assertEquals("D", registry.get(new DBusPath("/org/mpris/test/playlist/1")).getName());
+        assertEquals(List.of(3, 2, 1), numbers(registry.getPlaylists(0, 10, PlaylistOrdering.CreationData, false)));
+        assertEquals(List.of(1, 2, 3), numbers(registry.getPlaylists(0, 10, PlaylistOrdering.UserDefined, false)));
+        assertEquals(List.of(2, 3, 1), numbers(registry.getPlaylists(0, 10, PlaylistOrdering.Alphabetical, false)));
+        assertEquals(List.of(2, 1), numbers(registry.getPlaylists(1, 2, PlaylistOrdering.UserDefined, true)));
+    }
+
+    @Test
+    void countChangesAreReported() throws Exception {
+        PlaylistRegistry registry = new PlaylistRegistry(PlaylistOrdering.UserDefined);
+        List<Integer> counts = new ArrayList<>();
+        registry.setListener(counts::add);
+
+        registry.put(playlist(1, "A"));
+        registry.put(playlist(2, "B"));
+        registry.put(playlist(1, "C"));
+        registry.markPlayed(new DBusPath("/org/mpris/test/playlist/2"), 5);
+        registry.remove(new DBusPath("/org/mpris/test/playlist/1"));
+        registry.remove(new DBusPath("/org/mpris/test/playlist/1"));
+        registry.clear();
+        registry.clear();
+
+        assertEquals(List.of(1, 2, 1, 0), counts);
+        assertThrows(IllegalStateException.class, () -> registry.setListener(count -> {}));
+    }
+
+    @Test
+    void onlyTheOfferedOrderingsAreIndexed() {
+        PlaylistRegistry registry = new PlaylistRegistry(PlaylistOrdering.LastPlayDate, PlaylistOrdering.Alphabetical);
+
+        assertEquals(List.of(PlaylistOrdering.Alphabetical, PlaylistOrdering.LastPlayDate), registry.getOrderings());
+        assertThrows(IllegalArgumentException.class, () -> registry.getPlaylists(0, 10, PlaylistOrdering.UserDefined, false));
+        assertThrows(IllegalArgumentException.class, () -> new PlaylistRegistry(new PlaylistOrdering[0]));
+    }
+
+    private static List<Playlists.Playlist> page(Collection<Expected> playlists, PlaylistOrdering ordering, int index, int maxCount, boolean reverse) {
+        List<Expected> sorted = new ArrayList<>(playlists);
+        sorted.sort(comparator(ordering));
+        if(reverse) Collections.reverse(sorted);
+        List<Playlists.Playlist> page = new ArrayList<>();
+        for(int i = index; i < sorted.size() && page.size() < maxCount; i++) {
+            page.add(sorted.get(i).playlist);
+        }
+        return page;
+    }
+
+    private static Comparator<Expected> comparator(PlaylistOrdering ordering) {
+        switch(ordering) {
+            case Alphabetical: return Comparator
+                    .comparing((Expected playlist) -> playlist.playlist.getName(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(playlist -> playlist.playlist.getName())
+                    .thenComparingLong(playlist -> playlist.sequence);
+            case CreationData: return Comparator.comparingLong((Expected playlist) -> playlist.created).thenComparingLong(playlist -> playlist.sequence);
+            case ModifiedDate: return Comparator.comparingLong((Expected playlist) -> playlist.modified).thenComparingLong(playlist -> playlist.sequence);
+            case LastPlayDate: return Comparator.comparingLong((Expected playlist) -> playlist.lastPlayed).thenComparingLong(playlist -> playlist.sequence);
+            default: return Comparator.comparingLong(playlist -> playlist.sequence);
+        }
+    }
+
+    private static List<String> ids(List<Playlists.Playlist> playlists) {
+        List<String> ids = new ArrayList<>();
+        for(Playlists.Playlist playlist : playlists) {
+            ids.add(playlist.getId().getPath());
+        }
+        return ids;
+    }
+
+    private static List<Integer> numbers(List<Playlists.Playlist> playlists) {
+        List<Integer> numbers = new ArrayList<>();
+        for(Playlists.Playlist playlist : playlists) {
+            String id = playlist.getId().getPath();
+            numbers.add(Integer.parseInt(id.substring(id.lastIndexOf('/') + 1)));
+        }
+        return numbers;
+    }
+
+    private static Playlists.Playlist playlist(int number, String name) {
+        return new Playlists.Playlist(new DBusPath("/org/mpris/test/playlist/" + number), name, "");
+    }
+}
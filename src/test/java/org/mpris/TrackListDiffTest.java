@@ -0,0 +1,176 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays the edits of {@link TrackListDiff} onto the old tracklist the way a client applies TrackRemoved and
+ * TrackAdded, and checks that the result is the new tracklist
+ */
+class TrackListDiffTest {
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    @Test
+    void emptyLists() {
+        assertTrue(replay(List.of(), List.of(), UNLIMITED).isEmpty());
+        TrackListDiff added = replay(List.of(), tracks(0, 3), UNLIMITED);
+        assertEquals(List.of(), added.getRemoved());
+        assertEquals(tracks(0, 3), added.getAdded());
+        assertEquals(TrackListStore.NO_TRACK, added.getAddedAfter().get(0));
+        TrackListDiff removed = replay(tracks(0, 3), List.of(), UNLIMITED);
+        assertEquals(tracks(0, 3), removed.getRemoved());
+        assertEquals(List.of(), removed.getAdded());
+    }
+
+    @Test
+    void equalListsHaveNoEdits() {
+        assertTrue(replay(tracks(0, 100), tracks(0, 100), 0).isEmpty());
+    }
+
+    @Test
+    void pureAppend() {
+        TrackListDiff diff = replay(tracks(0, 50), tracks(0, 53), UNLIMITED);
+        assertEquals(List.of(), diff.getRemoved());
+        assertEquals(tracks(50, 53), diff.getAdded());
+        assertEquals(List.of(track(49), track(50), track(51)), diff.getAddedAfter());
+    }
+
+    @Test
+    void purePrepend() {
+        List<DBusPath> newTracks = new ArrayList<>(tracks(100, 103));
+        newTracks.addAll(tracks(0, 50));
+        TrackListDiff diff = replay(tracks(0, 50), newTracks, UNLIMITED);
+        assertEquals(List.of(), diff.getRemoved());
+        assertEquals(tracks(100, 103), diff.getAdded());
+        assertEquals(List.of(TrackListStore.NO_TRACK, track(100), track(101)), diff.getAddedAfter());
+    }
+
+    @Test
+    void movedTrackIsRemovedAndAdded() {
+        List<DBusPath> newTracks = new ArrayList<>(tracks(0, 10));
+        newTracks.add(3, newTracks.remove(7));
+        TrackListDiff diff = replay(tracks(0, 10), newTracks, UNLIMITED);
+        assertEquals(List.of(track(7)), diff.getRemoved());
+        assertEquals(List.of(track(7)), diff.getAdded());
+        assertEquals(List.of(track(2)), diff.getAddedAfter());
+    }
+
+    @Test
+    void maxEditsCutoff() {
+        List<DBusPath> newTracks = new ArrayList<>(tracks(0, 20));
+        newTracks.remove(15);
+        newTracks.remove(5);
+        newTracks.add(10, track(100));
+
+        TrackListDiff diff = replay(tracks(0, 20), newTracks, 3);
+        assertEquals(List.of(track(5), track(15)), diff.getRemoved());
+        assertEquals(List.of(track(100)), diff.getAdded());
+        assertNull(TrackListDiff.compute(tracks(0, 20), newTracks, 2));
+        assertNull(TrackListDiff.compute(tracks(0, 20), tracks(0, 23), 2));
+        assertNull(TrackListDiff.compute(tracks(0, 5), tracks(5, 10), 9));
+        assertNotNull(replay(tracks(0, 5), tracks(5, 10), 10));
+    }
+
+    @Test
+    void randomEditsReplayToTheNewListWithTheFewestEdits() {
+        Random random = new Random(3);
+        for(int round = 0; round < 2000; round++) {
+            List<DBusPath> oldTracks = randomTracks(random);
+            List<DBusPath> newTracks = randomTracks(random);
+            if(random.nextBoolean()) newTracks = mutate(oldTracks, random);
+
+            TrackListDiff diff = replay(oldTracks, newTracks, UNLIMITED);
+            int edits = diff.getRemoved().size() + diff.getAdded().size();
+            assertEquals(oldTracks.size() + newTracks.size() - 2 * commonSubsequence(oldTracks, newTracks), edits);
+            if(edits > 0) assertNull(TrackListDiff.compute(oldTracks, newTracks, edits - 1));
+            assertNotNull(TrackListDiff.compute(oldTracks, newTracks, edits));
+        }
+    }
+
+    /**
+     * Applies all removals, then each addition after its AfterTrack
+     * @return The checked diff
+     */
+    private static TrackListDiff replay(List<DBusPath> oldTracks, List<DBusPath> newTracks, int maxEdits) {
+        TrackListDiff diff = TrackListDiff.compute(oldTracks, newTracks, maxEdits);
+        assertNotNull(diff);
+        assertEquals(diff.getAdded().size(), diff.getAddedAfter().size());
+        List<String> tracks = paths(oldTracks);
+        for(DBusPath removed : diff.getRemoved()) {
+            assertTrue(tracks.remove(removed.getPath()), "Removed track " + removed + " is not in the list");
+        }
+        for(int i = 0; i < diff.getAdded().size(); i++) {
+            String after = diff.getAddedAfter().get(i).getPath();
+            int index = after.equals(TrackListStore.NO_TRACK.getPath()) ? 0 : tracks.indexOf(after) + 1;
+            assertTrue(index > 0 || after.equals(TrackListStore.NO_TRACK.getPath()), "AfterTrack " + after + " is not in the list");
+            tracks.add(index, diff.getAdded().get(i).getPath());
+        }
+        assertEquals(paths(newTracks), tracks);
+        assertEquals(diff.getRemoved().isEmpty() && diff.getAdded().isEmpty(), diff.isEmpty());
+        return diff;
+    }
+
+    private static List<DBusPath> mutate(List<DBusPath> tracks, Random random) {
+        List<DBusPath> mutated = new ArrayList<>(tracks);
+        int edits = random.nextInt(5);
+        for(int i = 0; i < edits; i++) {
+            int operation = random.nextInt(3);
+            if(operation == 0 && !mutated.isEmpty()) {
+                mutated.remove(random.nextInt(mutated.size()));
+            }else if(operation == 1 && !mutated.isEmpty()) {
+                mutated.add(random.nextInt(mutated.size()), mutated.remove(random.nextInt(mutated.size())));
+            }else{
+                DBusPath added = track(1000 + random.nextInt(1000));
+                if(!mutated.contains(added)) mutated.add(random.nextInt(mutated.size() + 1), added);
+            }
+        }
+        return mutated;
+    }
+
+    /**
+     * Tracklists never hold a track twice, so the random lists are shuffled subsets of a small pool
+     */
+    private static List<DBusPath> randomTracks(Random random) {
+        List<DBusPath> pool = tracks(0, 30);
+        Collections.shuffle(pool, random);
+        List<DBusPath> tracks = new ArrayList<>(pool.subList(0, random.nextInt(pool.size() + 1)));
+        if(random.nextBoolean()) tracks.sort(Comparator.comparing(DBusPath::getPath));
+        return tracks;
+    }
+
+    private static int commonSubsequence(List<DBusPath> a, List<DBusPath> b) {
+        int[][] lengths = new int[a.size() + 1][b.size() + 1];
+        for(int i = 1; i <= a.size(); i++) {
+            for(int j = 1; j <= b.size(); j++) {
+                lengths[i][j] = a.get(i - 1).getPath().equals(b.get(j - 1).getPath())
+                        ? lengths[i - 1][j - 1] + 1
+                        : Math.max(lengths[i - 1][j], lengths[i][j - 1]);
+            }
+        }
+        return lengths[a.size()][b.size()];
+    }
+
+    private static List<String> paths(List<DBusPath> tracks) {
+        List<String> paths = new ArrayList<>(tracks.size());
+        for(DBusPath track : tracks) {
+            paths.add(track.getPath());
+        }
+        return paths;
+    }
+
+    private static List<DBusPath> tracks(int from, int to) {
+        List<DBusPath> tracks = new ArrayList<>();
+        for(int i = from; i < to; i++) {
+            tracks.add(track(i));
+        }
+        return tracks;
+    }
+
+    private static DBusPath track(int id) {
+        return new DBusPath("/org/mpris/test/track/" + id);
+    }
+}
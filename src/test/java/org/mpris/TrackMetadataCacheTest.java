@@ -0,0 +1,87 @@
+package org.mpris;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Caching and invalidation of {@link TrackMetadataCache}, including invalidations while a load is running
+ */
+class TrackMetadataCacheTest {
+    private static final DBusPath TRACK = new DBusPath("/org/mpris/test/track/1");
+    private static final DBusPath OTHER_TRACK = new DBusPath("/org/mpris/test/track/2");
+
+    @Test
+    void loadedMetadataIsCached() {
+        TrackMetadataCache cache = new TrackMetadataCache(10, 1 << 20);
+
+        assertEquals("v1", title(cache.get(List.of(TRACK), ids -> metadata(ids, "v1"))));
+        assertEquals("v1", title(cache.get(List.of(TRACK), ids -> fail("Cached track was loaded again"))));
+        assertEquals(1, cache.getLoadCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void invalidationDuringALoadIsNotOverwritten() {
+        TrackMetadataCache cache = new TrackMetadataCache(10, 1 << 20);
+
+        List<Map<String, Variant<?>>> loaded = cache.get(List.of(TRACK), ids -> {
+            List<Map<String, Variant<?>>> old = metadata(ids, "old");
+            cache.invalidate(TRACK);
+            return old;
+        });
+
+        assertEquals("old", title(loaded));
+        assertEquals(0, cache.size());
+        assertEquals("new", title(cache.get(List.of(TRACK), ids -> metadata(ids, "new"))));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidateAllDuringALoadIsNotOverwritten() {
+        TrackMetadataCache cache = new TrackMetadataCache(10, 1 << 20);
+        cache.get(List.of(OTHER_TRACK), ids -> metadata(ids, "other"));
+
+        cache.get(List.of(TRACK), ids -> {
+            cache.invalidateAll();
+            return metadata(ids, "old");
+        });
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void loadedMetadataIsMatchedByTrackId() {
+        TrackMetadataCache cache = new TrackMetadataCache(10, 1 << 20);
+
+        // Out of order, TRACK is unknown and the second result has no id
+        List<Map<String, Variant<?>>> loaded = cache.get(List.of(TRACK, OTHER_TRACK), ids -> List.of(
+                metadata(List.of(OTHER_TRACK), "other").get(0),
+                Map.of("xesam:title", new Variant<>("anonymous"))
+        ));
+
+        assertEquals("other", title(loaded));
+        assertEquals(1, cache.size());
+        assertEquals("other", title(cache.get(List.of(OTHER_TRACK), ids -> fail("Cached track was loaded again"))));
+    }
+
+    private static List<Map<String, Variant<?>>> metadata(List<DBusPath> trackIds, String title) {
+        List<Map<String, Variant<?>>> metadata = new ArrayList<>();
+        for(DBusPath trackId : trackIds) {
+            metadata.add(Map.of("mpris:trackid", new Variant<>(trackId), "xesam:title", new Variant<>(title)));
+        }
+        return metadata;
+    }
+
+    private static String title(List<Map<String, Variant<?>>> metadata) {
+        assertEquals(1, metadata.size());
+        return (String) metadata.get(0).get("xesam:title").getValue();
+    }
+}
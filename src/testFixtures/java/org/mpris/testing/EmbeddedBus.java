@@ -0,0 +1,79 @@
+package org.mpris.testing;
+
+import org.freedesktop.dbus.bin.EmbeddedDBusDaemon;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A private D-Bus daemon listening on a unix socket in a temporary directory.
+ * <p>Tests and benchmarks talk to this daemon instead of the session bus, so they run on machines without a desktop
+ * session and are not disturbed by other clients.</p>
+ */
+public final class EmbeddedBus implements AutoCloseable {
+    private static final long STARTUP_TIMEOUT_MILLIS = 10_000;
+
+    private final Path directory;
+    private final String address;
+    private final EmbeddedDBusDaemon daemon;
+    private final List<DBusConnection> connections = new ArrayList<>();
+
+    private EmbeddedBus(Path directory, String address, EmbeddedDBusDaemon daemon) {
+        this.directory = directory;
+        this.address = address;
+        this.daemon = daemon;
+    }
+
+    public static EmbeddedBus start() throws IOException, DBusException, InterruptedException {
+        Path directory = Files.createTempDirectory("mpris-test");
+        String address = "unix:path=" + directory.resolve("bus");
+        EmbeddedDBusDaemon daemon = new EmbeddedDBusDaemon();
+        daemon.setAddress(address + ",listen=true");
+        daemon.startInBackground();
+        EmbeddedBus bus = new EmbeddedBus(directory, address, daemon);
+        bus.awaitStartup();
+        return bus;
+    }
+
+    private void awaitStartup() throws DBusException, InterruptedException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        while(true) {
+            try {
+                connect();
+                return;
+            } catch (DBusException e) {
+                if(System.currentTimeMillis() > deadline) throw e;
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    /**
+     * @return A new, unshared connection to the daemon which is closed together with the daemon
+     */
+    public synchronized DBusConnection connect() throws DBusException {
+        DBusConnection connection = DBusConnection.getConnection(address, true, false);
+        connections.add(connection);
+        return connection;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for(DBusConnection connection : connections) {
+            connection.disconnect();
+        }
+        connections.clear();
+        daemon.close();
+        Files.deleteIfExists(directory.resolve("bus"));
+        Files.deleteIfExists(directory);
+    }
+}
@@ -0,0 +1,272 @@
+package org.mpris.testing;
+
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.mpris.MPRISMediaPlayer;
+import org.mpris.Metadata;
+import org.mpris.mpris.*;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end fixture which exports players on an {@link EmbeddedBus} and talks to them through client proxies.
+ * <p>Every call made through a {@link Client} proxy and every signal measured with
+ * {@link Client#timeSignal(Class, Trigger, long)} is recorded in a {@link LatencyHistogram}, keyed by
+ * {@code Interface.Method} or {@code signal:Name}.</p>
+ * <pre>{@code
+ * try(MPRISTestHarness harness = MPRISTestHarness.start()) {
+ *     harness.createPlayer("test", MPRISMediaPlayer.MediaPlayer2Mode.ALL);
+ *     MPRISTestHarness.Client client = harness.client("test");
+ *     client.player().Next();
+ *     System.out.println(harness.report());
+ * }
+ * }</pre>
+ */
+public final class MPRISTestHarness implements AutoCloseable {
+    public static final String OBJECT_PATH = "/org/mpris/MediaPlayer2";
+
+    private final EmbeddedBus bus;
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the action whose signal should be measured
+     */
+    public interface Trigger {
+        void run() throws Exception;
+    }
+
+    private MPRISTestHarness(EmbeddedBus bus) {
+        this.bus = bus;
+    }
+
+    public static MPRISTestHarness start() throws IOException, DBusException, InterruptedException {
+        return new MPRISTestHarness(EmbeddedBus.start());
+    }
+
+    public EmbeddedBus getBus() {
+        return bus;
+    }
+
+    /**
+     * Exports a player with the default configuration of every interface
+     */
+    public MPRISMediaPlayer createPlayer(String playerName, MPRISMediaPlayer.MediaPlayer2Mode mode) throws DBusException {
+        return createPlayer(playerName, mode, defaultMediaPlayer2(), defaultPlayer(), defaultTrackList(), defaultPlaylists());
+    }
+
+    /**
+     * Exports a player on its own connection. Builders of interfaces which are not part of the mode are ignored.
+     */
+    public MPRISMediaPlayer createPlayer(
+            String playerName,
+            MPRISMediaPlayer.MediaPlayer2Mode mode,
+            MPRISMediaPlayer.MediaPlayer2Builder mediaPlayer2Builder,
+            MPRISMediaPlayer.PlayerBuilder playerBuilder,
+            MPRISMediaPlayer.TrackListBuilder trackListBuilder,
+            MPRISMediaPlayer.PlaylistsBuilder playlistsBuilder
+    ) throws DBusException {
+        MPRISMediaPlayer mediaPlayer = new MPRISMediaPlayer(bus.connect(), playerName);
+        switch (mode) {
+            case ALL:
+                mediaPlayer.buildMPRISMediaPlayer2All(mediaPlayer2Builder, playerBuilder, trackListBuilder, playlistsBuilder);
+                break;
+            case WPL:
+                mediaPlayer.buildMPRISMediaPlayer2WPL(mediaPlayer2Builder, playerBuilder, playlistsBuilder);
+                break;
+            case WTL:
+                mediaPlayer.buildMPRISMediaPlayer2WTL(mediaPlayer2Builder, playerBuilder, trackListBuilder);
+                break;
+            case NONE:
+                mediaPlayer.buildMPRISMediaPlayer2None(mediaPlayer2Builder, playerBuilder);
+                break;
+        }
+        mediaPlayer.create();
+        return mediaPlayer;
+    }
+
+    /**
+     * @return A client on a new connection which talks to org.mpris.MediaPlayer2.{playerName}
+     */
+    public Client client(String playerName) throws DBusException {
+        return new Client(bus.connect(), "org.mpris.MediaPlayer2." + playerName);
+    }
+
+    /**
+     * @return The histogram with the name, created on first use
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * @return All histograms recorded so far, sorted by name
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+
+    /**
+     * @return One line per histogram
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for(LatencyHistogram histogram : getHistograms().values()) {
+            report.append(histogram).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    public void resetHistograms() {
+        for(LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        bus.close();
+    }
+
+    public static MPRISMediaPlayer.MediaPlayer2Builder defaultMediaPlayer2() {
+        return new MPRISMediaPlayer.MediaPlayer2Builder()
+                .setIdentity("Test Player")
+                .setCanRaise(true)
+                .setCanQuit(true)
+                .setSupportedUriSchemes("file")
+                .setSupportedMimeTypes("audio/mpeg");
+    }
+
+    public static MPRISMediaPlayer.PlayerBuilder defaultPlayer() {
+        return new MPRISMediaPlayer.PlayerBuilder()
+                .setPlaybackStatus(PlaybackStatus.STOPPED)
+                .setLoopStatus(LoopStatus.NONE)
+                .setMetadata(new Metadata.Builder()
+                        .setTrackID(new DBusPath("/org/mpris/test/track/0"))
+                        .setLength(180_000_000)
+                        .setTitle("Test Track")
+                        .build())
+                .setCanControl(true)
+                .setCanPlay(true)
+                .setCanPause(true)
+                .setCanSeek(true)
+                .setCanGoNext(true)
+                .setCanGoPrevious(true);
+    }
+
+    public static MPRISMediaPlayer.TrackListBuilder defaultTrackList() {
+        return new MPRISMediaPlayer.TrackListBuilder()
+                .setTracks(new DBusPath("/org/mpris/test/track/0"))
+                .setCanEditTracks(true)
+                .setOnGetTracksMetadata(trackIds -> Collections.emptyList())
+                .setOnAddTrack(arguments -> {})
+                .setOnRemoveTrack(trackId -> {})
+                .setOnGoTo(trackId -> {})
+                .setOnSignalTrackListReplaced(signal -> {})
+                .setOnSignalTrackAdded(signal -> signal)
+                .setOnSignalTrackRemoved(signal -> {})
+                .setOnSignalTrackMetadataChanged(signal -> {});
+    }
+
+    public static MPRISMediaPlayer.PlaylistsBuilder defaultPlaylists() {
+        return new MPRISMediaPlayer.PlaylistsBuilder()
+                .setPlaylistsCount(0)
+                .setOrderings(Collections.singletonList(PlaylistOrdering.UserDefined))
+                .setActivePlaylist(new Playlists.Maybe_Playlist(false, new Playlists.Playlist(new DBusPath("/"), "", "")))
+                .setOnActivatePlaylist(playlistId -> {})
+                .setOnGetPlaylists(arguments -> Collections.emptyList())
+                .setOnSignalPlaylistChanged(signal -> {});
+    }
+
+    /**
+     * Client side proxies of one player which record the round trip time of every call
+     */
+    public final class Client {
+        private final DBusConnection connection;
+        private final String busName;
+        private final Map<Class<?>, BlockingQueue<Long>> signalArrivals = new ConcurrentHashMap<>();
+
+        private Client(DBusConnection connection, String busName) {
+            this.connection = connection;
+            this.busName = busName;
+        }
+
+        public DBusConnection getConnection() {
+            return connection;
+        }
+
+        public MediaPlayer2 mediaPlayer2() throws DBusException {
+            return timed(MediaPlayer2.class);
+        }
+
+        public Player player() throws DBusException {
+            return timed(Player.class);
+        }
+
+        public TrackList trackList() throws DBusException {
+            return timed(TrackList.class);
+        }
+
+        public Playlists playlists() throws DBusException {
+            return timed(Playlists.class);
+        }
+
+        public DBusProperties properties() throws DBusException {
+            return timed(DBusProperties.class);
+        }
+
+        /**
+         * Runs the trigger and waits for the next signal of the type
+         * @return The time from starting the trigger until the signal arrived in nanoseconds
+         * @throws AssertionError If no signal arrived within the timeout
+         */
+        public <S extends DBusSignal> long timeSignal(Class<S> signalType, Trigger trigger, long timeoutMillis) throws Exception {
+            BlockingQueue<Long> arrivals = signalArrivals(signalType);
+            arrivals.clear();
+            long start = System.nanoTime();
+            trigger.run();
+            Long arrival = arrivals.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            if(arrival == null) {
+                throw new AssertionError("No " + signalType.getSimpleName() + " within " + timeoutMillis + "ms");
+            }
+            long latency = arrival - start;
+            histogram("signal:" + signalType.getSimpleName()).record(latency);
+            return latency;
+        }
+
+        private <S extends DBusSignal> BlockingQueue<Long> signalArrivals(Class<S> signalType) throws DBusException {
+            BlockingQueue<Long> arrivals = signalArrivals.get(signalType);
+            if(arrivals != null) return arrivals;
+            BlockingQueue<Long> created = new LinkedBlockingQueue<>();
+            connection.addSigHandler(signalType, signal -> created.add(System.nanoTime()));
+            signalArrivals.put(signalType, created);
+            return created;
+        }
+
+        private <T extends DBusInterface> T timed(Class<T> type) throws DBusException {
+            T remote = connection.getRemoteObject(busName, OBJECT_PATH, type);
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (instance, method, arguments) -> {
+                if(method.getDeclaringClass() == Object.class) return method.invoke(remote, arguments);
+                LatencyHistogram histogram = histogram(type.getSimpleName() + "." + method.getName());
+                long start = System.nanoTime();
+                try {
+                    return method.invoke(remote, arguments);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                } finally {
+                    histogram.record(System.nanoTime() - start);
+                }
+            });
+            return type.cast(proxy);
+        }
+    }
+}